@@ -56,7 +56,7 @@ public abstract class BaseMessageApiClient implements MessageApiClient {
    * @throws RemoteApiException Required parameter is missing
    */
   protected void validateParams(String sessionToken, String kmToken, String streamId,
-      Message message) throws RemoteApiException {
+      Object message) throws RemoteApiException {
     if (sessionToken == null) {
       String exception = logMessage.getMessage(MISSING_PARAMETER, SESSION_TOKEN_HEADER_PARAM);
       String solution = logMessage.getMessage(MISSING_PARAMETER_SOLUTION);
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.agent.api.client;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.apache.commons.lang3.StringUtils;
+import org.symphonyoss.integration.model.message.Message;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Encodes messages as 'multipart/form-data' content required by the Message API v4.
+ *
+ * The boundary and the part headers are encoded only once, so preparing a message just requires
+ * to encode the MessageML and the entity JSON.
+ *
+ * Created by rsanchez on 25/10/17.
+ */
+public class MultiPartMessageWriter {
+
+  private static final String CRLF = "\r\n";
+
+  private static final String DASHES = "--";
+
+  private static final String BOUNDARY_PARAM = "boundary";
+
+  private static final String MESSAGE_BODY = "message";
+
+  private static final String DATA_BODY = "data";
+
+  private final String boundary;
+
+  private final MediaType mediaType;
+
+  private final byte[] messagePartHeader;
+
+  private final byte[] dataPartHeader;
+
+  private final byte[] closeDelimiter;
+
+  public MultiPartMessageWriter() {
+    this(newBoundary());
+  }
+
+  public MultiPartMessageWriter(String boundary) {
+    this.boundary = boundary;
+    this.mediaType = new MediaType(MediaType.MULTIPART_FORM_DATA_TYPE.getType(),
+        MediaType.MULTIPART_FORM_DATA_TYPE.getSubtype(),
+        Collections.singletonMap(BOUNDARY_PARAM, boundary));
+
+    this.messagePartHeader = partHeader(StringUtils.EMPTY, MESSAGE_BODY);
+    this.dataPartHeader = partHeader(CRLF, DATA_BODY);
+    this.closeDelimiter = (CRLF + DASHES + boundary + DASHES + CRLF).getBytes(UTF_8);
+  }
+
+  private static String newBoundary() {
+    return "Boundary_" + UUID.randomUUID().toString().replace("-", StringUtils.EMPTY);
+  }
+
+  private byte[] partHeader(String prefix, String name) {
+    String header = prefix + DASHES + boundary + CRLF
+        + "Content-Type: " + MediaType.TEXT_PLAIN + CRLF
+        + "Content-Disposition: form-data; name=\"" + name + "\"" + CRLF
+        + CRLF;
+    return header.getBytes(UTF_8);
+  }
+
+  /**
+   * Encodes the message. The entity JSON part is only included when the message has data.
+   * @param message Message to be encoded
+   * @return Encoded message
+   */
+  public PreparedMessage prepare(Message message) {
+    String content = StringUtils.defaultString(message.getMessage());
+    String data = message.getData();
+
+    if (content.contains(boundary) || StringUtils.contains(data, boundary)) {
+      // Very unlikely, but the boundary must not be part of the content
+      return new MultiPartMessageWriter().prepare(message);
+    }
+
+    byte[] contentBytes = content.getBytes(UTF_8);
+
+    if (StringUtils.isEmpty(data)) {
+      return new PreparedMessage(mediaType, messagePartHeader, contentBytes,
+          closeDelimiter);
+    }
+
+    return new PreparedMessage(mediaType, messagePartHeader, contentBytes,
+        dataPartHeader, data.getBytes(UTF_8), closeDelimiter);
+  }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.agent.api.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Message payload already encoded to bytes. It's built once per message and written as is for
+ * every stream the message is posted to.
+ *
+ * Created by rsanchez on 25/10/17.
+ */
+public final class PreparedMessage implements StreamingOutput {
+
+  private final MediaType mediaType;
+
+  private final byte[][] chunks;
+
+  public PreparedMessage(MediaType mediaType, byte[]... chunks) {
+    this.mediaType = mediaType;
+    this.chunks = chunks;
+  }
+
+  public MediaType getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Writes the encoded payload to the output stream.
+   * @param output HTTP connection output stream
+   * @throws IOException Failure to write the payload
+   */
+  @Override
+  public void write(OutputStream output) throws IOException {
+    for (byte[] chunk : chunks) {
+      output.write(chunk);
+    }
+  }
+
+}
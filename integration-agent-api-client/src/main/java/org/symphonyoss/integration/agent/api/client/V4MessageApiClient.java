@@ -16,19 +16,12 @@
 
 package org.symphonyoss.integration.agent.api.client;
 
-import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
-import static org.symphonyoss.integration.agent.api.client.properties.V4MessageApiClientProperties.POST_FAILURE;
-import static org.symphonyoss.integration.agent.api.client.properties.V4MessageApiClientProperties.POST_FAILURE_SOLUTION;
-
-import org.apache.commons.lang3.StringUtils;
-import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.symphonyoss.integration.api.client.HttpApiClient;
 import org.symphonyoss.integration.api.client.form.MultiPartEntitySerializer;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.message.Message;
 
-import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -81,16 +74,15 @@ import java.util.Map;
  */
 public class V4MessageApiClient extends BaseMessageApiClient {
 
-  private static final String MESSAGE_BODY = "message";
-
-  private static final String DATA_BODY = "data";
-
   private HttpApiClient apiClient;
 
+  private final MultiPartMessageWriter writer = new MultiPartMessageWriter();
+
   public V4MessageApiClient(HttpApiClient apiClient, LogMessageSource logMessage) {
     super(logMessage);
     this.apiClient = apiClient;
-    this.apiClient.setEntitySerializer(new MultiPartEntitySerializer());
+    this.apiClient.setEntitySerializer(
+        new PreparedMessageEntitySerializer(new MultiPartEntitySerializer()));
   }
 
   /**
@@ -105,29 +97,43 @@ public class V4MessageApiClient extends BaseMessageApiClient {
   public Message postMessage(String sessionToken, String kmToken, String streamId, Message message)
       throws RemoteApiException {
     validateParams(sessionToken, kmToken, streamId, message);
+    return doPostMessage(sessionToken, kmToken, streamId, prepare(message));
+  }
 
+  /**
+   * Post a message already encoded to one existing stream. Used to post the same message to
+   * several streams without encoding it again.
+   * @param sessionToken Session authentication token.
+   * @param kmToken Key Manager authentication token.
+   * @param streamId Stream identifier
+   * @param message Message encoded by {@link #prepare(Message)}
+   * @return Message posted
+   */
+  public Message postMessage(String sessionToken, String kmToken, String streamId,
+      PreparedMessage message) throws RemoteApiException {
+    validateParams(sessionToken, kmToken, streamId, message);
+    return doPostMessage(sessionToken, kmToken, streamId, message);
+  }
+
+  /**
+   * Encodes the message as 'multipart/form-data' content.
+   * @param message Message to be posted
+   * @return Encoded message
+   */
+  public PreparedMessage prepare(Message message) {
+    return writer.prepare(message);
+  }
+
+  private Message doPostMessage(String sessionToken, String kmToken, String streamId,
+      PreparedMessage message) throws RemoteApiException {
     String path = "/v4/stream/" + apiClient.escapeString(streamId) + "/message/create";
 
     Map<String, String> headerParams = new HashMap<>();
     headerParams.put(SESSION_TOKEN_HEADER_PARAM, sessionToken);
     headerParams.put(KM_TOKEN_HEADER_PARAM, kmToken);
 
-    try (FormDataMultiPart multiPart = new FormDataMultiPart()) {
-      multiPart.field(MESSAGE_BODY, message.getMessage(), TEXT_PLAIN_TYPE);
-
-      String entityJSON = message.getData();
-
-      if (StringUtils.isNotEmpty(entityJSON)) {
-        multiPart.field(DATA_BODY, entityJSON, TEXT_PLAIN_TYPE);
-      }
-
-      return apiClient.doPost(path, headerParams, Collections.<String, String>emptyMap(), multiPart, Message.class);
-    } catch (IOException e) {
-      String errorMessage = logMessage.getMessage(POST_FAILURE, streamId, e.getMessage());
-      String solution = logMessage.getMessage(POST_FAILURE_SOLUTION);
-
-      throw new RemoteApiException(500, errorMessage, e, solution);
-    }
+    return apiClient.doPost(path, headerParams, Collections.<String, String>emptyMap(), message,
+        Message.class);
   }
 
 }
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.agent.api.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+import org.symphonyoss.integration.model.message.Message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit test for {@link MultiPartMessageWriter}
+ * Created by rsanchez on 25/10/17.
+ */
+public class MultiPartMessageWriterTest {
+
+  private static final String BOUNDARY = "Boundary_test";
+
+  private static final String MESSAGE = "<messageML>test ção</messageML>";
+
+  private static final String DATA = "{\"test\": {\"type\": \"com.symphony.test\"}}";
+
+  private MultiPartMessageWriter writer = new MultiPartMessageWriter(BOUNDARY);
+
+  @Test
+  public void testMessageWithoutData() throws IOException {
+    Message message = new Message();
+    message.setMessage(MESSAGE);
+
+    PreparedMessage prepared = writer.prepare(message);
+
+    String expected = "--Boundary_test\r\n"
+        + "Content-Type: text/plain\r\n"
+        + "Content-Disposition: form-data; name=\"message\"\r\n"
+        + "\r\n"
+        + MESSAGE + "\r\n"
+        + "--Boundary_test--\r\n";
+
+    assertEquals(expected, write(prepared));
+    assertEquals("multipart/form-data;boundary=Boundary_test",
+        prepared.getMediaType().toString().replace(" ", ""));
+  }
+
+  @Test
+  public void testMessageWithData() throws IOException {
+    Message message = new Message();
+    message.setMessage(MESSAGE);
+    message.setData(DATA);
+
+    PreparedMessage prepared = writer.prepare(message);
+
+    String expected = "--Boundary_test\r\n"
+        + "Content-Type: text/plain\r\n"
+        + "Content-Disposition: form-data; name=\"message\"\r\n"
+        + "\r\n"
+        + MESSAGE + "\r\n"
+        + "--Boundary_test\r\n"
+        + "Content-Type: text/plain\r\n"
+        + "Content-Disposition: form-data; name=\"data\"\r\n"
+        + "\r\n"
+        + DATA + "\r\n"
+        + "--Boundary_test--\r\n";
+
+    assertEquals(expected, write(prepared));
+
+    // Written many times
+    assertEquals(expected, write(prepared));
+  }
+
+  @Test
+  public void testContentWithBoundary() throws IOException {
+    Message message = new Message();
+    message.setMessage("<messageML>" + BOUNDARY + "</messageML>");
+
+    PreparedMessage prepared = writer.prepare(message);
+
+    assertNotEquals(BOUNDARY, prepared.getMediaType().getParameters().get("boundary"));
+    assertFalse(write(prepared).startsWith("--" + BOUNDARY + "\r\n"));
+  }
+
+  private String write(PreparedMessage prepared) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    prepared.write(output);
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+}
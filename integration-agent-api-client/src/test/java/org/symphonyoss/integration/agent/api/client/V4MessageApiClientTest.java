@@ -17,21 +17,25 @@
 package org.symphonyoss.integration.agent.api.client;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import org.glassfish.jersey.media.multipart.BodyPart;
-import org.glassfish.jersey.media.multipart.FormDataMultiPart;
-import org.glassfish.jersey.media.multipart.MultiPart;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -42,7 +46,9 @@ import org.symphonyoss.integration.json.JsonUtils;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.message.Message;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -117,8 +123,8 @@ public class V4MessageApiClientTest {
     String path = "/v4/stream/" + MOCK_STREAM_ID + "/message/create";
 
     doReturn(MOCK_STREAM_ID).when(httpClient).escapeString(MOCK_STREAM_ID);
-    doAnswer(new AnswerV3MessageApi()).when(httpClient)
-        .doPost(eq(path), eq(headerParams), eq(queryParams), any(MultiPart.class),
+    doAnswer(new AnswerV3MessageApi(message)).when(httpClient)
+        .doPost(eq(path), eq(headerParams), eq(queryParams), any(PreparedMessage.class),
             eq(Message.class));
 
     Message result = apiClient.postMessage(MOCK_SESSION, MOCK_KM_SESSION, MOCK_STREAM_ID, message);
@@ -144,8 +150,8 @@ public class V4MessageApiClientTest {
     String path = "/v4/stream/" + MOCK_STREAM_ID + "/message/create";
 
     doReturn(MOCK_STREAM_ID).when(httpClient).escapeString(MOCK_STREAM_ID);
-    doAnswer(new AnswerV3MessageApi()).when(httpClient)
-        .doPost(eq(path), eq(headerParams), eq(queryParams), any(MultiPart.class),
+    doAnswer(new AnswerV3MessageApi(message)).when(httpClient)
+        .doPost(eq(path), eq(headerParams), eq(queryParams), any(PreparedMessage.class),
             eq(Message.class));
 
     Message result = apiClient.postMessage(MOCK_SESSION, MOCK_KM_SESSION, MOCK_STREAM_ID, message);
@@ -161,50 +167,86 @@ public class V4MessageApiClientTest {
     return message;
   }
 
+  /**
+   * Checks the encoded payload contains the expected message and returns it.
+   */
   private static final class AnswerV3MessageApi implements Answer<Message> {
 
+    private final Message expected;
+
+    private AnswerV3MessageApi(Message expected) {
+      this.expected = expected;
+    }
+
     @Override
     public Message answer(InvocationOnMock invocationOnMock) throws Throwable {
       Object[] arguments = invocationOnMock.getArguments();
 
-      FormDataMultiPart multiPart = (FormDataMultiPart) arguments[3];
+      PreparedMessage multiPart = (PreparedMessage) arguments[3];
 
-      BodyPart presentationML = multiPart.getField(MESSAGE_BODY);
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      multiPart.write(output);
 
-      Message message = new Message();
-      message.setMessage(presentationML.getEntity().toString());
+      String content = new String(output.toByteArray(), StandardCharsets.UTF_8);
+      assertTrue(content.contains("name=\"" + MESSAGE_BODY + "\"\r\n\r\n" + expected.getMessage()));
 
-      BodyPart entityJson = multiPart.getField(DATA_BODY);
+      Message message = new Message();
+      message.setMessage(expected.getMessage());
 
-      if (entityJson != null) {
-        message.setData(entityJson.getEntity().toString());
+      if (expected.getData() != null) {
+        assertTrue(content.contains("name=\"" + DATA_BODY + "\"\r\n\r\n" + expected.getData()));
+        message.setData(expected.getData());
+      } else {
+        assertFalse(content.contains("name=\"" + DATA_BODY + "\""));
       }
 
       return message;
     }
   }
 
-  @Test(expected = RemoteApiException.class)
-  public void testPostMessageWithIOException() throws RemoteApiException, IOException {
+  @Test
+  public void testPostPreparedMessage() throws RemoteApiException {
+    Message message = mockMessage();
 
-    Map<String, String> headerParams = new HashMap<>();
-    headerParams.put("sessionToken", MOCK_SESSION);
-    headerParams.put("keyManagerToken", MOCK_KM_SESSION);
+    doReturn(MOCK_STREAM_ID).when(httpClient).escapeString(anyString());
+    doReturn(message).when(httpClient)
+        .doPost(anyString(), anyMap(), anyMap(), any(PreparedMessage.class), eq(Message.class));
 
-    Message message = mockMessage();
+    V4MessageApiClient v4ApiClient = (V4MessageApiClient) apiClient;
+    PreparedMessage prepared = v4ApiClient.prepare(message);
 
-    JsonNode node =
-        JsonUtils.readTree(getClass().getClassLoader().getResourceAsStream(FILENAME_ENTITY_JSON));
-    message.setData(node.toString());
+    v4ApiClient.postMessage(MOCK_SESSION, MOCK_KM_SESSION, MOCK_STREAM_ID, prepared);
+    v4ApiClient.postMessage(MOCK_SESSION, MOCK_KM_SESSION, MOCK_STREAM_ID, prepared);
 
-    String path = "/v4/stream/" + MOCK_STREAM_ID + "/message/create";
+    ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+    verify(httpClient, times(2))
+        .doPost(anyString(), anyMap(), anyMap(), captor.capture(), eq(Message.class));
 
-    doReturn(MOCK_STREAM_ID).when(httpClient).escapeString(MOCK_STREAM_ID);
-    doThrow(IOException.class).when(httpClient)
-        .doPost(eq(path), eq(headerParams), anyMap(), any(MultiPart.class),
-            eq(Message.class));
+    assertSame(prepared, captor.getAllValues().get(0));
+    assertSame(prepared, captor.getAllValues().get(1));
+  }
+
+  @Test
+  public void testPostMessageEncodesEachCall() throws RemoteApiException {
+    Message message = mockMessage();
+
+    doReturn(MOCK_STREAM_ID).when(httpClient).escapeString(anyString());
+    doReturn(message).when(httpClient)
+        .doPost(anyString(), anyMap(), anyMap(), any(PreparedMessage.class), eq(Message.class));
 
     apiClient.postMessage(MOCK_SESSION, MOCK_KM_SESSION, MOCK_STREAM_ID, message);
+    apiClient.postMessage(MOCK_SESSION, MOCK_KM_SESSION, MOCK_STREAM_ID, message);
+
+    ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+    verify(httpClient, times(2))
+        .doPost(anyString(), anyMap(), anyMap(), captor.capture(), eq(Message.class));
 
+    assertNotSame(captor.getAllValues().get(0), captor.getAllValues().get(1));
+  }
+
+  @Test(expected = RemoteApiException.class)
+  public void testPostNullPreparedMessage() throws RemoteApiException {
+    ((V4MessageApiClient) apiClient).postMessage(MOCK_SESSION, MOCK_KM_SESSION, MOCK_STREAM_ID,
+        (PreparedMessage) null);
   }
 }
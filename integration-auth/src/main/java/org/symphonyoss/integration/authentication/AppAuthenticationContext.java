@@ -16,6 +16,7 @@
 
 package org.symphonyoss.integration.authentication;
 
+import com.codahale.metrics.MetricRegistry;
 import org.symphonyoss.integration.model.yaml.HttpClientConfig;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 
@@ -41,7 +42,24 @@ public class AppAuthenticationContext extends AuthenticationContext {
    */
   public AppAuthenticationContext(String applicationId, KeyStore keyStore, String keyStorePassword,
       HttpClientConfig httpClientConfig, IntegrationProperties properties) {
-    super(keyStore, keyStorePassword, httpClientConfig, properties);
+    this(applicationId, keyStore, keyStorePassword, httpClientConfig, properties, null);
+  }
+
+  /**
+   * Initializes application identifier and HTTP client with the SSL Context according to the
+   * keystore received. The HTTP clients are monitored through the metric registry.
+   *
+   * @param applicationId Application identifier
+   * @param keyStore Keystore object
+   * @param keyStorePassword Keystore password
+   * @param httpClientConfig API client settings
+   * @param metricRegistry Metric registry
+   */
+  public AppAuthenticationContext(String applicationId, KeyStore keyStore, String keyStorePassword,
+      HttpClientConfig httpClientConfig, IntegrationProperties properties,
+      MetricRegistry metricRegistry) {
+    super(keyStore, keyStorePassword, httpClientConfig, properties,
+        MetricRegistry.name("app", applicationId), metricRegistry);
     this.applicationId = applicationId;
   }
 
@@ -21,6 +21,7 @@ import static org.symphonyoss.integration.authentication.properties
 import static org.symphonyoss.integration.authentication.properties
     .AppAuthenticationProxyProperties.UNREGISTERED_APP_SOLUTION;
 
+import com.codahale.metrics.MetricRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.auth.api.client.AuthenticationAppApiClient;
@@ -60,6 +61,9 @@ public class AppAuthenticationProxyImpl implements AppAuthenticationProxy {
   @Autowired
   private PodAuthAppHttpApiClient podAuthAppHttpApiClient;
 
+  @Autowired
+  private MetricRegistry metricsRegistry;
+
   private AuthenticationAppApiClient apiClient;
 
   /**
@@ -74,7 +78,7 @@ public class AppAuthenticationProxyImpl implements AppAuthenticationProxy {
   public void registerApplication(String applicationId, KeyStore keyStore, String keyStorePassword) {
     AppAuthenticationContext context =
         new AppAuthenticationContext(applicationId, keyStore, keyStorePassword,
-            properties.getHttpClientConfig(), properties);
+            properties.getHttpClientConfig(), properties, metricsRegistry);
 
     appContexts.put(applicationId, context);
   }
@@ -16,41 +16,32 @@
 
 package org.symphonyoss.integration.authentication;
 
-import org.apache.http.config.Registry;
-import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.conn.socket.PlainConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
-
-import org.glassfish.jersey.SslConfigurator;
-import org.glassfish.jersey.apache.connector.ApacheClientProperties;
-import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
-import org.glassfish.jersey.client.ClientConfig;
-import org.glassfish.jersey.client.ClientProperties;
-import org.glassfish.jersey.media.multipart.MultiPartFeature;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.codahale.metrics.MetricRegistry;
 import org.symphonyoss.integration.authentication.api.enums.ServiceName;
 import org.symphonyoss.integration.authentication.exception.MissingClientException;
 import org.symphonyoss.integration.authentication.exception.MissingServiceConfigurationException;
 import org.symphonyoss.integration.authentication.properties.AuthenticationContextProperties;
-import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.logging.MessageUtils;
 import org.symphonyoss.integration.model.yaml.ConnectionInfo;
 import org.symphonyoss.integration.model.yaml.HttpClientConfig;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
-import org.symphonyoss.integration.model.yaml.ProxyConnectionInfo;
 
 import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.net.ssl.SSLSocketFactory;
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 
 /**
  * Abstract class to support context management for an integration.
  *
+ * The SSL context is created when the context is initialized, but the HTTP clients are only
+ * built on the first use of each service. When a metric registry is provided, the connection
+ * pools and TLS handshakes of these clients are monitored.
+ *
  * Created by ecarrenho on 8/23/16.
  */
 public abstract class AuthenticationContext {
@@ -58,16 +49,40 @@ public abstract class AuthenticationContext {
   private static final String BUNDLE_FILENAME = "integration-auth-log-messages";
   private static final MessageUtils MSG = new MessageUtils(BUNDLE_FILENAME);
 
-  private final Map<ServiceName, Client> serviceClients = new HashMap<>();
+  private final ConcurrentMap<ServiceName, Client> serviceClients = new ConcurrentHashMap<>();
+
+  private final Map<ServiceName, ConnectionInfo> services;
+
+  private final HttpClientConfig httpClientConfig;
+
+  private final SSLSocketFactory sslSocketFactory;
+
+  private final String metricsOwner;
+
+  private final MetricRegistry metricRegistry;
 
   /**
-   * Initializes HTTP client with the SSL Context according to the keystore received.
+   * Initializes the SSL Context according to the keystore received.
    * @param keyStore Keystore object
    * @param keyStorePassword Keystore password
    * @param httpClientConfig API client settings
    */
   public AuthenticationContext(KeyStore keyStore, String keyStorePassword, HttpClientConfig
       httpClientConfig, IntegrationProperties properties) {
+    this(keyStore, keyStorePassword, httpClientConfig, properties, null, null);
+  }
+
+  /**
+   * Initializes the SSL Context according to the keystore received.
+   * @param keyStore Keystore object
+   * @param keyStorePassword Keystore password
+   * @param httpClientConfig API client settings
+   * @param metricsOwner Name used to identify the HTTP client metrics of this context
+   * @param metricRegistry Metric registry or null if the HTTP clients shouldn't be monitored
+   */
+  public AuthenticationContext(KeyStore keyStore, String keyStorePassword,
+      HttpClientConfig httpClientConfig, IntegrationProperties properties, String metricsOwner,
+      MetricRegistry metricRegistry) {
     if (httpClientConfig == null) {
       httpClientConfig = new HttpClientConfig();
     }
@@ -83,99 +98,46 @@ public abstract class AuthenticationContext {
               AuthenticationContextProperties.MISSING_SERVICE_CONFIGURATION_SOLUTION));
     }
 
-    for (Map.Entry<ServiceName, ConnectionInfo> entry : services.entrySet()) {
-      ServiceName service = entry.getKey();
-      ConnectionInfo serviceInfo = entry.getValue();
-
-      this.serviceClients.put(service,
-          buildClient(keyStore, keyStorePassword, httpClientConfig, serviceInfo.getProxy()));
-    }
-
+    this.services = new HashMap<>(services);
+    this.httpClientConfig = httpClientConfig;
+    this.sslSocketFactory = PooledClientFactory.getSslSocketFactory(keyStore, keyStorePassword);
+    this.metricsOwner = metricsOwner;
+    this.metricRegistry = metricRegistry;
   }
 
   /**
-   * Builds HTTP client with the SSL Context according to the keystore received.
-   * @param keyStore Keystore object
-   * @param keyStorePassword Keystore password
-   * @param httpClientConfig API client settings
+   * Get HTTP client. The client is built on the first call for each service.
    * @return HTTP client
    */
-  private Client buildClient(KeyStore keyStore, String keyStorePassword,
-      HttpClientConfig httpClientConfig, ProxyConnectionInfo proxyConnectionInfo) {
-    final ClientConfig clientConfig = new ClientConfig();
-    clientConfig.register(MultiPartFeature.class);
-
-    // Connect and read timeouts in milliseconds
-    clientConfig.property(ClientProperties.READ_TIMEOUT, httpClientConfig.getReadTimeout());
-    clientConfig.property(ClientProperties.CONNECT_TIMEOUT, httpClientConfig.getConnectTimeout());
-
-    // Socket factory setup with custom SSL context settings
-    SSLConnectionSocketFactory sslSocketFactory;
-
-    if (keyStore == null || keyStorePassword == null) {
-      sslSocketFactory = SSLConnectionSocketFactory.getSystemSocketFactory();
-    } else {
-      SslConfigurator sslConfigurator = SslConfigurator.newInstance()
-          .keyStore(keyStore)
-          .keyStorePassword(keyStorePassword);
-
-      sslSocketFactory = new SSLConnectionSocketFactory(sslConfigurator.createSSLContext());
+  public Client httpClientForContext(ServiceName serviceName) {
+    Client client = serviceClients.get(serviceName);
+
+    if (client != null) {
+      return client;
     }
 
-    Registry<ConnectionSocketFactory> socketFactoryRegistry =
-        RegistryBuilder.<ConnectionSocketFactory>create()
-            .register("http", PlainConnectionSocketFactory.getSocketFactory())
-            .register("https", sslSocketFactory)
-            .build();
-
-    // Connection pool setup with custom socket factory and max connections
-    PoolingHttpClientConnectionManager connectionManager =
-        new PoolingHttpClientConnectionManager(socketFactoryRegistry);
-    connectionManager.setMaxTotal(httpClientConfig.getMaxConnections());
-    connectionManager.setDefaultMaxPerRoute(httpClientConfig.getMaxConnectionsPerRoute());
-
-    // Sets the connector provider and connection manager (as shared to avoid the client runtime
-    // to shut it down)
-    clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
-    clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, true);
-    ApacheConnectorProvider connectorProvider = new ApacheConnectorProvider();
-    clientConfig.connectorProvider(connectorProvider);
-
-    // Adds proxy info if there is any
-    if (proxyConnectionInfo != null) {
-
-      String uri = proxyConnectionInfo.getURI();
-      String user = proxyConnectionInfo.getUser();
-      String password = proxyConnectionInfo.getPassword();
-
-      if (uri != null) {
-        clientConfig.property(ClientProperties.PROXY_URI, uri);
-      }
+    ConnectionInfo serviceInfo = services.get(serviceName);
 
-      if (user != null) {
-        clientConfig.property(ClientProperties.PROXY_USERNAME, user);
-      }
-
-      if (password != null) {
-        clientConfig.property(ClientProperties.PROXY_PASSWORD, password);
-      }
+    if (serviceInfo == null) {
+      throw new MissingClientException(COMPONENT, serviceName);
     }
 
-    // Build the client with the above configurations
-    final ClientBuilder clientBuilder = ClientBuilder.newBuilder().withConfig(clientConfig);
+    synchronized (serviceClients) {
+      client = serviceClients.get(serviceName);
 
-    return clientBuilder.build();
-  }
+      if (client == null) {
+        HttpClientMetrics metrics = null;
 
-  /**
-   * Get HTTP client
-   * @return HTTP client
-   */
-  public Client httpClientForContext(ServiceName serviceName) {
-    if (serviceClients.containsKey(serviceName)) {
-      return serviceClients.get(serviceName);
-    } else {
-      throw new MissingClientException(COMPONENT, serviceName);
+        if (metricRegistry != null) {
+          metrics = new HttpClientMetrics(metricRegistry, metricsOwner, serviceName);
+        }
+
+        client = PooledClientFactory.buildClient(serviceName, sslSocketFactory, httpClientConfig,
+            serviceInfo.getProxy(), metrics);
+        serviceClients.put(serviceName, client);
+      }
+
+      return client;
     }
   }
-}
\ No newline at end of file
+}
@@ -37,15 +37,22 @@ import static org.symphonyoss.integration.authentication.properties.Authenticati
 import static org.symphonyoss.integration.authentication.properties.AuthenticationProxyProperties
     .UNREGISTERED_USER_SOLUTION;
 
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.auth.api.client.AuthenticationApiClient;
 import org.symphonyoss.integration.auth.api.client.KmAuthHttpApiClient;
 import org.symphonyoss.integration.auth.api.client.PodAuthHttpApiClient;
-import org.symphonyoss.integration.auth.api.model.Token;
 import org.symphonyoss.integration.authentication.api.enums.ServiceName;
+import org.symphonyoss.integration.authentication.event.UserRegisteredEventData;
 import org.symphonyoss.integration.authentication.exception.UnregisteredSessionTokenException;
 import org.symphonyoss.integration.authentication.exception.UnregisteredUserAuthException;
 import org.symphonyoss.integration.exception.RemoteApiException;
@@ -59,10 +66,19 @@ import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 
 import java.security.KeyStore;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.core.Response.Status;
 
@@ -77,8 +93,28 @@ public class AuthenticationProxyImpl implements AuthenticationProxy {
 
   private static final Logger LOG = LoggerFactory.getLogger(AuthenticationProxyImpl.class);
 
+  /**
+   * Number of threads used to request the POD and Key Manager tokens. Each authentication uses
+   * two threads, one for each token.
+   */
+  public static final String AUTHENTICATION_THREADS_KEY = "authentication.threads";
+
+  public static final String DEFAULT_AUTHENTICATION_THREADS = "8";
+
+  /**
+   * Maximum number of token requests waiting for a thread. When the queue is full the caller
+   * thread requests the token itself.
+   */
+  public static final String AUTHENTICATION_QUEUE_SIZE_KEY = "authentication.queue.size";
+
+  public static final String DEFAULT_AUTHENTICATION_QUEUE_SIZE = "100";
+
   private static final Long MAX_SESSION_TIME_MILLIS = TimeUnit.MINUTES.toMillis(3);
 
+  private static final String REAUTHENTICATION = "reauthentication";
+
+  private static final String COALESCED = "coalesced";
+
   /**
    * SBE Authentication API Client
    */
@@ -91,6 +127,38 @@ public class AuthenticationProxyImpl implements AuthenticationProxy {
 
   private Map<String, UserAuthenticationContext> authContexts = new ConcurrentHashMap<>();
 
+  /**
+   * Authentication contexts indexed by the current and previous session tokens. This index is
+   * maintained by the authentication contexts whenever the tokens are renewed.
+   */
+  private ConcurrentMap<String, UserAuthenticationContext> sessionTokenIndex =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Re-authentications in progress indexed by user identifier
+   */
+  private ConcurrentMap<String, CompletableFuture<Void>> pendingAuthentications =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Performs the POD and Key Manager authentications concurrently. If null, the authentications
+   * are performed sequentially in the caller thread.
+   */
+  private ExecutorService authExecutor;
+
+  /**
+   * Timer for the re-authentications
+   */
+  private Timer reAuthTimer;
+
+  /**
+   * Number of callers that waited for a re-authentication started by another thread
+   */
+  private Meter coalescedReAuth;
+
+  @Autowired
+  private MetricRegistry metricsRegistry;
+
   @Autowired
   private IntegrationProperties properties;
 
@@ -103,6 +171,9 @@ public class AuthenticationProxyImpl implements AuthenticationProxy {
   @Autowired
   private LogMessageSource logMessage;
 
+  @Autowired
+  private ApplicationEventPublisher publisher;
+
   /**
    * Initialize HTTP clients.
    */
@@ -110,32 +181,144 @@ public class AuthenticationProxyImpl implements AuthenticationProxy {
   public void init() {
     this.sbeAuthApi = new AuthenticationApiClient(podAuthHttpApiClient);
     this.keyManagerAuthApi = new AuthenticationApiClient(kmAuthHttpApiClient);
+
+    this.reAuthTimer = metricsRegistry.timer(MetricRegistry.name(BASE_METRIC_NAME, REAUTHENTICATION));
+    this.coalescedReAuth =
+        metricsRegistry.meter(MetricRegistry.name(BASE_METRIC_NAME, REAUTHENTICATION, COALESCED));
+
+    int threads = Integer.valueOf(
+        System.getProperty(AUTHENTICATION_THREADS_KEY, DEFAULT_AUTHENTICATION_THREADS));
+    int queueSize = Integer.valueOf(
+        System.getProperty(AUTHENTICATION_QUEUE_SIZE_KEY, DEFAULT_AUTHENTICATION_QUEUE_SIZE));
+    this.authExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize),
+        new ThreadFactoryBuilder().setNameFormat("Authentication-%d").setDaemon(true).build(),
+        new ThreadPoolExecutor.CallerRunsPolicy());
   }
 
+  @PreDestroy
+  public void destroy() {
+    if (authExecutor != null) {
+      authExecutor.shutdown();
+    }
+  }
+
+  /**
+   * Authenticates the user if it's not authenticated yet. If an authentication for the user is
+   * already in progress, waits for it instead.
+   * @param userId User identifier
+   * @throws AuthenticationException Failure to authenticate the user
+   */
   @Override
-  public void authenticate(String userId) throws AuthenticationException {
+  public void authenticate(final String userId) throws AuthenticationException {
+    runOnce(userId, new Runnable() {
+      @Override
+      public void run() {
+        authenticateIfNeeded(userId);
+      }
+    });
+  }
+
+  private void authenticateIfNeeded(String userId) {
     UserAuthenticationContext context = contextForUser(userId);
 
     if (!context.isAuthenticated()) {
       LOG.info("Authenticate {}", userId);
+      context.setToken(requestToken(userId));
+    }
+  }
+
+  /**
+   * Requests new session and key manager tokens for the user. Both tokens are requested at the
+   * same time and the first failure is reported without waiting for the other request.
+   * @param userId User identifier
+   * @return New authentication token
+   * @throws AuthenticationException Failure to authenticate the user
+   */
+  private AuthenticationToken requestToken(final String userId) throws AuthenticationException {
+    if (authExecutor == null) {
+      return new AuthenticationToken(requestToken(sbeAuthApi, userId),
+          requestToken(keyManagerAuthApi, userId));
+    }
+
+    CompletableFuture<String> sessionToken = requestTokenAsync(sbeAuthApi, userId);
+    CompletableFuture<String> keyManagerToken = requestTokenAsync(keyManagerAuthApi, userId);
+
+    final CompletableFuture<Void> failure = new CompletableFuture<>();
+    BiConsumer<String, Throwable> failFast = new BiConsumer<String, Throwable>() {
+      @Override
+      public void accept(String token, Throwable throwable) {
+        if (throwable != null) {
+          failure.completeExceptionally(throwable);
+        }
+      }
+    };
+
+    sessionToken.whenComplete(failFast);
+    keyManagerToken.whenComplete(failFast);
+
+    try {
+      CompletableFuture.anyOf(CompletableFuture.allOf(sessionToken, keyManagerToken), failure)
+          .join();
+    } catch (CompletionException e) {
+      sessionToken.cancel(false);
+      keyManagerToken.cancel(false);
+      throw propagate(e);
+    }
+
+    return new AuthenticationToken(sessionToken.join(), keyManagerToken.join());
+  }
 
-      try {
-        Token sessionToken = sbeAuthApi.authenticate(userId);
-        Token keyManagerToken = keyManagerAuthApi.authenticate(userId);
-
-        context.setToken(
-            new AuthenticationToken(sessionToken.getToken(), keyManagerToken.getToken()));
-      } catch (RemoteApiException e) {
-        checkAndThrowException(e, userId);
-      } catch (ConnectivityException e) {
-        throw e;
-      } catch (Exception e) {
-        throw new UnexpectedAuthException(
-            logMessage.getMessage(UNEXPECTED_SESSION_TOKEN_MESSAGE, userId), e,
-            logMessage.getMessage(UNEXPECTED_SESSION_TOKEN_SOLUTION));
+  private CompletableFuture<String> requestTokenAsync(final AuthenticationApiClient apiClient,
+      final String userId) {
+    return CompletableFuture.supplyAsync(new Supplier<String>() {
+      @Override
+      public String get() {
+        return requestToken(apiClient, userId);
       }
+    }, authExecutor);
+  }
+
+  /**
+   * Requests a new token for the user.
+   * @param apiClient Authentication API client (POD or Key Manager)
+   * @param userId User identifier
+   * @return New token
+   * @throws AuthenticationException Failure to authenticate the user
+   */
+  private String requestToken(AuthenticationApiClient apiClient, String userId)
+      throws AuthenticationException {
+    try {
+      return apiClient.authenticate(userId).getToken();
+    } catch (RemoteApiException e) {
+      throw toAuthenticationException(e, userId);
+    } catch (ConnectivityException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new UnexpectedAuthException(
+          logMessage.getMessage(UNEXPECTED_SESSION_TOKEN_MESSAGE, userId), e,
+          logMessage.getMessage(UNEXPECTED_SESSION_TOKEN_SOLUTION));
     }
+  }
 
+  /**
+   * Renews the session of the user even if the current one is still valid. The current token is
+   * kept as the previous token, so requests in progress aren't affected. If a re-authentication
+   * for the user is already in progress, waits for it instead.
+   * @param userId User identifier
+   * @throws AuthenticationException Failure to authenticate the user
+   */
+  public void refreshSession(String userId) throws AuthenticationException {
+    reAuthenticate(userId, true);
+  }
+
+  /**
+   * Checks if the user was registered.
+   * @param userId User identifier
+   * @return true if the user was registered
+   */
+  public boolean isRegistered(String userId) {
+    return authContexts.containsKey(userId);
   }
 
   /**
@@ -158,16 +341,11 @@ public class AuthenticationProxyImpl implements AuthenticationProxy {
    * find bugs.
    */
   private UserAuthenticationContext contextForSessionToken(String sessionToken) {
-    for (UserAuthenticationContext context : this.authContexts.values()) {
-      if (context.getToken().getSessionToken().equals(sessionToken)) {
-        return context;
-      }
-    }
+    UserAuthenticationContext context =
+        (sessionToken != null) ? this.sessionTokenIndex.get(sessionToken) : null;
 
-    for (UserAuthenticationContext context : this.authContexts.values()) {
-      if (context.getPreviousToken().getSessionToken().equals(sessionToken)) {
-        return context;
-      }
+    if (context != null) {
+      return context;
     }
 
     throw new UnregisteredSessionTokenException(logMessage.getMessage(UNREGISTERED_SESSION_TOKEN_MESSAGE),
@@ -217,35 +395,118 @@ public class AuthenticationProxyImpl implements AuthenticationProxy {
    * @throws RemoteApiException the original exception
    */
   @Override
-  public synchronized void reAuthOrThrow(String userId, RemoteApiException remoteApiException)
+  public void reAuthOrThrow(String userId, RemoteApiException remoteApiException)
       throws RemoteApiException {
     if (validateResponseCode(Status.UNAUTHORIZED, remoteApiException.getCode())) {
       if (shouldInvalidateSession(userId)) {
-        invalidate(userId);
-        authenticate(userId);
+        reAuthenticate(userId, false);
       }
     } else {
       throw remoteApiException;
     }
   }
 
-  private void checkAndThrowException(RemoteApiException e, String userId) throws AuthenticationException {
+  /**
+   * Authenticates the user again.
+   * @param userId User identifier
+   * @param refresh true to replace the current session without invalidating it first
+   */
+  private void reAuthenticate(final String userId, final boolean refresh) {
+    runOnce(userId, new Runnable() {
+      @Override
+      public void run() {
+        if (refresh) {
+          LOG.info("Refresh session to {}", userId);
+          contextForUser(userId).setToken(requestToken(userId));
+        } else if (shouldInvalidateSession(userId)) {
+          // Another thread may have renewed the session in the meantime
+          invalidate(userId);
+          authenticateIfNeeded(userId);
+        }
+      }
+    });
+  }
+
+  /**
+   * Runs the authentication task. Concurrent callers for the same key wait for the task already
+   * in progress instead of starting a new one. Different keys don't block each other.
+   * @param key Authentication key
+   * @param task Authentication task
+   */
+  private void runOnce(String key, Runnable task) {
+    CompletableFuture<Void> authentication = new CompletableFuture<>();
+    CompletableFuture<Void> pending = pendingAuthentications.putIfAbsent(key, authentication);
+
+    if (pending != null) {
+      coalescedReAuth.mark();
+      waitForAuthentication(pending);
+      return;
+    }
+
+    Timer.Context context = reAuthTimer.time();
+
+    try {
+      task.run();
+      authentication.complete(null);
+    } catch (RuntimeException | Error e) {
+      authentication.completeExceptionally(e);
+      throw e;
+    } finally {
+      pendingAuthentications.remove(key, authentication);
+      context.stop();
+    }
+  }
+
+  /**
+   * Waits for the authentication started by another thread and rethrows its failure.
+   * @param authentication Authentication in progress
+   */
+  private void waitForAuthentication(CompletableFuture<Void> authentication) {
+    try {
+      authentication.join();
+    } catch (CompletionException e) {
+      throw propagate(e);
+    }
+  }
+
+  /**
+   * Retrieves the exception to be rethrown for the failure of an asynchronous authentication.
+   * @param e Asynchronous failure
+   * @return Original runtime exception
+   */
+  private RuntimeException propagate(CompletionException e) {
+    Throwable cause = e.getCause();
+
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+
+    return e;
+  }
+
+  private AuthenticationException toAuthenticationException(RemoteApiException e, String userId) {
     int code = e.getCode();
 
     if (sessionUnauthorized(code)) {
-      throw new UnauthorizedUserException(logMessage.getMessage(UNAUTHORIZED_SESSION_TOKEN_MESSAGE, userId), e,
+      return new UnauthorizedUserException(logMessage.getMessage(UNAUTHORIZED_SESSION_TOKEN_MESSAGE, userId), e,
           logMessage.getMessage(UNAUTHORIZED_SESSION_TOKEN_SOLUTION, userId));
     } else if (sessionNoLongerEntitled(code)) {
-      throw new ForbiddenAuthException(logMessage.getMessage(FORBIDDEN_SESSION_TOKEN_MESSAGE, userId), e,
+      return new ForbiddenAuthException(logMessage.getMessage(FORBIDDEN_SESSION_TOKEN_MESSAGE, userId), e,
           logMessage.getMessage(FORBIDDEN_SESSION_TOKEN_SOLUTION, userId));
     } else {
-      throw new UnexpectedAuthException(logMessage.getMessage(UNEXPECTED_SESSION_TOKEN_MESSAGE, userId), e,
+      return new UnexpectedAuthException(logMessage.getMessage(UNEXPECTED_SESSION_TOKEN_MESSAGE, userId), e,
           logMessage.getMessage(UNEXPECTED_SESSION_TOKEN_SOLUTION));
     }
   }
 
   @Override
-  public synchronized AuthenticationToken reAuthSessionOrThrow(String sessionToken, RemoteApiException remoteApiException)
+  public AuthenticationToken reAuthSessionOrThrow(String sessionToken, RemoteApiException remoteApiException)
       throws RemoteApiException {
     UserAuthenticationContext authContext = contextForSessionToken(sessionToken);
     reAuthOrThrow(authContext.getUserId(), remoteApiException);
@@ -257,8 +518,16 @@ public class AuthenticationProxyImpl implements AuthenticationProxy {
    * @return
    */
   private boolean shouldInvalidateSession(String userId) {
-    Long timeSinceLastAuthMillis =
-        System.currentTimeMillis() - contextForUser(userId).getToken().getAuthenticationTime();
+    return isExpired(contextForUser(userId).getToken().getAuthenticationTime());
+  }
+
+  /**
+   * Evaluate if a token obtained at the given time can be renewed
+   * @param authenticationTime Authentication time
+   * @return
+   */
+  private boolean isExpired(long authenticationTime) {
+    Long timeSinceLastAuthMillis = System.currentTimeMillis() - authenticationTime;
     return timeSinceLastAuthMillis > MAX_SESSION_TIME_MILLIS;
   }
 
@@ -294,8 +563,15 @@ public class AuthenticationProxyImpl implements AuthenticationProxy {
    */
   @Override
   public void registerUser(String userId, KeyStore keyStore, String keyStorePass) {
-    authContexts.put(userId, new UserAuthenticationContext(userId, keyStore, keyStorePass,
-        properties.getHttpClientConfig(), properties));
+    UserAuthenticationContext previousContext = authContexts.put(userId,
+        new UserAuthenticationContext(userId, keyStore, keyStorePass,
+            properties.getHttpClientConfig(), properties, sessionTokenIndex, metricsRegistry));
+
+    if (previousContext != null) {
+      previousContext.removeFromIndex();
+    }
+
+    publisher.publishEvent(new UserRegisteredEventData(userId));
   }
 
   /**
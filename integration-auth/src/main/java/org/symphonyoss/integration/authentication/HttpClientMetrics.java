@@ -0,0 +1,156 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.authentication;
+
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.symphonyoss.integration.authentication.api.enums.ServiceName;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the HTTP client built for a service on behalf of an integration user or application.
+ *
+ * Metric names follow the pattern "[base].http.client.[owner].[service].[metric]", where owner is
+ * "user.[userId]" or "app.[applicationId]".
+ *
+ * Created by rsanchez on 01/11/17.
+ */
+public class HttpClientMetrics {
+
+  private static final String HTTP_CLIENT = "http.client";
+
+  private static final String LEASED = "leased";
+
+  private static final String PENDING = "pending";
+
+  private static final String AVAILABLE = "available";
+
+  private static final String MAX = "max";
+
+  private static final String LEASE_TIME = "lease.time";
+
+  private static final String HANDSHAKES = "tls.handshakes";
+
+  private static final String RESUMED_SESSIONS = "tls.resumed.sessions";
+
+  private static final String RESUMPTION_RATIO = "tls.resumption.ratio";
+
+  private final MetricRegistry metricsRegistry;
+
+  private final String baseName;
+
+  private final Timer leaseTimer;
+
+  private final Timer handshakeTimer;
+
+  private final Meter resumedSessions;
+
+  /**
+   * Registers the metrics for the service.
+   * @param metricsRegistry Metrics registry
+   * @param owner Owner of the HTTP client
+   * @param serviceName Service name
+   */
+  public HttpClientMetrics(MetricRegistry metricsRegistry, String owner,
+      ServiceName serviceName) {
+    this.metricsRegistry = metricsRegistry;
+    this.baseName = MetricRegistry.name(BASE_METRIC_NAME, HTTP_CLIENT, owner,
+        serviceName.name().toLowerCase());
+
+    this.leaseTimer = metricsRegistry.timer(MetricRegistry.name(baseName, LEASE_TIME));
+    this.handshakeTimer = metricsRegistry.timer(MetricRegistry.name(baseName, HANDSHAKES));
+    this.resumedSessions = metricsRegistry.meter(MetricRegistry.name(baseName, RESUMED_SESSIONS));
+
+    register(RESUMPTION_RATIO, new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(resumedSessions.getCount(), handshakeTimer.getCount());
+      }
+    });
+  }
+
+  /**
+   * Registers the gauges to monitor the connection pool. Replaces the gauges of a previous pool
+   * built for the same owner and service.
+   * @param connectionManager Connection pool
+   */
+  public void monitor(final PoolingHttpClientConnectionManager connectionManager) {
+    register(LEASED, new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return connectionManager.getTotalStats().getLeased();
+      }
+    });
+
+    register(PENDING, new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return connectionManager.getTotalStats().getPending();
+      }
+    });
+
+    register(AVAILABLE, new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return connectionManager.getTotalStats().getAvailable();
+      }
+    });
+
+    register(MAX, new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return connectionManager.getTotalStats().getMax();
+      }
+    });
+  }
+
+  private void register(String name, Metric metric) {
+    String metricName = MetricRegistry.name(baseName, name);
+
+    metricsRegistry.remove(metricName);
+    metricsRegistry.register(metricName, metric);
+  }
+
+  /**
+   * Time spent waiting for a connection from the pool
+   */
+  public Timer getLeaseTimer() {
+    return leaseTimer;
+  }
+
+  /**
+   * Records a TLS handshake.
+   * @param durationNanos Handshake duration in nanoseconds
+   * @param resumed true if an existing TLS session was resumed
+   */
+  public void handshakeCompleted(long durationNanos, boolean resumed) {
+    handshakeTimer.update(durationNanos, TimeUnit.NANOSECONDS);
+
+    if (resumed) {
+      resumedSessions.mark();
+    }
+  }
+
+}
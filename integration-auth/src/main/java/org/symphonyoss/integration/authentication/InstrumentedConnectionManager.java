@@ -0,0 +1,70 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.authentication;
+
+import com.codahale.metrics.Timer;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool that measures the time spent waiting for a connection.
+ *
+ * Created by rsanchez on 01/11/17.
+ */
+class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+
+  private final Timer leaseTimer;
+
+  InstrumentedConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry,
+      Timer leaseTimer) {
+    super(socketFactoryRegistry);
+    this.leaseTimer = leaseTimer;
+  }
+
+  @Override
+  public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+    final ConnectionRequest request = super.requestConnection(route, state);
+
+    return new ConnectionRequest() {
+      @Override
+      public HttpClientConnection get(long timeout, TimeUnit tunit)
+          throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+        Timer.Context context = leaseTimer.time();
+
+        try {
+          return request.get(timeout, tunit);
+        } finally {
+          context.stop();
+        }
+      }
+
+      @Override
+      public boolean cancel() {
+        return request.cancel();
+      }
+    };
+  }
+
+}
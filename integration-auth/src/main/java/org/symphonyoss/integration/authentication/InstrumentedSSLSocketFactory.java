@@ -0,0 +1,68 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.authentication;
+
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.Socket;
+
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * SSL connection socket factory that reports the duration of the TLS handshakes and whether the
+ * TLS session was resumed.
+ *
+ * A session is considered resumed when it was created before the handshake has started.
+ *
+ * Created by rsanchez on 01/11/17.
+ */
+class InstrumentedSSLSocketFactory extends SSLConnectionSocketFactory {
+
+  private final HttpClientMetrics metrics;
+
+  InstrumentedSSLSocketFactory(SSLSocketFactory socketFactory, String[] supportedProtocols,
+      String[] supportedCipherSuites, HttpClientMetrics metrics) {
+    super(socketFactory, supportedProtocols, supportedCipherSuites, getDefaultHostnameVerifier());
+    this.metrics = metrics;
+  }
+
+  /**
+   * Creates the TLS socket over the connected socket and reports the handshake metrics in the
+   * caller thread, since the handshake is performed before this method returns.
+   */
+  @Override
+  public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+      throws IOException {
+    long startNanos = System.nanoTime();
+    long startMillis = System.currentTimeMillis();
+
+    Socket layeredSocket = super.createLayeredSocket(socket, target, port, context);
+
+    if (layeredSocket instanceof SSLSocket) {
+      SSLSession session = ((SSLSocket) layeredSocket).getSession();
+      boolean resumed = session.getCreationTime() < startMillis;
+      metrics.handshakeCompleted(System.nanoTime() - startNanos, resumed);
+    }
+
+    return layeredSocket;
+  }
+
+}
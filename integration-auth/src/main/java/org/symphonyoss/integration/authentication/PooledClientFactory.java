@@ -0,0 +1,362 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.authentication;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.SslConfigurator;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.symphonyoss.integration.authentication.api.enums.ServiceName;
+import org.symphonyoss.integration.model.yaml.HttpClientConfig;
+import org.symphonyoss.integration.model.yaml.ProxyConnectionInfo;
+
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+/**
+ * Builds the HTTP clients used by the authentication contexts.
+ *
+ * SSL contexts are shared by all the clients built for the same keystore, so the TLS sessions
+ * cached by the SSL context can be resumed by any of these clients. The connection pools are
+ * monitored by a single background thread that closes the expired and idle connections.
+ *
+ * The connection limits can be overridden for each service through the system properties
+ * "http.client.[service].max.connections" and "http.client.[service].max.connections.per.route",
+ * where [service] is the lower case service name, i.e. "http.client.agent.max.connections".
+ *
+ * Created by rsanchez on 31/10/17.
+ */
+public final class PooledClientFactory {
+
+  /**
+   * Time, in milliseconds, an idle connection is kept on the pool
+   */
+  public static final String IDLE_TIMEOUT_KEY = "http.client.idle.timeout";
+
+  public static final String DEFAULT_IDLE_TIMEOUT = "30000";
+
+  /**
+   * Interval, in milliseconds, between the executions of the idle connection eviction
+   */
+  public static final String EVICTION_PERIOD_KEY = "http.client.eviction.period";
+
+  public static final String DEFAULT_EVICTION_PERIOD = "5000";
+
+  /**
+   * Maximum number of TLS sessions cached by each SSL context
+   */
+  public static final String TLS_SESSION_CACHE_SIZE_KEY = "http.client.tls.session.cache.size";
+
+  public static final String DEFAULT_TLS_SESSION_CACHE_SIZE = "1000";
+
+  /**
+   * Time, in seconds, a TLS session can be resumed
+   */
+  public static final String TLS_SESSION_TIMEOUT_KEY = "http.client.tls.session.timeout";
+
+  public static final String DEFAULT_TLS_SESSION_TIMEOUT = "3600";
+
+  private static final String MAX_CONNECTIONS_KEY = "http.client.%s.max.connections";
+
+  private static final String MAX_CONNECTIONS_PER_ROUTE_KEY =
+      "http.client.%s.max.connections.per.route";
+
+  /**
+   * SSL socket factories indexed by keystore. Keystores are compared by identity and the entries
+   * are discarded when the keystore is no longer used.
+   */
+  private static final Cache<KeyStore, KeyStoreSocketFactory> SSL_SOCKET_FACTORIES =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  /**
+   * Connection pools monitored by the eviction thread. The pools are discarded when they are no
+   * longer used.
+   */
+  private static final Set<PoolingHttpClientConnectionManager> CONNECTION_MANAGERS =
+      Collections.newSetFromMap(new WeakHashMap<PoolingHttpClientConnectionManager, Boolean>());
+
+  private static SSLSocketFactory systemSocketFactory;
+
+  private static ScheduledExecutorService evictor;
+
+  private PooledClientFactory() {
+  }
+
+  /**
+   * Retrieves the SSL socket factory for the keystore received. The SSL context is created only
+   * once for each keystore.
+   * @param keyStore Keystore object
+   * @param keyStorePassword Keystore password
+   * @return SSL socket factory
+   */
+  public static SSLSocketFactory getSslSocketFactory(KeyStore keyStore, String keyStorePassword) {
+    if (keyStore == null || keyStorePassword == null) {
+      return getSystemSocketFactory();
+    }
+
+    synchronized (SSL_SOCKET_FACTORIES) {
+      KeyStoreSocketFactory cached = SSL_SOCKET_FACTORIES.getIfPresent(keyStore);
+
+      if ((cached == null) || (!keyStorePassword.equals(cached.keyStorePassword))) {
+        SslConfigurator sslConfigurator = SslConfigurator.newInstance()
+            .keyStore(keyStore)
+            .keyStorePassword(keyStorePassword);
+
+        SSLContext sslContext = sslConfigurator.createSSLContext();
+        configureSessionCache(sslContext);
+
+        cached = new KeyStoreSocketFactory(keyStorePassword, sslContext.getSocketFactory());
+        SSL_SOCKET_FACTORIES.put(keyStore, cached);
+      }
+
+      return cached.socketFactory;
+    }
+  }
+
+  private static synchronized SSLSocketFactory getSystemSocketFactory() {
+    if (systemSocketFactory == null) {
+      systemSocketFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+    }
+
+    return systemSocketFactory;
+  }
+
+  /**
+   * Enables the TLS session cache on the client side of the SSL context.
+   * @param sslContext SSL context
+   */
+  private static void configureSessionCache(SSLContext sslContext) {
+    SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+
+    if (sessionContext != null) {
+      sessionContext.setSessionCacheSize(Integer.valueOf(
+          System.getProperty(TLS_SESSION_CACHE_SIZE_KEY, DEFAULT_TLS_SESSION_CACHE_SIZE)));
+      sessionContext.setSessionTimeout(Integer.valueOf(
+          System.getProperty(TLS_SESSION_TIMEOUT_KEY, DEFAULT_TLS_SESSION_TIMEOUT)));
+    }
+  }
+
+  /**
+   * Builds HTTP client for the service using the SSL socket factory received.
+   * @param serviceName Service name
+   * @param sslSocketFactory SSL socket factory
+   * @param httpClientConfig API client settings
+   * @param proxyConnectionInfo Proxy settings
+   * @param metrics HTTP client metrics or null if the client shouldn't be monitored
+   * @return HTTP client
+   */
+  public static Client buildClient(ServiceName serviceName, SSLSocketFactory sslSocketFactory,
+      HttpClientConfig httpClientConfig, ProxyConnectionInfo proxyConnectionInfo,
+      HttpClientMetrics metrics) {
+    final ClientConfig clientConfig = new ClientConfig();
+    clientConfig.register(MultiPartFeature.class);
+
+    // Connect and read timeouts in milliseconds
+    clientConfig.property(ClientProperties.READ_TIMEOUT, httpClientConfig.getReadTimeout());
+    clientConfig.property(ClientProperties.CONNECT_TIMEOUT, httpClientConfig.getConnectTimeout());
+
+    Registry<ConnectionSocketFactory> socketFactoryRegistry =
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", buildConnectionSocketFactory(sslSocketFactory, metrics))
+            .build();
+
+    // Connection pool setup with custom socket factory and max connections
+    PoolingHttpClientConnectionManager connectionManager;
+
+    if (metrics == null) {
+      connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+    } else {
+      connectionManager =
+          new InstrumentedConnectionManager(socketFactoryRegistry, metrics.getLeaseTimer());
+      metrics.monitor(connectionManager);
+    }
+    connectionManager.setMaxTotal(
+        getLimit(MAX_CONNECTIONS_KEY, serviceName, httpClientConfig.getMaxConnections()));
+    connectionManager.setDefaultMaxPerRoute(getLimit(MAX_CONNECTIONS_PER_ROUTE_KEY, serviceName,
+        httpClientConfig.getMaxConnectionsPerRoute()));
+
+    registerConnectionManager(connectionManager);
+
+    // Sets the connector provider and connection manager (as shared to avoid the client runtime
+    // to shut it down)
+    clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+    clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, true);
+    ApacheConnectorProvider connectorProvider = new ApacheConnectorProvider();
+    clientConfig.connectorProvider(connectorProvider);
+
+    // Adds proxy info if there is any
+    if (proxyConnectionInfo != null) {
+
+      String uri = proxyConnectionInfo.getURI();
+      String user = proxyConnectionInfo.getUser();
+      String password = proxyConnectionInfo.getPassword();
+
+      if (uri != null) {
+        clientConfig.property(ClientProperties.PROXY_URI, uri);
+      }
+
+      if (user != null) {
+        clientConfig.property(ClientProperties.PROXY_USERNAME, user);
+      }
+
+      if (password != null) {
+        clientConfig.property(ClientProperties.PROXY_PASSWORD, password);
+      }
+    }
+
+    // Build the client with the above configurations
+    final ClientBuilder clientBuilder = ClientBuilder.newBuilder().withConfig(clientConfig);
+
+    return clientBuilder.build();
+  }
+
+  /**
+   * Builds the SSL connection socket factory. The system socket factory honors the supported
+   * protocols and cipher suites defined by the system properties.
+   * @param sslSocketFactory SSL socket factory
+   * @param metrics HTTP client metrics or null if the TLS handshakes shouldn't be monitored
+   * @return SSL connection socket factory
+   */
+  private static SSLConnectionSocketFactory buildConnectionSocketFactory(
+      SSLSocketFactory sslSocketFactory, HttpClientMetrics metrics) {
+    String[] protocols = null;
+    String[] cipherSuites = null;
+
+    if (sslSocketFactory == getSystemSocketFactory()) {
+      protocols = split(System.getProperty("https.protocols"));
+      cipherSuites = split(System.getProperty("https.cipherSuites"));
+    }
+
+    if (metrics == null) {
+      return new SSLConnectionSocketFactory(sslSocketFactory, protocols, cipherSuites,
+          SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+    }
+
+    return new InstrumentedSSLSocketFactory(sslSocketFactory, protocols, cipherSuites, metrics);
+  }
+
+  private static String[] split(String value) {
+    if (StringUtils.isBlank(value)) {
+      return null;
+    }
+
+    return value.split(" *, *");
+  }
+
+  /**
+   * Reads the connection limit configured for the service.
+   * @param key System property pattern
+   * @param serviceName Service name
+   * @param defaultValue Value used when there is no limit configured for the service
+   * @return Connection limit
+   */
+  private static int getLimit(String key, ServiceName serviceName, Integer defaultValue) {
+    String property = String.format(key, serviceName.name().toLowerCase());
+    String value = System.getProperty(property);
+
+    if (value == null) {
+      return defaultValue;
+    }
+
+    return Integer.valueOf(value);
+  }
+
+  /**
+   * Registers the connection pool on the eviction thread. The thread is started on the first
+   * registration.
+   * @param connectionManager Connection pool
+   */
+  private static synchronized void registerConnectionManager(
+      PoolingHttpClientConnectionManager connectionManager) {
+    CONNECTION_MANAGERS.add(connectionManager);
+
+    if (evictor == null) {
+      long period = Long.valueOf(System.getProperty(EVICTION_PERIOD_KEY, DEFAULT_EVICTION_PERIOD));
+      final long idleTimeout =
+          Long.valueOf(System.getProperty(IDLE_TIMEOUT_KEY, DEFAULT_IDLE_TIMEOUT));
+
+      evictor = Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setNameFormat("IdleConnectionEvictor").setDaemon(true).build());
+      evictor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          evictConnections(idleTimeout);
+        }
+      }, period, period, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Closes the expired and idle connections of all the connection pools.
+   * @param idleTimeout Maximum idle time in milliseconds
+   */
+  private static void evictConnections(long idleTimeout) {
+    List<PoolingHttpClientConnectionManager> connectionManagers;
+
+    synchronized (PooledClientFactory.class) {
+      connectionManagers = new ArrayList<>(CONNECTION_MANAGERS);
+    }
+
+    for (PoolingHttpClientConnectionManager connectionManager : connectionManagers) {
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * SSL socket factory and the password used to create it.
+   */
+  private static final class KeyStoreSocketFactory {
+
+    private final String keyStorePassword;
+
+    private final SSLSocketFactory socketFactory;
+
+    private KeyStoreSocketFactory(String keyStorePassword, SSLSocketFactory socketFactory) {
+      this.keyStorePassword = keyStorePassword;
+      this.socketFactory = socketFactory;
+    }
+
+  }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.authentication;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.authentication.event.UserRegisteredEventData;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Renews the sessions of the registered integration users before the expected lifetime ends, so
+ * the requests don't have to wait for the authentication after receiving an unauthorized response.
+ *
+ * A random jitter is subtracted from the refresh time of each session to avoid renewing all the
+ * sessions at once.
+ *
+ * Created by rsanchez on 30/10/17.
+ */
+@Component
+public class SessionRefresher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SessionRefresher.class);
+
+  /**
+   * Expected session lifetime, in milliseconds. Zero or negative disables the refresh.
+   */
+  public static final String SESSION_REFRESH_PERIOD_KEY = "session.refresh.period";
+
+  public static final String DEFAULT_SESSION_REFRESH_PERIOD = "1800000";
+
+  /**
+   * Maximum time, in milliseconds, the refresh can be anticipated.
+   */
+  public static final String SESSION_REFRESH_JITTER_KEY = "session.refresh.jitter";
+
+  public static final String DEFAULT_SESSION_REFRESH_JITTER = "60000";
+
+  public static final String SESSION_REFRESH_THREADS_KEY = "session.refresh.threads";
+
+  public static final String DEFAULT_SESSION_REFRESH_THREADS = "4";
+
+  /**
+   * Delay, in milliseconds, to retry a failed refresh
+   */
+  private static final long RETRY_DELAY = TimeUnit.SECONDS.toMillis(30);
+
+  @Autowired
+  private AuthenticationProxyImpl authenticationProxy;
+
+  /**
+   * Users with a scheduled refresh
+   */
+  private final Set<String> scheduledUsers = ConcurrentHashMap.newKeySet();
+
+  private ScheduledExecutorService scheduler;
+
+  private long period;
+
+  private long jitter;
+
+  @PostConstruct
+  public void init() {
+    this.period = Long.valueOf(
+        System.getProperty(SESSION_REFRESH_PERIOD_KEY, DEFAULT_SESSION_REFRESH_PERIOD));
+    this.jitter = Math.max(0, Long.valueOf(
+        System.getProperty(SESSION_REFRESH_JITTER_KEY, DEFAULT_SESSION_REFRESH_JITTER)));
+
+    if (period > 0) {
+      int threads = Integer.valueOf(
+          System.getProperty(SESSION_REFRESH_THREADS_KEY, DEFAULT_SESSION_REFRESH_THREADS));
+
+      this.scheduler = Executors.newScheduledThreadPool(threads,
+          new ThreadFactoryBuilder().setNameFormat("SessionRefresher-%d").setDaemon(true).build());
+    }
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Schedules the session refresh of the registered user. The user is authenticated by the
+   * bootstrap process, so the first refresh happens only when the session is about to expire.
+   * @param event User registered event
+   */
+  @EventListener
+  public void handleUserRegisteredEvent(UserRegisteredEventData event) {
+    String userId = event.getUserId();
+
+    if (scheduledUsers.add(userId)) {
+      schedule(userId, getNextRefreshDelay(System.currentTimeMillis()));
+    }
+  }
+
+  private void schedule(final String userId, long delay) {
+    if (scheduler == null) {
+      return;
+    }
+
+    try {
+      scheduler.schedule(new Runnable() {
+        @Override
+        public void run() {
+          refresh(userId);
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      LOG.debug("Session refresh stopped for {}", userId);
+    }
+  }
+
+  /**
+   * Authenticates the user if it's not authenticated yet or renews the session if it's close to
+   * the end of the expected lifetime, then schedules the next refresh.
+   * @param userId User identifier
+   */
+  private void refresh(String userId) {
+    if (!authenticationProxy.isRegistered(userId)) {
+      scheduledUsers.remove(userId);
+      return;
+    }
+
+    try {
+      long refreshTime = authenticationProxy.getToken(userId).getAuthenticationTime() + period;
+
+      if (!authenticationProxy.isAuthenticated(userId)) {
+        authenticationProxy.authenticate(userId);
+      } else if (System.currentTimeMillis() + jitter >= refreshTime) {
+        authenticationProxy.refreshSession(userId);
+      }
+
+      long authenticationTime = authenticationProxy.getToken(userId).getAuthenticationTime();
+      schedule(userId, getNextRefreshDelay(authenticationTime));
+    } catch (RuntimeException e) {
+      LOG.warn("Fail to refresh session to {}. Retrying in {} ms", userId, RETRY_DELAY, e);
+      schedule(userId, RETRY_DELAY);
+    }
+  }
+
+  /**
+   * Computes the delay to the next refresh based on the authentication time of the current token.
+   * @param authenticationTime Authentication time of the current token
+   * @return Delay in milliseconds
+   */
+  private long getNextRefreshDelay(long authenticationTime) {
+    long refreshTime = authenticationTime + period;
+    long anticipation = (jitter > 0) ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0;
+
+    return Math.max(0, refreshTime - anticipation - System.currentTimeMillis());
+  }
+
+}
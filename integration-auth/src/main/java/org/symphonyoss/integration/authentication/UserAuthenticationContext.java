@@ -16,10 +16,13 @@
 
 package org.symphonyoss.integration.authentication;
 
+import com.codahale.metrics.MetricRegistry;
 import org.symphonyoss.integration.model.yaml.HttpClientConfig;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 
 import java.security.KeyStore;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Stores authentication context for an integration user (User ID, HTTP client and token).
@@ -41,6 +44,11 @@ public class UserAuthenticationContext extends AuthenticationContext {
    */
   private AuthenticationToken previousToken = AuthenticationToken.VOID_AUTH_TOKEN;
 
+  /**
+   * Session tokens (current and previous) of all the authentication contexts sharing this index.
+   */
+  private final ConcurrentMap<String, UserAuthenticationContext> sessionTokenIndex;
+
   /**
    * Initializes user identifier and HTTP client with the SSL Context according to the keystore
    * received.
@@ -52,9 +60,48 @@ public class UserAuthenticationContext extends AuthenticationContext {
    */
   public UserAuthenticationContext(String userId, KeyStore keyStore, String keyStorePassword,
       HttpClientConfig httpClientConfig, IntegrationProperties properties) {
-    super(keyStore, keyStorePassword, httpClientConfig, properties);
+    this(userId, keyStore, keyStorePassword, httpClientConfig, properties,
+        new ConcurrentHashMap<String, UserAuthenticationContext>());
+  }
+
+  /**
+   * Initializes user identifier and HTTP client with the SSL Context according to the keystore
+   * received. The session tokens of this context are kept on the index received.
+   *
+   * @param userId User identifier
+   * @param keyStore Keystore object
+   * @param keyStorePassword Keystore password
+   * @param httpClientConfig API client settings
+   * @param sessionTokenIndex Authentication contexts indexed by session token
+   */
+  public UserAuthenticationContext(String userId, KeyStore keyStore, String keyStorePassword,
+      HttpClientConfig httpClientConfig, IntegrationProperties properties,
+      ConcurrentMap<String, UserAuthenticationContext> sessionTokenIndex) {
+    this(userId, keyStore, keyStorePassword, httpClientConfig, properties, sessionTokenIndex,
+        null);
+  }
+
+  /**
+   * Initializes user identifier and HTTP client with the SSL Context according to the keystore
+   * received. The session tokens of this context are kept on the index received and the HTTP
+   * clients are monitored through the metric registry.
+   *
+   * @param userId User identifier
+   * @param keyStore Keystore object
+   * @param keyStorePassword Keystore password
+   * @param httpClientConfig API client settings
+   * @param sessionTokenIndex Authentication contexts indexed by session token
+   * @param metricRegistry Metric registry
+   */
+  public UserAuthenticationContext(String userId, KeyStore keyStore, String keyStorePassword,
+      HttpClientConfig httpClientConfig, IntegrationProperties properties,
+      ConcurrentMap<String, UserAuthenticationContext> sessionTokenIndex,
+      MetricRegistry metricRegistry) {
+    super(keyStore, keyStorePassword, httpClientConfig, properties,
+        MetricRegistry.name("user", userId), metricRegistry);
 
     this.userId = userId;
+    this.sessionTokenIndex = sessionTokenIndex;
   }
 
   public String getUserId() {
@@ -76,18 +123,45 @@ public class UserAuthenticationContext extends AuthenticationContext {
       // and therefore the token should not not be thrown away when invalidated.
       isTokenValid = false;
     } else {
+      AuthenticationToken discardedToken = previousToken;
+
       previousToken = token;
       token = newToken;
       isTokenValid = true;
+
+      // New token must be indexed before removing the discarded one, so lookups for the current
+      // and previous session tokens never miss this context.
+      addToIndex(newToken.getSessionToken());
+
+      String discardedSessionToken = discardedToken.getSessionToken();
+
+      if ((discardedSessionToken != null)
+          && (!discardedSessionToken.equals(token.getSessionToken()))
+          && (!discardedSessionToken.equals(previousToken.getSessionToken()))) {
+        removeFromIndex(discardedSessionToken);
+      }
     }
   }
 
-  public synchronized void invalidateAuthentication() {
-    isTokenValid = false;
+  /**
+   * Removes the session tokens of this context from the index. Should be invoked when this
+   * context is no longer used.
+   */
+  public synchronized void removeFromIndex() {
+    removeFromIndex(token.getSessionToken());
+    removeFromIndex(previousToken.getSessionToken());
+  }
+
+  private void addToIndex(String sessionToken) {
+    if (sessionToken != null) {
+      sessionTokenIndex.put(sessionToken, this);
+    }
   }
 
-  public synchronized boolean isAuthenticated() {
-    return isTokenValid;
+  private void removeFromIndex(String sessionToken) {
+    if (sessionToken != null) {
+      sessionTokenIndex.remove(sessionToken, this);
+    }
   }
 
 }
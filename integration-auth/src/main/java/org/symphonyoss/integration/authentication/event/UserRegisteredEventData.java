@@ -13,17 +13,24 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.symphonyoss.integration.agent.api.client.properties;
 
-import org.symphonyoss.integration.agent.api.client.V4MessageApiClient;
+package org.symphonyoss.integration.authentication.event;
 
- /** Exception message keys used by the component {@link V4MessageApiClient}
- * Created by rsanchez on 6/27/17.
+/**
+ * Event raised when an integration user is registered on the authentication proxy.
+ *
+ * Created by rsanchez on 30/10/17.
  */
+public class UserRegisteredEventData {
+
+  private final String userId;
 
-public class V4MessageApiClientProperties {
+  public UserRegisteredEventData(String userId) {
+    this.userId = userId;
+  }
 
-  public static String POST_FAILURE = "integration.message.failed.post";
+  public String getUserId() {
+    return userId;
+  }
 
-  public static String POST_FAILURE_SOLUTION = "integration.message.failed.post.solution";
 }
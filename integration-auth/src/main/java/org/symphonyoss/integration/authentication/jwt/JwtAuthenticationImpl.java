@@ -1,27 +1,36 @@
 package org.symphonyoss.integration.authentication.jwt;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.Integration;
-import org.symphonyoss.integration.api.client.json.JsonUtils;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
 import org.symphonyoss.integration.authentication.api.AppAuthenticationProxy;
 import org.symphonyoss.integration.authentication.api.jwt.JwtAuthentication;
 import org.symphonyoss.integration.authentication.api.model.AppToken;
 import org.symphonyoss.integration.authentication.api.model.JwtPayload;
 import org.symphonyoss.integration.authentication.api.model.PodCertificate;
-import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.exception.authentication.ExpirationException;
 import org.symphonyoss.integration.exception.authentication.MalformedParameterException;
 import org.symphonyoss.integration.exception.authentication.UnauthorizedUserException;
@@ -37,22 +46,107 @@ import org.symphonyoss.integration.service.IntegrationBridge;
 import org.symphonyoss.integration.utils.RsaKeyUtils;
 import org.symphonyoss.integration.utils.TokenUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.security.PublicKey;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * Service class responsible for handling JWT authentication stuff.
  *
+ * Verified JWTs are cached by their digest until they expire, so the signature of a JWT is only
+ * verified on its first use. The cache entries are also discarded after the pod certificate cache
+ * duration to avoid trusting a JWT signed with a revoked pod certificate for too long.
+ *
+ * Token pairs generated by the app authentication are kept on a local cache, so the validation
+ * only reaches the pod when the token pair was generated by another instance or it was already
+ * evicted. When write-behind is enabled, the token pairs are saved on the pod in background. The
+ * token pairs that can't be queued are saved right away, and the failed saves are retried on the
+ * next batches up to a limit.
+ *
+ * Pod public certificates and pod info are refreshed in background when the cache duration is
+ * reached. The previous values are kept while the refresh is in progress or if it fails.
+ *
  * Created by rsanchez on 28/07/17.
  */
 @Component
 public class JwtAuthenticationImpl implements JwtAuthentication {
 
+  private static final Logger LOG = LoggerFactory.getLogger(JwtAuthenticationImpl.class);
+
+  /**
+   * Maximum number of verified JWTs kept on the cache
+   */
+  public static final String JWT_CACHE_SIZE_KEY = "jwt.cache.size";
+
+  public static final String DEFAULT_JWT_CACHE_SIZE = "10000";
+
+  /**
+   * Maximum number of token pairs kept on the cache
+   */
+  public static final String APP_TOKEN_CACHE_SIZE_KEY = "app.token.cache.size";
+
+  public static final String DEFAULT_APP_TOKEN_CACHE_SIZE = "10000";
+
+  /**
+   * Time, in milliseconds, a token pair is kept on the cache
+   */
+  public static final String APP_TOKEN_CACHE_TTL_KEY = "app.token.cache.ttl";
+
+  public static final String DEFAULT_APP_TOKEN_CACHE_TTL = "1800000";
+
+  /**
+   * Enables the write-behind of the token pairs
+   */
+  public static final String APP_TOKEN_WRITE_BEHIND_KEY = "app.token.write.behind";
+
+  /**
+   * Interval, in milliseconds, between the write-behind batches
+   */
+  public static final String APP_TOKEN_WRITE_BEHIND_PERIOD_KEY = "app.token.write.behind.period";
+
+  public static final String DEFAULT_APP_TOKEN_WRITE_BEHIND_PERIOD = "1000";
+
+  /**
+   * Maximum number of token pairs waiting to be saved. When the queue is full the token pair is
+   * saved by the caller thread.
+   */
+  public static final String APP_TOKEN_WRITE_BEHIND_QUEUE_SIZE_KEY =
+      "app.token.write.behind.queue.size";
+
+  public static final String DEFAULT_APP_TOKEN_WRITE_BEHIND_QUEUE_SIZE = "1000";
+
+  /**
+   * Number of times a token pair is saved again after a failure before being discarded
+   */
+  public static final String APP_TOKEN_WRITE_BEHIND_RETRIES_KEY = "app.token.write.behind.retries";
+
+  public static final String DEFAULT_APP_TOKEN_WRITE_BEHIND_RETRIES = "3";
+
+  /**
+   * Binds the parsed claims to the JWT payload without building an intermediate JSON tree
+   */
+  private static final ObjectMapper JWT_PAYLOAD_MAPPER = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
   private static final String AUTHORIZATION_HEADER_PREFIX = "BEARER ";
 
+  private static final String POD_CERTIFICATE_CACHE = "jwt.pod.certificate.cache";
+
+  private static final String POD_INFO_CACHE = "jwt.pod.info.cache";
+
   private static final String JWT_DESERIALIZE = "integration.auth.jwt.deserialize";
   private static final String JWT_DESERIALIZE_SOLUTION = JWT_DESERIALIZE + ".solution";
 
@@ -96,13 +190,32 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
   @Autowired
   private SymphonyHttpApiClient symphonyHttpApiClient;
 
+  @Autowired
+  private MetricRegistry metricsRegistry;
+
+  private final ExecutorService refreshExecutor = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder().setNameFormat("JwtCacheRefresh-%d").setDaemon(true).build());
+
   private IntegrationAuthApiClient apiClient;
 
   private PodInfoClient podInfoClient;
 
   private LoadingCache<String, PublicKey> podPublicSignatureVerifierCache;
 
-  private PodInfo podInfo;
+  private Cache<String, VerifiedJwt> verifiedJwtCache;
+
+  private LoadingCache<String, PodInfo> podInfoCache;
+
+  private Cache<String, AppToken> appTokenCache;
+
+  private final BlockingQueue<PendingAppToken> pendingAppTokens = new LinkedBlockingQueue<>(
+      Integer.valueOf(System.getProperty(APP_TOKEN_WRITE_BEHIND_QUEUE_SIZE_KEY,
+          DEFAULT_APP_TOKEN_WRITE_BEHIND_QUEUE_SIZE)));
+
+  private final int writeBehindRetries = Integer.valueOf(System.getProperty(
+      APP_TOKEN_WRITE_BEHIND_RETRIES_KEY, DEFAULT_APP_TOKEN_WRITE_BEHIND_RETRIES));
+
+  private ScheduledExecutorService writeBehindExecutor;
 
   /**
    * Initialize HTTP client.
@@ -112,25 +225,129 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
     this.apiClient = new IntegrationAuthApiClient(integrationHttpApiClient, logMessage);
     this.podInfoClient = new PodInfoClient(symphonyHttpApiClient, logMessage);
     initializeCache(properties.getPublicPodCertificateCacheDuration());
+    registerCacheMetrics();
+
+    if (Boolean.valueOf(System.getProperty(APP_TOKEN_WRITE_BEHIND_KEY))) {
+      startWriteBehind();
+    }
+  }
+
+  /**
+   * Starts the thread responsible to save the token pairs on the pod.
+   */
+  private void startWriteBehind() {
+    long period = Long.valueOf(System.getProperty(APP_TOKEN_WRITE_BEHIND_PERIOD_KEY,
+        DEFAULT_APP_TOKEN_WRITE_BEHIND_PERIOD));
+
+    writeBehindExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("AppTokenWriteBehind").setDaemon(true).build());
+    writeBehindExecutor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        flushAppTokens();
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    refreshExecutor.shutdown();
+
+    if (writeBehindExecutor != null) {
+      writeBehindExecutor.shutdown();
+
+      for (int i = 0; (i <= writeBehindRetries) && !pendingAppTokens.isEmpty(); i++) {
+        flushAppTokens();
+      }
+
+      if (!pendingAppTokens.isEmpty()) {
+        LOG.error("Fail to save {} app tokens before shutting down", pendingAppTokens.size());
+      }
+    }
   }
 
   /**
-   * Initializes the local cache for public pod certificates.
-   * @param cacheDuration The cache duration before expiring.
+   * Initializes the local caches for public pod certificates, pod info and verified JWTs.
+   * @param cacheDuration The cache duration before refreshing.
    */
   private void initializeCache(int cacheDuration) {
-    podPublicSignatureVerifierCache = CacheBuilder.newBuilder().expireAfterWrite(
-        cacheDuration, TimeUnit.MINUTES).build(new CacheLoader<String, PublicKey>() {
-      /**
-       * Called when the cache is empty or has expired.
-       * @param appId Application ID used as key to cache the pod public certificate.
-       * @return PublicKey created through the public pod PEM certificate.
-       */
+    appTokenCache = CacheBuilder.newBuilder()
+        .maximumSize(Long.valueOf(
+            System.getProperty(APP_TOKEN_CACHE_SIZE_KEY, DEFAULT_APP_TOKEN_CACHE_SIZE)))
+        .expireAfterWrite(Long.valueOf(
+            System.getProperty(APP_TOKEN_CACHE_TTL_KEY, DEFAULT_APP_TOKEN_CACHE_TTL)),
+            TimeUnit.MILLISECONDS)
+        .build();
+
+    verifiedJwtCache = CacheBuilder.newBuilder()
+        .maximumSize(Long.valueOf(System.getProperty(JWT_CACHE_SIZE_KEY, DEFAULT_JWT_CACHE_SIZE)))
+        .expireAfterWrite(cacheDuration, TimeUnit.MINUTES)
+        .build();
+
+    podPublicSignatureVerifierCache = CacheBuilder.newBuilder()
+        .refreshAfterWrite(cacheDuration, TimeUnit.MINUTES)
+        .recordStats()
+        .build(CacheLoader.asyncReloading(new CacheLoader<String, PublicKey>() {
+          /**
+           * Called when the cache is empty or has to be refreshed.
+           * @param appId Application ID used as key to cache the pod public certificate.
+           * @return PublicKey created through the public pod PEM certificate.
+           */
+          @Override
+          public PublicKey load(String appId) {
+            PodCertificate podPublicCert = appAuthenticationService.getPodPublicCertificate(appId);
+            PublicKey pk = rsaKeyUtils.getPublicKeyFromCertificate(podPublicCert.getCertificate());
+            return pk;
+          }
+        }, refreshExecutor));
+
+    podInfoCache = CacheBuilder.newBuilder()
+        .refreshAfterWrite(cacheDuration, TimeUnit.MINUTES)
+        .recordStats()
+        .build(CacheLoader.asyncReloading(new CacheLoader<String, PodInfo>() {
+          /**
+           * Called when the cache is empty or has to be refreshed.
+           * @param integrationUser Integration user used to retrieve the pod info.
+           * @return Pod info
+           */
+          @Override
+          public PodInfo load(String integrationUser) {
+            String sessionToken = authenticationProxy.getSessionToken(integrationUser);
+            return podInfoClient.getPodInfo(sessionToken);
+          }
+        }, refreshExecutor));
+  }
+
+  /**
+   * Registers the hit, load and failure metrics of the pod certificate and pod info caches.
+   */
+  private void registerCacheMetrics() {
+    registerCacheMetrics(POD_CERTIFICATE_CACHE, podPublicSignatureVerifierCache);
+    registerCacheMetrics(POD_INFO_CACHE, podInfoCache);
+  }
+
+  private void registerCacheMetrics(String cacheName, final LoadingCache<?, ?> cache) {
+    String baseName = MetricRegistry.name(BASE_METRIC_NAME, cacheName);
+
+    metricsRegistry.register(MetricRegistry.name(baseName, "hits"), new Gauge<Long>() {
       @Override
-      public PublicKey load(String appId) {
-        PodCertificate podPublicCert = appAuthenticationService.getPodPublicCertificate(appId);
-        PublicKey pk = rsaKeyUtils.getPublicKeyFromCertificate(podPublicCert.getCertificate());
-        return pk;
+      public Long getValue() {
+        return cache.stats().hitCount();
+      }
+    });
+
+    metricsRegistry.register(MetricRegistry.name(baseName, "loads"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        CacheStats stats = cache.stats();
+        return stats.loadSuccessCount() + stats.loadExceptionCount();
+      }
+    });
+
+    metricsRegistry.register(MetricRegistry.name(baseName, "failures"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return cache.stats().loadExceptionCount();
       }
     });
   }
@@ -200,20 +417,80 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
    */
   public String authenticate(String configurationId) {
     Integration integration = getIntegrationAndCheckAvailability(configurationId);
-    String appId = properties.getApplicationId(integration.getSettings().getType());
+    String integrationUser = integration.getSettings().getType();
+    String appId = properties.getApplicationId(integrationUser);
 
     String appToken = tokenUtils.generateToken();
     AppToken bothTokens = appAuthenticationService.authenticate(appId, appToken);
 
-    String sessionToken = authenticationProxy.getSessionToken(integration.getSettings().getType());
-    apiClient.saveAppAuthenticationToken(sessionToken, configurationId, bothTokens);
+    if (bothTokens != null) {
+      appTokenCache.put(appTokenKey(configurationId, appToken), bothTokens);
+    }
+
+    PendingAppToken pending = new PendingAppToken(integrationUser, configurationId, bothTokens);
+
+    // Saves right away when write-behind is disabled or its queue is full
+    if ((writeBehindExecutor == null) || (bothTokens == null) || !pendingAppTokens.offer(pending)) {
+      String sessionToken = authenticationProxy.getSessionToken(integrationUser);
+      apiClient.saveAppAuthenticationToken(sessionToken, configurationId, bothTokens);
+    }
 
     return appToken;
   }
 
+  /**
+   * Saves the token pairs pending when the batch starts. The session token is retrieved once per
+   * integration user. When a save fails, the batch is stopped and the remaining token pairs are
+   * queued again for the next batch. The failed token pair is discarded after the retry limit.
+   */
+  private void flushAppTokens() {
+    List<PendingAppToken> batch = new ArrayList<>();
+    pendingAppTokens.drainTo(batch);
+
+    Map<String, String> sessionTokens = new HashMap<>();
+
+    for (int i = 0; i < batch.size(); i++) {
+      PendingAppToken pending = batch.get(i);
+
+      try {
+        String sessionToken = sessionTokens.get(pending.integrationUser);
+
+        if (sessionToken == null) {
+          sessionToken = authenticationProxy.getSessionToken(pending.integrationUser);
+          sessionTokens.put(pending.integrationUser, sessionToken);
+        }
+
+        apiClient.saveAppAuthenticationToken(sessionToken, pending.configurationId,
+            pending.appToken);
+      } catch (RuntimeException e) {
+        for (PendingAppToken remaining : batch.subList(i + 1, batch.size())) {
+          requeue(remaining);
+        }
+
+        if (pending.attempts > writeBehindRetries) {
+          LOG.error("Fail to save the app token for {}. Discarding it after {} attempts",
+              pending.configurationId, pending.attempts, e);
+        } else {
+          LOG.warn("Fail to save the app token for {}. Retrying on the next batch",
+              pending.configurationId, e);
+          requeue(pending.retry());
+        }
+
+        return;
+      }
+    }
+  }
+
+  private void requeue(PendingAppToken pending) {
+    if (!pendingAppTokens.offer(pending)) {
+      LOG.error("Fail to save the app token for {}. The write-behind queue is full",
+          pending.configurationId);
+    }
+  }
+
   /**
    * Validate if the Symphony previously generated token by the app token and the SBE token are
-   * valid.
+   * valid. The token pair is retrieved from the pod only if it's not cached locally.
    * @param configurationId Application identifier.
    * @param applicationToken App token generated by the "authenticate" service.
    * @return <code>true</code> if the token pair is valid.
@@ -221,16 +498,30 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
   public boolean isValidTokenPair(String configurationId, String applicationToken,
       String symphonyToken) {
     Integration integration = getIntegrationAndCheckAvailability(configurationId);
-    String sessionToken = authenticationProxy.getSessionToken(integration.getSettings().getType());
 
-    AppToken bothTokens = apiClient.getAppAuthenticationToken(sessionToken, configurationId,
-        applicationToken);
+    String key = appTokenKey(configurationId, applicationToken);
+    AppToken bothTokens = appTokenCache.getIfPresent(key);
+
     if (bothTokens == null) {
-      return false;
+      String sessionToken =
+          authenticationProxy.getSessionToken(integration.getSettings().getType());
+
+      bothTokens = apiClient.getAppAuthenticationToken(sessionToken, configurationId,
+          applicationToken);
+      if (bothTokens == null) {
+        return false;
+      }
+
+      appTokenCache.put(key, bothTokens);
     }
+
     return symphonyToken.equals(bothTokens.getSymphonyToken());
   }
 
+  private String appTokenKey(String configurationId, String applicationToken) {
+    return configurationId + ":" + applicationToken;
+  }
+
   /**
    * Validate if the sent JWT is valid by checking its signer and decodification and then return it.
    * @param configurationId Application identifier.
@@ -241,6 +532,36 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
     Integration integration = getIntegrationAndCheckAvailability(configurationId);
     String appId = properties.getApplicationId(integration.getSettings().getType());
 
+    String digest = Hashing.sha256().newHasher()
+        .putString(appId, StandardCharsets.UTF_8)
+        .putString(jwt, StandardCharsets.UTF_8)
+        .hash()
+        .toString();
+
+    VerifiedJwt verifiedJwt = verifiedJwtCache.getIfPresent(digest);
+
+    if (verifiedJwt != null) {
+      if (!verifiedJwt.isExpired()) {
+        return verifiedJwt.payload;
+      }
+
+      // Expired JWT must be verified again to report the expiration
+      verifiedJwtCache.invalidate(digest);
+    }
+
+    verifiedJwt = verifyJwt(appId, jwt);
+    verifiedJwtCache.put(digest, verifiedJwt);
+
+    return verifiedJwt.payload;
+  }
+
+  /**
+   * Checks the JWT signature and algorithm and maps the JWT claims to the payload.
+   * @param appId Application identifier.
+   * @param jwt Json Web Token containing the user/app authentication data.
+   * @return Verified JWT
+   */
+  private VerifiedJwt verifyJwt(String appId, String jwt) {
     PublicKey rsaVerifier = podPublicSignatureVerifierCache.getUnchecked(appId);
     Jws<Claims> jws = null;
     try {
@@ -260,10 +581,11 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
     }
 
     try {
-      String json = new ObjectMapper().writeValueAsString(jws.getBody());
-      JsonUtils jsonUtils = new JsonUtils();
-      return jsonUtils.deserialize(json, JwtPayload.class);
-    } catch (JsonProcessingException | RemoteApiException e) {
+      Claims claims = jws.getBody();
+      JwtPayload payload = JWT_PAYLOAD_MAPPER.convertValue(claims, JwtPayload.class);
+
+      return new VerifiedJwt(payload, claims.getExpiration());
+    } catch (IllegalArgumentException e) {
       throw new MalformedParameterException(logMessage.getMessage(JWT_DESERIALIZE), e,
           logMessage.getMessage(JWT_DESERIALIZE_SOLUTION));
     }
@@ -275,18 +597,73 @@ public class JwtAuthenticationImpl implements JwtAuthentication {
       return Boolean.FALSE;
     }
 
-    if (podInfo == null) {
-      podInfo = getPodInfo(configurationId);
-    }
-
+    PodInfo podInfo = getPodInfo(configurationId);
     return podInfo.verifyPodId(podId);
   }
 
   private PodInfo getPodInfo(String configurationId) {
     Integration integration = getIntegrationAndCheckAvailability(configurationId);
-    String sessionToken = authenticationProxy.getSessionToken(integration.getSettings().getType());
 
-    return podInfoClient.getPodInfo(sessionToken);
+    try {
+      return podInfoCache.getUnchecked(integration.getSettings().getType());
+    } catch (UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw e;
+    }
+  }
+
+  /**
+   * JWT payload whose signature was already verified.
+   */
+  private static final class VerifiedJwt {
+
+    private final JwtPayload payload;
+
+    private final Date expiration;
+
+    private VerifiedJwt(JwtPayload payload, Date expiration) {
+      this.payload = payload;
+      this.expiration = expiration;
+    }
+
+    private boolean isExpired() {
+      return (expiration != null) && (expiration.getTime() <= System.currentTimeMillis());
+    }
+
+  }
+
+  /**
+   * Token pair waiting to be saved on the pod.
+   */
+  private static final class PendingAppToken {
+
+    private final String integrationUser;
+
+    private final String configurationId;
+
+    private final AppToken appToken;
+
+    private final int attempts;
+
+    private PendingAppToken(String integrationUser, String configurationId, AppToken appToken) {
+      this(integrationUser, configurationId, appToken, 1);
+    }
+
+    private PendingAppToken(String integrationUser, String configurationId, AppToken appToken,
+        int attempts) {
+      this.integrationUser = integrationUser;
+      this.configurationId = configurationId;
+      this.appToken = appToken;
+      this.attempts = attempts;
+    }
+
+    private PendingAppToken retry() {
+      return new PendingAppToken(integrationUser, configurationId, appToken, attempts + 1);
+    }
+
   }
 
 }
@@ -22,6 +22,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.symphonyoss.integration.authentication.properties.AppAuthenticationProxyProperties.UNREGISTERED_APP_MESSAGE;
 import static org.symphonyoss.integration.authentication.properties.AppAuthenticationProxyProperties.UNREGISTERED_APP_SOLUTION;
 
+import com.codahale.metrics.MetricRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.glassfish.jersey.apache.connector.ApacheClientProperties;
@@ -54,7 +55,8 @@ import javax.ws.rs.core.Configuration;
 @RunWith(SpringRunner.class)
 @SpringBootTest
 @EnableConfigurationProperties
-@ContextConfiguration(classes = {IntegrationProperties.class, AppAuthenticationProxyImpl.class})
+@ContextConfiguration(classes = {IntegrationProperties.class, AppAuthenticationProxyImpl.class,
+    MetricRegistry.class})
 public class AppAuthenticationProxyImplTest {
 
   private static final String JIRA = "jira";
@@ -20,8 +20,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 
 import org.apache.http.HttpStatus;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
@@ -32,6 +39,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -53,6 +62,13 @@ import org.symphonyoss.integration.exception.authentication.UnexpectedAuthExcept
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.yaml.IntegrationProperties;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import javax.ws.rs.core.Configuration;
 import javax.ws.rs.core.Response;
 
@@ -63,7 +79,8 @@ import javax.ws.rs.core.Response;
 @RunWith(SpringRunner.class)
 @SpringBootTest
 @EnableConfigurationProperties
-@ContextConfiguration(classes = {IntegrationProperties.class, AuthenticationProxyImpl.class})
+@ContextConfiguration(classes = {IntegrationProperties.class, MetricRegistry.class,
+    AuthenticationProxyImpl.class})
 public class AuthenticationProxyImplTest {
 
   private static final String JIRAWEBHOOK = "jirawebhook";
@@ -103,6 +120,9 @@ public class AuthenticationProxyImplTest {
   @Autowired
   private IntegrationProperties properties;
 
+  @Autowired
+  private MetricRegistry metricsRegistry;
+
   @InjectMocks
   @Autowired
   private AuthenticationProxyImpl proxy;
@@ -153,6 +173,7 @@ public class AuthenticationProxyImplTest {
   public void testUnauthorizedUserException() throws RemoteApiException {
     RemoteApiException rae = new RemoteApiException(401, "testUnauthorizedUserException");
     doThrow(rae).when(sbeAuthApi).authenticate(JIRAWEBHOOK);
+    doReturn(kmToken).when(keyManagerAuthApi).authenticate(JIRAWEBHOOK);
     proxy.reAuthOrThrow(JIRAWEBHOOK, new RemoteApiException(HttpStatus.SC_UNAUTHORIZED, "message"));
   }
 
@@ -160,6 +181,7 @@ public class AuthenticationProxyImplTest {
   public void testForbiddenAuthException() throws RemoteApiException {
     RemoteApiException rae = new RemoteApiException(403, "testForbiddenAuthException");
     doThrow(rae).when(sbeAuthApi).authenticate(JIRAWEBHOOK);
+    doReturn(kmToken).when(keyManagerAuthApi).authenticate(JIRAWEBHOOK);
     proxy.reAuthOrThrow(JIRAWEBHOOK, new RemoteApiException(HttpStatus.SC_UNAUTHORIZED, "message"));
   }
 
@@ -231,6 +253,16 @@ public class AuthenticationProxyImplTest {
 
   }
 
+  @Test
+  public void testHttpClientForSessionToken() throws RemoteApiException {
+    testAuthentication();
+
+    assertEquals(proxy.httpClientForUser(JIRAWEBHOOK, ServiceName.POD),
+        proxy.httpClientForSessionToken(SESSION_TOKEN, ServiceName.POD));
+    assertEquals(proxy.httpClientForUser(SIMPLEWEBHOOK, ServiceName.POD),
+        proxy.httpClientForSessionToken(SESSION_TOKEN2, ServiceName.POD));
+  }
+
   @Test
   public void testInvalidate() throws RemoteApiException {
     testAuthentication();
@@ -270,4 +302,134 @@ public class AuthenticationProxyImplTest {
     doReturn(new Token()).when(keyManagerAuthApi).authenticate(JIRAWEBHOOK);
     proxy.reAuthOrThrow(JIRAWEBHOOK, new RemoteApiException(HttpStatus.SC_UNAUTHORIZED, "message"));
   }
+
+  @Test
+  public void testReAuthSingleFlight() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    doAnswer(new Answer<Token>() {
+      @Override
+      public Token answer(InvocationOnMock invocation) throws Throwable {
+        started.countDown();
+        release.await(10, TimeUnit.SECONDS);
+        return sessionToken;
+      }
+    }).when(sbeAuthApi).authenticate(JIRAWEBHOOK);
+    doReturn(kmToken).when(keyManagerAuthApi).authenticate(JIRAWEBHOOK);
+
+    Meter coalesced = metricsRegistry.meter(
+        MetricRegistry.name(BASE_METRIC_NAME, "reauthentication", "coalesced"));
+    long initialCount = coalesced.getCount();
+
+    Callable<Void> reAuth = new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        proxy.reAuthOrThrow(JIRAWEBHOOK,
+            new RemoteApiException(HttpStatus.SC_UNAUTHORIZED, "message"));
+        return null;
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      Future<Void> first = executor.submit(reAuth);
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      Future<Void> second = executor.submit(reAuth);
+
+      long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+      while (coalesced.getCount() == initialCount && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+
+      release.countDown();
+
+      first.get(10, TimeUnit.SECONDS);
+      second.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(initialCount + 1, coalesced.getCount());
+    assertEquals(SESSION_TOKEN, proxy.getSessionToken(JIRAWEBHOOK));
+    verify(sbeAuthApi, times(1)).authenticate(JIRAWEBHOOK);
+  }
+
+  @Test
+  public void testAuthenticateSingleFlight() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    doAnswer(new Answer<Token>() {
+      @Override
+      public Token answer(InvocationOnMock invocation) throws Throwable {
+        started.countDown();
+        release.await(10, TimeUnit.SECONDS);
+        return sessionToken;
+      }
+    }).when(sbeAuthApi).authenticate(JIRAWEBHOOK);
+    doReturn(kmToken).when(keyManagerAuthApi).authenticate(JIRAWEBHOOK);
+
+    Meter coalesced = metricsRegistry.meter(
+        MetricRegistry.name(BASE_METRIC_NAME, "reauthentication", "coalesced"));
+    long initialCount = coalesced.getCount();
+
+    Callable<Void> auth = new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        proxy.authenticate(JIRAWEBHOOK);
+        return null;
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      Future<Void> first = executor.submit(auth);
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      Future<Void> second = executor.submit(auth);
+
+      long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+      while (coalesced.getCount() == initialCount && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+
+      release.countDown();
+
+      first.get(10, TimeUnit.SECONDS);
+      second.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(initialCount + 1, coalesced.getCount());
+    assertEquals(SESSION_TOKEN, proxy.getSessionToken(JIRAWEBHOOK));
+    verify(sbeAuthApi, times(1)).authenticate(JIRAWEBHOOK);
+  }
+
+  @Test(expected = UnauthorizedUserException.class)
+  public void testFailFastAuthentication() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+
+    doAnswer(new Answer<Token>() {
+      @Override
+      public Token answer(InvocationOnMock invocation) throws Throwable {
+        release.await(10, TimeUnit.SECONDS);
+        return sessionToken;
+      }
+    }).when(sbeAuthApi).authenticate(JIRAWEBHOOK);
+    doThrow(new RemoteApiException(401, "testFailFastAuthentication")).when(keyManagerAuthApi)
+        .authenticate(JIRAWEBHOOK);
+
+    try {
+      proxy.authenticate(JIRAWEBHOOK);
+    } finally {
+      // The session token request is still in progress
+      assertEquals(1, release.getCount());
+      release.countDown();
+    }
+  }
 }
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.authentication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.junit.After;
+import org.junit.Test;
+import org.symphonyoss.integration.authentication.api.enums.ServiceName;
+import org.symphonyoss.integration.model.yaml.HttpClientConfig;
+
+import java.security.KeyStore;
+
+import javax.net.ssl.SSLSocketFactory;
+import javax.ws.rs.client.Client;
+
+/**
+ * Unit test for {@link PooledClientFactory}
+ * Created by rsanchez on 31/10/17.
+ */
+public class PooledClientFactoryTest {
+
+  private static final String PASSWORD = "changeit";
+
+  private static final String AGENT_MAX_CONNECTIONS = "http.client.agent.max.connections";
+
+  private static final String AGENT_MAX_CONNECTIONS_PER_ROUTE =
+      "http.client.agent.max.connections.per.route";
+
+  @After
+  public void cleanup() {
+    System.clearProperty(AGENT_MAX_CONNECTIONS);
+    System.clearProperty(AGENT_MAX_CONNECTIONS_PER_ROUTE);
+  }
+
+  @Test
+  public void testSystemSocketFactory() {
+    assertSame(PooledClientFactory.getSslSocketFactory(null, null),
+        PooledClientFactory.getSslSocketFactory(null, PASSWORD));
+  }
+
+  @Test
+  public void testSharedSocketFactory() throws Exception {
+    KeyStore keyStore = createKeyStore();
+
+    SSLSocketFactory socketFactory =
+        PooledClientFactory.getSslSocketFactory(keyStore, PASSWORD);
+
+    assertSame(socketFactory, PooledClientFactory.getSslSocketFactory(keyStore, PASSWORD));
+    assertNotSame(socketFactory,
+        PooledClientFactory.getSslSocketFactory(createKeyStore(), PASSWORD));
+  }
+
+  @Test
+  public void testServiceConnectionLimits() {
+    System.setProperty(AGENT_MAX_CONNECTIONS, "50");
+    System.setProperty(AGENT_MAX_CONNECTIONS_PER_ROUTE, "40");
+
+    HttpClientConfig httpClientConfig = new HttpClientConfig();
+    httpClientConfig.setMaxConnections(HttpClientConfig.MAX_TOTAL_CONNECTIONS);
+    httpClientConfig.setMaxConnectionsPerRoute(HttpClientConfig.MAX_TOTAL_CONNECTIONS_PER_ROUTE);
+
+    SSLSocketFactory socketFactory = PooledClientFactory.getSslSocketFactory(null, null);
+
+    PoolingHttpClientConnectionManager agentPool = getConnectionManager(
+        PooledClientFactory.buildClient(ServiceName.AGENT, socketFactory, httpClientConfig, null,
+            null));
+
+    assertEquals(50, agentPool.getMaxTotal());
+    assertEquals(40, agentPool.getDefaultMaxPerRoute());
+
+    PoolingHttpClientConnectionManager podPool = getConnectionManager(
+        PooledClientFactory.buildClient(ServiceName.POD, socketFactory, httpClientConfig, null,
+            null));
+
+    assertEquals(httpClientConfig.getMaxConnections().intValue(), podPool.getMaxTotal());
+    assertEquals(httpClientConfig.getMaxConnectionsPerRoute().intValue(),
+        podPool.getDefaultMaxPerRoute());
+  }
+
+  @Test
+  public void testConnectionPoolMetrics() {
+    System.setProperty(AGENT_MAX_CONNECTIONS, "30");
+
+    HttpClientConfig httpClientConfig = new HttpClientConfig();
+    httpClientConfig.setMaxConnections(HttpClientConfig.MAX_TOTAL_CONNECTIONS);
+    httpClientConfig.setMaxConnectionsPerRoute(HttpClientConfig.MAX_TOTAL_CONNECTIONS_PER_ROUTE);
+
+    MetricRegistry metricRegistry = new MetricRegistry();
+    HttpClientMetrics metrics =
+        new HttpClientMetrics(metricRegistry, "user.test", ServiceName.AGENT);
+
+    PoolingHttpClientConnectionManager agentPool = getConnectionManager(
+        PooledClientFactory.buildClient(ServiceName.AGENT,
+            PooledClientFactory.getSslSocketFactory(null, null), httpClientConfig, null, metrics));
+
+    assertTrue(agentPool instanceof InstrumentedConnectionManager);
+
+    String baseName = MetricRegistry.name(BASE_METRIC_NAME, "http.client.user.test.agent");
+    Gauge max = metricRegistry.getGauges().get(MetricRegistry.name(baseName, "max"));
+
+    assertEquals(30, max.getValue());
+    assertEquals(0, metricRegistry.getGauges().get(MetricRegistry.name(baseName, "leased"))
+        .getValue());
+    assertTrue(metricRegistry.getTimers().containsKey(MetricRegistry.name(baseName, "lease.time")));
+    assertTrue(
+        metricRegistry.getTimers().containsKey(MetricRegistry.name(baseName, "tls.handshakes")));
+  }
+
+  private PoolingHttpClientConnectionManager getConnectionManager(Client client) {
+    return (PoolingHttpClientConnectionManager) client.getConfiguration()
+        .getProperty(ApacheClientProperties.CONNECTION_MANAGER);
+  }
+
+  private KeyStore createKeyStore() throws Exception {
+    KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+    keyStore.load(null, PASSWORD.toCharArray());
+    return keyStore;
+  }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.authentication;
+
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.symphonyoss.integration.authentication.event.UserRegisteredEventData;
+import org.symphonyoss.integration.exception.authentication.UnexpectedAuthException;
+
+/**
+ * Unit test for {@link SessionRefresher}
+ * Created by rsanchez on 30/10/17.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SessionRefresherTest {
+
+  private static final String USER_ID = "jirawebhook";
+
+  @Mock
+  private AuthenticationProxyImpl authenticationProxy;
+
+  @InjectMocks
+  private SessionRefresher refresher = new SessionRefresher();
+
+  @Before
+  public void init() {
+    System.setProperty(SessionRefresher.SESSION_REFRESH_PERIOD_KEY, "100");
+    System.setProperty(SessionRefresher.SESSION_REFRESH_JITTER_KEY, "0");
+
+    refresher.init();
+    doReturn(true).when(authenticationProxy).isRegistered(USER_ID);
+  }
+
+  @After
+  public void destroy() {
+    refresher.destroy();
+
+    System.clearProperty(SessionRefresher.SESSION_REFRESH_PERIOD_KEY);
+    System.clearProperty(SessionRefresher.SESSION_REFRESH_JITTER_KEY);
+  }
+
+  @Test
+  public void testRegistrationOnlySchedulesRefresh() {
+    refresher.destroy();
+    System.clearProperty(SessionRefresher.SESSION_REFRESH_PERIOD_KEY);
+    refresher.init();
+
+    refresher.handleUserRegisteredEvent(new UserRegisteredEventData(USER_ID));
+
+    verify(authenticationProxy, after(200).never()).isRegistered(USER_ID);
+    verify(authenticationProxy, never()).authenticate(USER_ID);
+    verify(authenticationProxy, never()).refreshSession(USER_ID);
+  }
+
+  @Test
+  public void testUnauthenticatedUser() {
+    doReturn(AuthenticationToken.VOID_AUTH_TOKEN).when(authenticationProxy).getToken(USER_ID);
+    doReturn(false).when(authenticationProxy).isAuthenticated(USER_ID);
+
+    refresher.handleUserRegisteredEvent(new UserRegisteredEventData(USER_ID));
+
+    verify(authenticationProxy, timeout(5000)).authenticate(USER_ID);
+    verify(authenticationProxy, never()).refreshSession(USER_ID);
+  }
+
+  @Test
+  public void testExpiringSession() {
+    doReturn(new AuthenticationToken("session", "km")).when(authenticationProxy).getToken(USER_ID);
+    doReturn(true).when(authenticationProxy).isAuthenticated(USER_ID);
+
+    refresher.handleUserRegisteredEvent(new UserRegisteredEventData(USER_ID));
+
+    verify(authenticationProxy, timeout(5000)).refreshSession(USER_ID);
+    verify(authenticationProxy, never()).authenticate(USER_ID);
+  }
+
+  @Test
+  public void testUnregisteredUser() {
+    doReturn(false).when(authenticationProxy).isRegistered(USER_ID);
+
+    refresher.handleUserRegisteredEvent(new UserRegisteredEventData(USER_ID));
+
+    verify(authenticationProxy, timeout(5000)).isRegistered(USER_ID);
+    verify(authenticationProxy, after(100).never()).refreshSession(USER_ID);
+  }
+
+  @Test
+  public void testRefreshFailure() {
+    doReturn(new AuthenticationToken("session", "km")).when(authenticationProxy).getToken(USER_ID);
+    doReturn(true).when(authenticationProxy).isAuthenticated(USER_ID);
+    doThrow(UnexpectedAuthException.class).when(authenticationProxy).refreshSession(USER_ID);
+
+    refresher.handleUserRegisteredEvent(new UserRegisteredEventData(USER_ID));
+
+    verify(authenticationProxy, timeout(5000)).refreshSession(USER_ID);
+  }
+
+}
@@ -19,6 +19,8 @@ package org.symphonyoss.integration.authentication;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
@@ -38,6 +40,8 @@ import org.symphonyoss.integration.authentication.api.enums.ServiceName;
 
 
 import java.security.KeyStore;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.core.Configuration;
@@ -100,6 +104,12 @@ public class UserAuthenticationContextTest {
     assertNotNull(authContext.httpClientForContext(SERVICE_NAME));
   }
 
+  @Test
+  public void testClientReuse() throws RemoteApiException {
+    assertSame(authContext.httpClientForContext(SERVICE_NAME),
+        authContext.httpClientForContext(SERVICE_NAME));
+  }
+
   @Test
   public void testSetToken() throws RemoteApiException {
     authContext.setToken(AUTH_TOKEN1);
@@ -165,6 +175,32 @@ public class UserAuthenticationContextTest {
     assertNotNull(authContext.httpClientForContext(SERVICE_NAME));
   }
 
+  @Test
+  public void testSessionTokenIndex() throws RemoteApiException {
+    ConcurrentMap<String, UserAuthenticationContext> index = new ConcurrentHashMap<>();
+    authContext = new UserAuthenticationContext(USER_ID, null, null, null, properties, index);
+
+    authContext.setToken(AUTH_TOKEN1);
+    authContext.setToken(AUTH_TOKEN2);
+
+    assertEquals(2, index.size());
+    assertEquals(authContext, index.get(SESSION_TOKEN1));
+    assertEquals(authContext, index.get(SESSION_TOKEN2));
+
+    authContext.setToken(AUTH_TOKEN3);
+
+    assertEquals(2, index.size());
+    assertNull(index.get(SESSION_TOKEN1));
+    assertEquals(authContext, index.get(SESSION_TOKEN2));
+    assertEquals(authContext, index.get(SESSION_TOKEN3));
+
+    authContext.setToken(AuthenticationToken.VOID_AUTH_TOKEN);
+    assertEquals(2, index.size());
+
+    authContext.removeFromIndex();
+    assertTrue(index.isEmpty());
+  }
+
   @Test
   public void testApiClientConfiguration() throws RemoteApiException {
     HttpClientConfig httpClientConfig = new HttpClientConfig();
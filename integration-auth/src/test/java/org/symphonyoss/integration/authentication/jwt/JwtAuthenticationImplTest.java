@@ -3,11 +3,15 @@ package org.symphonyoss.integration.authentication.jwt;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.cache.LoadingCache;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -47,6 +51,8 @@ import java.security.PublicKey;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Unit tests for {@link JwtAuthenticationImpl}
@@ -106,6 +112,9 @@ public class JwtAuthenticationImplTest {
   @Mock
   private PodInfoClient podInfoClient;
 
+  @Spy
+  private MetricRegistry metricsRegistry = new MetricRegistry();
+
   @InjectMocks
   private JwtAuthenticationImpl jwtAuthentication;
 
@@ -226,6 +235,125 @@ public class JwtAuthenticationImplTest {
     assertTrue(result);
   }
 
+  @Test
+  public void testIsValidTokenPairCached() {
+    doReturn(MOCK_APP_TOKEN).when(tokenUtils).generateToken();
+    doReturn(mockAppToken).when(appAuthenticationService).authenticate(MOCK_APP_ID,
+        MOCK_APP_TOKEN);
+
+    jwtAuthentication.authenticate(MOCK_CONFIG_ID);
+    verify(apiClient, times(1)).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        mockAppToken);
+
+    assertTrue(jwtAuthentication.isValidTokenPair(MOCK_CONFIG_ID, MOCK_APP_TOKEN,
+        MOCK_SYMPHONY_TOKEN));
+    assertFalse(jwtAuthentication.isValidTokenPair(MOCK_CONFIG_ID, MOCK_APP_TOKEN,
+        MOCK_APP_TOKEN));
+
+    verify(apiClient, never()).getAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        MOCK_APP_TOKEN);
+  }
+
+  @Test
+  public void testAuthenticateWriteBehind() {
+    ReflectionTestUtils.setField(jwtAuthentication, "writeBehindExecutor",
+        Executors.newSingleThreadScheduledExecutor());
+
+    doReturn(MOCK_APP_TOKEN).when(tokenUtils).generateToken();
+    doReturn(mockAppToken).when(appAuthenticationService).authenticate(MOCK_APP_ID,
+        MOCK_APP_TOKEN);
+
+    assertEquals(MOCK_APP_TOKEN, jwtAuthentication.authenticate(MOCK_CONFIG_ID));
+    verify(apiClient, never()).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        mockAppToken);
+
+    jwtAuthentication.destroy();
+    verify(apiClient, times(1)).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        mockAppToken);
+  }
+
+  @Test
+  public void testAuthenticateWriteBehindQueueFull() {
+    ReflectionTestUtils.setField(jwtAuthentication, "writeBehindExecutor",
+        Executors.newSingleThreadScheduledExecutor());
+    ReflectionTestUtils.setField(jwtAuthentication, "pendingAppTokens",
+        new LinkedBlockingQueue<>(1));
+
+    String otherAppToken = "otherAppToken";
+    AppToken otherTokens = new AppToken(MOCK_CONFIG_ID, otherAppToken, MOCK_SYMPHONY_TOKEN);
+
+    doReturn(MOCK_APP_TOKEN).doReturn(otherAppToken).when(tokenUtils).generateToken();
+    doReturn(mockAppToken).when(appAuthenticationService).authenticate(MOCK_APP_ID,
+        MOCK_APP_TOKEN);
+    doReturn(otherTokens).when(appAuthenticationService).authenticate(MOCK_APP_ID,
+        otherAppToken);
+
+    jwtAuthentication.authenticate(MOCK_CONFIG_ID);
+    jwtAuthentication.authenticate(MOCK_CONFIG_ID);
+
+    verify(apiClient, never()).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        mockAppToken);
+    verify(apiClient, times(1)).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        otherTokens);
+
+    jwtAuthentication.destroy();
+    verify(apiClient, times(1)).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        mockAppToken);
+  }
+
+  @Test
+  public void testWriteBehindRetry() {
+    ReflectionTestUtils.setField(jwtAuthentication, "writeBehindExecutor",
+        Executors.newSingleThreadScheduledExecutor());
+
+    String otherAppToken = "otherAppToken";
+    AppToken otherTokens = new AppToken(MOCK_CONFIG_ID, otherAppToken, MOCK_SYMPHONY_TOKEN);
+
+    doReturn(MOCK_APP_TOKEN).doReturn(otherAppToken).when(tokenUtils).generateToken();
+    doReturn(mockAppToken).when(appAuthenticationService).authenticate(MOCK_APP_ID,
+        MOCK_APP_TOKEN);
+    doReturn(otherTokens).when(appAuthenticationService).authenticate(MOCK_APP_ID,
+        otherAppToken);
+    doThrow(RuntimeException.class).doNothing().when(apiClient)
+        .saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID, mockAppToken);
+
+    jwtAuthentication.authenticate(MOCK_CONFIG_ID);
+    jwtAuthentication.authenticate(MOCK_CONFIG_ID);
+
+    // The batch stops on the first failure
+    ReflectionTestUtils.invokeMethod(jwtAuthentication, "flushAppTokens");
+    verify(apiClient, times(1)).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        mockAppToken);
+    verify(apiClient, never()).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        otherTokens);
+
+    ReflectionTestUtils.invokeMethod(jwtAuthentication, "flushAppTokens");
+    verify(apiClient, times(2)).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        mockAppToken);
+    verify(apiClient, times(1)).saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID,
+        otherTokens);
+    verify(authenticationProxy, times(2)).getSessionToken(MOCK_CONFIG_ID);
+  }
+
+  @Test
+  public void testWriteBehindDiscardAfterRetries() {
+    ReflectionTestUtils.setField(jwtAuthentication, "writeBehindExecutor",
+        Executors.newSingleThreadScheduledExecutor());
+
+    doReturn(MOCK_APP_TOKEN).when(tokenUtils).generateToken();
+    doReturn(mockAppToken).when(appAuthenticationService).authenticate(MOCK_APP_ID,
+        MOCK_APP_TOKEN);
+    doThrow(RuntimeException.class).when(apiClient)
+        .saveAppAuthenticationToken(MOCK_SESSION_TOKEN, MOCK_CONFIG_ID, mockAppToken);
+
+    jwtAuthentication.authenticate(MOCK_CONFIG_ID);
+    jwtAuthentication.destroy();
+
+    int retries = Integer.valueOf(JwtAuthenticationImpl.DEFAULT_APP_TOKEN_WRITE_BEHIND_RETRIES);
+    verify(apiClient, times(retries + 1)).saveAppAuthenticationToken(MOCK_SESSION_TOKEN,
+        MOCK_CONFIG_ID, mockAppToken);
+  }
+
   @Test
   public void testIsInvalidTokenPair() {
     doReturn(MOCK_APP_TOKEN).when(tokenUtils).generateToken();
@@ -247,6 +375,22 @@ public class JwtAuthenticationImplTest {
     assertEquals(mockJwtPayload, jwtPayload);
   }
 
+  @Test
+  public void testParseJwtPayloadCached() {
+    doReturn(mockPublicKey).when(rsaKeyUtils).getPublicKeyFromCertificate(null);
+
+    JwtPayload jwtPayload = jwtAuthentication.parseJwtPayload(MOCK_CONFIG_ID, mockJwt);
+    assertEquals(mockJwtPayload, jwtPayload);
+
+    // Pod certificate no longer available, the verified JWT must be returned from the cache
+    LoadingCache cache = (LoadingCache) ReflectionTestUtils.getField(jwtAuthentication,
+        "podPublicSignatureVerifierCache");
+    cache.invalidateAll();
+    doReturn(null).when(appAuthenticationService).getPodPublicCertificate(MOCK_APP_ID);
+
+    assertSame(jwtPayload, jwtAuthentication.parseJwtPayload(MOCK_CONFIG_ID, mockJwt));
+  }
+
   @Test(expected = ExpirationException.class)
   public void testParseJwtPayloadExpired() {
     prepareJwtScenario(true);
@@ -283,8 +427,6 @@ public class JwtAuthenticationImplTest {
 
   @Test
   public void testPodInfo() {
-    ReflectionTestUtils.setField(jwtAuthentication, "podInfo", null);
-
     Map<String, Object> data = new HashMap<>();
     data.put(POD_ID, MOCK_POD_ID);
     data.put(EXTERNAL_POD_ID, MOCK_POD_ID);
@@ -299,4 +441,24 @@ public class JwtAuthenticationImplTest {
     verify(podInfoClient, times(1)).getPodInfo(MOCK_SESSION_TOKEN);
   }
 
+
+  @Test
+  public void testPodInfoRefreshFailure() {
+    Map<String, Object> data = new HashMap<>();
+    data.put(POD_ID, MOCK_POD_ID);
+    data.put(EXTERNAL_POD_ID, MOCK_POD_ID);
+
+    doReturn(new PodInfo(data)).when(podInfoClient).getPodInfo(MOCK_SESSION_TOKEN);
+    assertTrue(jwtAuthentication.checkPodInfo(MOCK_CONFIG_ID, MOCK_POD_ID));
+
+    doThrow(RuntimeException.class).when(podInfoClient).getPodInfo(MOCK_SESSION_TOKEN);
+
+    LoadingCache cache = (LoadingCache) ReflectionTestUtils.getField(jwtAuthentication,
+        "podInfoCache");
+    cache.refresh(MOCK_CONFIG_ID);
+
+    // Previous pod info must be kept
+    assertTrue(jwtAuthentication.checkPodInfo(MOCK_CONFIG_ID, MOCK_POD_ID));
+  }
+
 }
@@ -0,0 +1,377 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+import org.symphonyoss.integration.service.IntegrationService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Caching decorator for the {@link RemoteIntegrationService}.
+ *
+ * Integration settings and instances are cached by identifier and user. Concurrent requests for
+ * the same missing entry are served by a single remote call. Once the TTL is reached, the entry
+ * is reloaded in background while the previous value keeps being returned, up to the maximum
+ * stale time. Saving settings or instances through this service discards the entries cached for
+ * every user.
+ *
+ * The returned settings and instances are shared by every caller, so they must be treated as
+ * read-only. Callers that need to change them must save a copy.
+ *
+ * Created by rsanchez on 02/11/17.
+ */
+@Component
+public class CachedIntegrationService implements IntegrationService {
+
+  /**
+   * Time, in milliseconds, an entry is served before being reloaded
+   */
+  public static final String TTL_KEY = "integration.cache.ttl";
+
+  public static final String DEFAULT_TTL = "60000";
+
+  /**
+   * Time, in milliseconds, a stale entry can be served while it's reloaded
+   */
+  public static final String MAX_STALE_KEY = "integration.cache.max.stale";
+
+  public static final String DEFAULT_MAX_STALE = "300000";
+
+  /**
+   * Maximum number of entries kept on each cache
+   */
+  public static final String MAX_SIZE_KEY = "integration.cache.max.size";
+
+  public static final String DEFAULT_MAX_SIZE = "10000";
+
+  /**
+   * Number of threads used to reload the expired entries
+   */
+  public static final String RELOAD_THREADS_KEY = "integration.cache.reload.threads";
+
+  public static final String DEFAULT_RELOAD_THREADS = "2";
+
+  /**
+   * Maximum number of entries waiting for a reload thread. When the queue is full the caller
+   * thread reloads the entry itself.
+   */
+  public static final String RELOAD_QUEUE_SIZE_KEY = "integration.cache.reload.queue.size";
+
+  public static final String DEFAULT_RELOAD_QUEUE_SIZE = "100";
+
+  @Autowired
+  @Qualifier("remoteIntegrationService")
+  private IntegrationService delegate;
+
+  private ExecutorService reloadExecutor;
+
+  private LoadingCache<CacheKey, CachedValue<IntegrationSettings>> settingsCache;
+
+  private LoadingCache<CacheKey, CachedValue<IntegrationInstance>> instanceCache;
+
+  /**
+   * Cached keys of each configuration and instance, regardless of the user. Saving settings or
+   * instances discards these keys without scanning the caches.
+   */
+  private final ConcurrentMap<CacheKey, Map<CacheKey, CachedValue<?>>> index =
+      new ConcurrentHashMap<>();
+
+  @Override
+  @PostConstruct
+  public void init() {
+    int threads = Integer.valueOf(System.getProperty(RELOAD_THREADS_KEY, DEFAULT_RELOAD_THREADS));
+    int queueSize = Integer.valueOf(
+        System.getProperty(RELOAD_QUEUE_SIZE_KEY, DEFAULT_RELOAD_QUEUE_SIZE));
+    this.reloadExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize),
+        new ThreadFactoryBuilder().setNameFormat("IntegrationCacheReload-%d").setDaemon(true)
+            .build(),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+
+    this.settingsCache = buildCache(new CacheLoader<CacheKey, CachedValue<IntegrationSettings>>() {
+      @Override
+      public CachedValue<IntegrationSettings> load(CacheKey key) {
+        IntegrationSettings settings = delegate.getIntegrationById(key.configurationId, key.userId);
+        return wrap(key, settings);
+      }
+    });
+
+    this.instanceCache = buildCache(new CacheLoader<CacheKey, CachedValue<IntegrationInstance>>() {
+      @Override
+      public CachedValue<IntegrationInstance> load(CacheKey key) {
+        IntegrationInstance instance =
+            delegate.getInstanceById(key.configurationId, key.instanceId, key.userId);
+        return wrap(key, instance);
+      }
+    });
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (reloadExecutor != null) {
+      reloadExecutor.shutdown();
+    }
+  }
+
+  private <V> LoadingCache<CacheKey, CachedValue<V>> buildCache(
+      CacheLoader<CacheKey, CachedValue<V>> loader) {
+    long ttl = Long.valueOf(System.getProperty(TTL_KEY, DEFAULT_TTL));
+    long maxStale = Long.valueOf(System.getProperty(MAX_STALE_KEY, DEFAULT_MAX_STALE));
+    long maxSize = Long.valueOf(System.getProperty(MAX_SIZE_KEY, DEFAULT_MAX_SIZE));
+
+    return CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .refreshAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .expireAfterWrite(ttl + maxStale, TimeUnit.MILLISECONDS)
+        .removalListener(new RemovalListener<CacheKey, CachedValue<V>>() {
+          @Override
+          public void onRemoval(RemovalNotification<CacheKey, CachedValue<V>> notification) {
+            unindex(notification.getKey(), notification.getValue());
+          }
+        })
+        .build(CacheLoader.asyncReloading(loader, reloadExecutor));
+  }
+
+  @Override
+  public IntegrationSettings getIntegrationById(String integrationId, String userId) {
+    return get(settingsCache, new CacheKey(integrationId, null, userId));
+  }
+
+  @Override
+  public IntegrationSettings getIntegrationByType(String integrationType, String userId) {
+    return delegate.getIntegrationByType(integrationType, userId);
+  }
+
+  @Override
+  public IntegrationSettings save(IntegrationSettings settings, String userId) {
+    IntegrationSettings saved = delegate.save(settings, userId);
+    invalidate(settingsCache, settings.getConfigurationId(), null);
+    return saved;
+  }
+
+  @Override
+  public IntegrationInstance getInstanceById(String configurationId, String instanceId,
+      String userId) {
+    return get(instanceCache, new CacheKey(configurationId, instanceId, userId));
+  }
+
+  @Override
+  public IntegrationInstance save(IntegrationInstance instance, String userId) {
+    IntegrationInstance saved = delegate.save(instance, userId);
+    invalidate(instanceCache, instance.getConfigurationId(), instance.getInstanceId());
+    return saved;
+  }
+
+  /**
+   * Caches an instance retrieved by other means than this service, i.e. listing the instances of
+   * an integration. Instances already cached aren't replaced.
+   * @param instance Integration instance
+   * @param userId User used to retrieve the instance
+   */
+  public void preload(IntegrationInstance instance, String userId) {
+    CacheKey key = new CacheKey(instance.getConfigurationId(), instance.getInstanceId(), userId);
+    CachedValue<IntegrationInstance> value = new CachedValue<>(instance);
+
+    if (instanceCache.asMap().putIfAbsent(key, value) == null) {
+      index(key, value);
+    }
+  }
+
+  /**
+   * Retrieves the cached value or loads it through the remote service. Exceptions reported by
+   * the remote service are rethrown as they were.
+   */
+  private <V> V get(LoadingCache<CacheKey, CachedValue<V>> cache, CacheKey key) {
+    try {
+      return cache.getUnchecked(key).value;
+    } catch (InvalidCacheLoadException e) {
+      // Remote service returned null, nothing to cache
+      return null;
+    } catch (UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw e;
+    }
+  }
+
+  /**
+   * Wraps the value loaded from the remote service and indexes its key.
+   * @param key Cache key
+   * @param value Loaded value
+   * @return Value to be cached or null if there is nothing to cache
+   */
+  private <V> CachedValue<V> wrap(CacheKey key, V value) {
+    if (value == null) {
+      return null;
+    }
+
+    return index(key, new CachedValue<>(value));
+  }
+
+  /**
+   * Adds the key to the index of its configuration and instance.
+   * @param key Cache key
+   * @param value Value cached for the key
+   * @return Value cached for the key
+   */
+  private <V> CachedValue<V> index(final CacheKey key, final CachedValue<V> value) {
+    index.compute(key.group(),
+        new BiFunction<CacheKey, Map<CacheKey, CachedValue<?>>, Map<CacheKey, CachedValue<?>>>() {
+          @Override
+          public Map<CacheKey, CachedValue<?>> apply(CacheKey group,
+              Map<CacheKey, CachedValue<?>> keys) {
+            Map<CacheKey, CachedValue<?>> result = keys;
+
+            if (result == null) {
+              result = new HashMap<>();
+            }
+
+            result.put(key, value);
+            return result;
+          }
+        });
+
+    return value;
+  }
+
+  /**
+   * Removes the key from the index of its configuration and instance. The key is kept when it was
+   * indexed again for a newer value, i.e. reloaded after being evicted.
+   * @param key Cache key
+   * @param value Value removed from the cache
+   */
+  private void unindex(final CacheKey key, final CachedValue<?> value) {
+    index.computeIfPresent(key.group(),
+        new BiFunction<CacheKey, Map<CacheKey, CachedValue<?>>, Map<CacheKey, CachedValue<?>>>() {
+          @Override
+          public Map<CacheKey, CachedValue<?>> apply(CacheKey group,
+              Map<CacheKey, CachedValue<?>> keys) {
+            if (keys.get(key) == value) {
+              keys.remove(key);
+            }
+
+            return keys.isEmpty() ? null : keys;
+          }
+        });
+  }
+
+  /**
+   * Discards the entries cached for any user.
+   * @param cache Cache
+   * @param configurationId Configuration identifier
+   * @param instanceId Instance identifier or null for integration settings
+   */
+  private void invalidate(LoadingCache<CacheKey, ?> cache, String configurationId,
+      String instanceId) {
+    CacheKey group = new CacheKey(configurationId, instanceId, null);
+    Map<CacheKey, CachedValue<?>> keys = index.remove(group);
+
+    if (keys != null) {
+      cache.invalidateAll(keys.keySet());
+    }
+  }
+
+  /**
+   * Cache key composed by the configuration, instance and the user used to read them.
+   */
+  private static final class CacheKey {
+
+    private final String configurationId;
+
+    private final String instanceId;
+
+    private final String userId;
+
+    private CacheKey(String configurationId, String instanceId, String userId) {
+      this.configurationId = configurationId;
+      this.instanceId = instanceId;
+      this.userId = userId;
+    }
+
+    /**
+     * Key shared by every user of the same configuration and instance.
+     */
+    private CacheKey group() {
+      return new CacheKey(configurationId, instanceId, null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      CacheKey that = (CacheKey) o;
+
+      return Objects.equals(configurationId, that.configurationId)
+          && Objects.equals(instanceId, that.instanceId)
+          && Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(configurationId, instanceId, userId);
+    }
+
+  }
+
+  /**
+   * Cached value. Each load creates a new holder, so an evicted value can be told apart from the
+   * value reloaded for the same key.
+   */
+  private static final class CachedValue<V> {
+
+    private final V value;
+
+    private CachedValue(V value) {
+      this.value = value;
+    }
+
+  }
+
+}
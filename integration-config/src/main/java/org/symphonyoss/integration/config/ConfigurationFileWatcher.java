@@ -0,0 +1,148 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a single file and notifies the listener, in a background thread, whenever the file is
+ * created or modified.
+ *
+ * The events received within the quiet period are grouped, so editors that write the file in
+ * several steps trigger a single notification.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+class ConfigurationFileWatcher implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationFileWatcher.class);
+
+  private final Path file;
+
+  private final long quietPeriod;
+
+  private final Runnable listener;
+
+  private final WatchService watchService;
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("ConfigurationFileWatcher-%d")
+          .setDaemon(true)
+          .build());
+
+  /**
+   * @param file File to be watched
+   * @param quietPeriod Time, in milliseconds, to wait for new events before notifying the listener
+   * @param listener Listener notified when the file changes
+   * @throws IOException Reports failure to register the watch service
+   */
+  ConfigurationFileWatcher(Path file, long quietPeriod, Runnable listener) throws IOException {
+    this.file = file.toAbsolutePath();
+    this.quietPeriod = quietPeriod;
+    this.listener = listener;
+    this.watchService = this.file.getFileSystem().newWatchService();
+    this.file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+  }
+
+  /**
+   * Starts watching the file.
+   */
+  void start() {
+    executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        watch();
+      }
+    });
+
+    LOGGER.info("Watching file {}", file);
+  }
+
+  private void watch() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        boolean changed = pollEvents(watchService.take());
+
+        WatchKey key;
+        while ((key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS)) != null) {
+          changed |= pollEvents(key);
+        }
+
+        if (changed) {
+          notifyListener();
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      LOGGER.info("Stopped watching file {}", file);
+    }
+  }
+
+  /**
+   * Consumes the events of the watch key.
+   * @param key Watch key
+   * @return true if any event refers to the watched file
+   */
+  private boolean pollEvents(WatchKey key) {
+    boolean changed = false;
+
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (OVERFLOW.equals(event.kind()) || file.getFileName().equals(event.context())) {
+        changed = true;
+      }
+    }
+
+    key.reset();
+    return changed;
+  }
+
+  private void notifyListener() {
+    try {
+      listener.run();
+    } catch (RuntimeException e) {
+      LOGGER.error("Fail to process the changes of file " + file, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      LOGGER.error("Fail to close the watch service of file " + file, e);
+    }
+  }
+
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import static org.symphonyoss.integration.config.properties.InstanceCacheWarmUpProperties.WARM_UP_FAILED;
+import static org.symphonyoss.integration.config.properties.InstanceCacheWarmUpProperties.WARM_UP_FINISHED;
+import static org.symphonyoss.integration.config.properties.InstanceCacheWarmUpProperties.WARM_UP_PROGRESS;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.authentication.AuthenticationProxy;
+import org.symphonyoss.integration.exception.RemoteApiException;
+import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.pod.api.client.IntegrationHttpApiClient;
+import org.symphonyoss.integration.pod.api.client.IntegrationInstanceAdminApiClient;
+import org.symphonyoss.integration.pod.api.model.IntegrationInstanceList;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Loads the instances of the bootstrapped integrations into the instance cache, so the first
+ * webhook delivered to each instance doesn't need to reach the pod.
+ *
+ * The instances are listed page by page, and the next page is requested while the current one is
+ * processed. The warm-up runs in background with a bounded number of integrations loaded at the
+ * same time. Webhooks are accepted during the warm-up and the instances not loaded yet are read
+ * on demand.
+ *
+ * Created by rsanchez on 03/11/17.
+ */
+@Component
+public class InstanceCacheWarmUp {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(InstanceCacheWarmUp.class);
+
+  /**
+   * Number of integrations loaded at the same time
+   */
+  public static final String THREADS_KEY = "instance.warmup.threads";
+
+  public static final String DEFAULT_THREADS = "4";
+
+  /**
+   * Number of instances requested by page
+   */
+  public static final String PAGE_SIZE_KEY = "instance.warmup.page.size";
+
+  public static final String DEFAULT_PAGE_SIZE = "100";
+
+  @Autowired
+  private AuthenticationProxy authenticationProxy;
+
+  @Autowired
+  private LogMessageSource logMessage;
+
+  @Autowired
+  private IntegrationHttpApiClient client;
+
+  @Autowired
+  private CachedIntegrationService cachedIntegrationService;
+
+  @Autowired
+  private InstanceOptionsCache instanceOptionsCache;
+
+  private IntegrationInstanceAdminApiClient instanceApiClient;
+
+  private final int pageSize =
+      Integer.valueOf(System.getProperty(PAGE_SIZE_KEY, DEFAULT_PAGE_SIZE));
+
+  private final int threads = Integer.valueOf(System.getProperty(THREADS_KEY, DEFAULT_THREADS));
+
+  private final ExecutorService warmUpExecutor = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("InstanceWarmUp-%d").setDaemon(true).build());
+
+  /**
+   * Each warm-up waits for one page at most, so the page requests never starve
+   */
+  private final ExecutorService pageExecutor = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("InstanceWarmUpPage-%d").setDaemon(true).build());
+
+  @PostConstruct
+  public void init() {
+    this.instanceApiClient = new IntegrationInstanceAdminApiClient(client, logMessage);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    warmUpExecutor.shutdownNow();
+    pageExecutor.shutdownNow();
+  }
+
+  /**
+   * Schedules the warm-up of the instances that belong to the integration.
+   * @param configurationId Configuration identifier
+   * @param integrationUser Integration user
+   */
+  public void warmUp(final String configurationId, final String integrationUser) {
+    warmUpExecutor.submit(new Runnable() {
+      @Override
+      public void run() {
+        loadInstances(configurationId, integrationUser);
+      }
+    });
+  }
+
+  /**
+   * Pages through the instances of the integration, prefetching the next page while the current
+   * one is cached.
+   * @param configurationId Configuration identifier
+   * @param integrationUser Integration user
+   */
+  void loadInstances(String configurationId, String integrationUser) {
+    long start = System.currentTimeMillis();
+    int loaded = 0;
+    int offset = 0;
+
+    try {
+      CompletableFuture<IntegrationInstanceList> nextPage =
+          requestPage(configurationId, integrationUser, offset);
+
+      while (nextPage != null) {
+        IntegrationInstanceList page = nextPage.join();
+
+        if ((page == null) || (page.isEmpty())) {
+          break;
+        }
+
+        offset += page.size();
+        nextPage = (page.size() < pageSize) ? null
+            : requestPage(configurationId, integrationUser, offset);
+
+        for (IntegrationInstance instance : page) {
+          cachedIntegrationService.preload(instance, integrationUser);
+          parseOptions(instance);
+        }
+
+        loaded += page.size();
+
+        LOGGER.debug(logMessage.getMessage(WARM_UP_PROGRESS, integrationUser,
+            String.valueOf(loaded), String.valueOf(System.currentTimeMillis() - start)));
+      }
+
+      LOGGER.info(logMessage.getMessage(WARM_UP_FINISHED, integrationUser, String.valueOf(loaded),
+          String.valueOf(System.currentTimeMillis() - start)));
+    } catch (RuntimeException e) {
+      LOGGER.warn(logMessage.getMessage(WARM_UP_FAILED, integrationUser, String.valueOf(loaded)),
+          e);
+    }
+  }
+
+  private CompletableFuture<IntegrationInstanceList> requestPage(final String configurationId,
+      final String integrationUser, final int offset) {
+    return CompletableFuture.supplyAsync(new Supplier<IntegrationInstanceList>() {
+      @Override
+      public IntegrationInstanceList get() {
+        try {
+          return instanceApiClient.listInstances(
+              authenticationProxy.getSessionToken(integrationUser), configurationId, offset,
+              pageSize);
+        } catch (RemoteApiException e) {
+          throw new CompletionException(e);
+        }
+      }
+    }, pageExecutor);
+  }
+
+  /**
+   * Parses the optional properties ahead of the first webhook. Invalid properties are reported
+   * when the instance is used.
+   */
+  private void parseOptions(IntegrationInstance instance) {
+    try {
+      instanceOptionsCache.get(instance);
+    } catch (IOException e) {
+      LOGGER.debug("Skipping invalid optional properties of the instance {}",
+          instance.getInstanceId(), e);
+    }
+  }
+
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.config.model.InstanceOptions;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the parsed optional properties of the integration instances indexed by instance
+ * identifier.
+ *
+ * The cached entry is discarded when the instance is saved or whenever the optional properties
+ * of the instance don't match the JSON used to build the cached entry.
+ *
+ * It also keeps a reverse index from stream identifier to the cached instances configured to post
+ * on that stream. The index follows the cache entries, so it only knows the instances already
+ * parsed by this node.
+ *
+ * Created by rsanchez on 23/10/17.
+ */
+@Component
+public class InstanceOptionsCache {
+
+  /**
+   * Maximum number of instances to be cached
+   */
+  private static final String MAX_SIZE_KEY = "instance.options.cache.max.size";
+
+  private static final String DEFAULT_MAX_SIZE = "10000";
+
+  private final Cache<String, InstanceOptions> cache;
+
+  /**
+   * Instance identifiers indexed by stream identifier
+   */
+  private final ConcurrentMap<String, Set<String>> streamIndex = new ConcurrentHashMap<>();
+
+  /**
+   * Entries added to the stream index, indexed by instance identifier
+   */
+  private final ConcurrentMap<String, IndexEntry> indexedInstances = new ConcurrentHashMap<>();
+
+  public InstanceOptionsCache() {
+    long maxSize = Long.valueOf(System.getProperty(MAX_SIZE_KEY, DEFAULT_MAX_SIZE));
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .removalListener(new RemovalListener<String, InstanceOptions>() {
+          @Override
+          public void onRemoval(RemovalNotification<String, InstanceOptions> notification) {
+            unindex(notification.getKey(), notification.getValue());
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Retrieves the parsed optional properties of the integration instance.
+   * @param instance Integration instance
+   * @return Parsed instance options
+   * @throws IOException Reports failure to read the optional properties
+   */
+  public InstanceOptions get(IntegrationInstance instance) throws IOException {
+    String instanceId = instance.getInstanceId();
+    String optionalProperties = instance.getOptionalProperties();
+
+    if (instanceId == null) {
+      return InstanceOptions.parse(optionalProperties);
+    }
+
+    InstanceOptions options = cache.getIfPresent(instanceId);
+
+    if ((options == null) || (!options.isParsedFrom(optionalProperties))) {
+      options = InstanceOptions.parse(optionalProperties);
+      put(instance, options);
+    }
+
+    return options;
+  }
+
+  /**
+   * Parses the optional properties of a saved instance and replaces the cached entry, keeping the
+   * stream index up to date. The entry is discarded if the optional properties can't be parsed.
+   * @param instance Integration instance
+   */
+  public void update(IntegrationInstance instance) {
+    String instanceId = instance.getInstanceId();
+
+    if (instanceId == null) {
+      return;
+    }
+
+    try {
+      put(instance, InstanceOptions.parse(instance.getOptionalProperties()));
+    } catch (IOException e) {
+      invalidate(instanceId);
+    }
+  }
+
+  /**
+   * Retrieves the cached options for the given instance, if any.
+   * @param instanceId Instance identifier
+   * @return Parsed instance options or null if the instance wasn't cached
+   */
+  public InstanceOptions getIfPresent(String instanceId) {
+    return cache.getIfPresent(instanceId);
+  }
+
+  /**
+   * Discards the cached options for the given instance.
+   * @param instanceId Instance identifier
+   */
+  public void invalidate(String instanceId) {
+    if (instanceId != null) {
+      cache.invalidate(instanceId);
+    }
+  }
+
+  /**
+   * Retrieves the cached instances, from the given configuration, configured to post on the
+   * given stream.
+   * @param configurationId Configuration identifier
+   * @param stream Stream identifier
+   * @return Instance identifiers
+   */
+  public Set<String> getInstancesByStream(String configurationId, String stream) {
+    Set<String> instances = streamIndex.get(stream);
+
+    if (instances == null) {
+      return Collections.emptySet();
+    }
+
+    Set<String> result = new HashSet<>();
+
+    for (String instanceId : instances) {
+      IndexEntry entry = indexedInstances.get(instanceId);
+
+      if ((entry != null) && (configurationId == null || configurationId.equals(
+          entry.configurationId))) {
+        result.add(instanceId);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds the options to the stream index before caching them, so the removal listener can tell
+   * the replaced entry apart from an evicted one. Both steps run under the same lock, otherwise
+   * concurrent puts for the same instance could leave the index pointing to an entry that isn't
+   * the cached one.
+   * @param instance Integration instance
+   * @param options Parsed instance options
+   */
+  private synchronized void put(IntegrationInstance instance, InstanceOptions options) {
+    index(instance, options);
+    cache.put(instance.getInstanceId(), options);
+  }
+
+  private synchronized void index(IntegrationInstance instance, InstanceOptions options) {
+    String instanceId = instance.getInstanceId();
+    IndexEntry previous = indexedInstances.put(instanceId,
+        new IndexEntry(instance.getConfigurationId(), options));
+
+    if (previous != null) {
+      for (String stream : previous.options.getStreams()) {
+        if (!options.getStreams().contains(stream)) {
+          removeFromIndex(stream, instanceId);
+        }
+      }
+    }
+
+    for (String stream : options.getStreams()) {
+      Set<String> instances = streamIndex.get(stream);
+
+      if (instances == null) {
+        instances = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        streamIndex.put(stream, instances);
+      }
+
+      instances.add(instanceId);
+    }
+  }
+
+  /**
+   * Removes the instance from the stream index, unless the given options were already replaced
+   * by a newer entry.
+   * @param instanceId Instance identifier
+   * @param options Options discarded from the cache
+   */
+  private synchronized void unindex(String instanceId, InstanceOptions options) {
+    IndexEntry entry = indexedInstances.get(instanceId);
+
+    if ((entry == null) || (entry.options != options)) {
+      return;
+    }
+
+    indexedInstances.remove(instanceId);
+
+    for (String stream : options.getStreams()) {
+      removeFromIndex(stream, instanceId);
+    }
+  }
+
+  private void removeFromIndex(String stream, String instanceId) {
+    Set<String> instances = streamIndex.get(stream);
+
+    if (instances != null) {
+      instances.remove(instanceId);
+
+      if (instances.isEmpty()) {
+        streamIndex.remove(stream);
+      }
+    }
+  }
+
+  /**
+   * Options added to the stream index and the configuration they belong to.
+   */
+  private static final class IndexEntry {
+
+    private final String configurationId;
+
+    private final InstanceOptions options;
+
+    private IndexEntry(String configurationId, InstanceOptions options) {
+      this.configurationId = configurationId;
+      this.options = options;
+    }
+
+  }
+
+}
@@ -37,16 +37,25 @@ import static org.symphonyoss.integration.config.properties.LocalIntegrationServ
 import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.FAILED_TO_SAVE_INSTANCE;
 import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.FILE_NOT_FOUND;
 import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.FILE_NOT_FOUND_SOLUTION;
+import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.FAILED_TO_COMPACT_JOURNAL;
+import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.FAILED_TO_RELOAD_CONFIGURATION;
+import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.FAILED_TO_WATCH_CONFIGURATION;
+import static org.symphonyoss.integration.config.properties.LocalIntegrationServiceProperties.INVALID_JOURNAL_ENTRY;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.config.event.IntegrationConfigChangedEventData;
 import org.symphonyoss.integration.config.exception.ConfigurationNotFoundException;
 import org.symphonyoss.integration.config.exception.InitializationConfigException;
 import org.symphonyoss.integration.config.exception.InstanceNotFoundException;
@@ -54,27 +63,57 @@ import org.symphonyoss.integration.config.exception.InvalidConfigurationIdExcept
 import org.symphonyoss.integration.config.exception.InvalidInstanceIdException;
 import org.symphonyoss.integration.config.exception.SaveConfigurationException;
 import org.symphonyoss.integration.config.exception.SaveInstanceException;
+import org.symphonyoss.integration.config.model.ConfigurationTree;
 import org.symphonyoss.integration.config.model.IntegrationRepository;
+import org.symphonyoss.integration.config.model.JournalEntry;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationInstance;
 import org.symphonyoss.integration.model.config.IntegrationSettings;
 import org.symphonyoss.integration.service.IntegrationService;
 
+import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * Implementation of the {@link IntegrationService} that reads a JSON file to load the
  * integrations.
  *
+ * When the file is outside the classpath, the changes are appended to a journal file (one JSON
+ * entry per line) instead of rewriting the whole configuration. The journal is replayed on top of
+ * the snapshot during the startup and it's compacted into a new snapshot after a number of
+ * entries. Snapshots are written to a temporary file and then moved over the previous one.
+ *
+ * The snapshot may be written in the Smile binary format to speed up the startup. In that case,
+ * the binary snapshot takes precedence over the JSON file when it exists.
+ *
+ * The JSON file is watched for changes made outside the application. The integrations and
+ * instances changed since the last version of the file are applied to the repository and the
+ * affected integrations are notified through {@link IntegrationConfigChangedEventData}. The
+ * integrations removed from the file keep running until the application is restarted.
+ *
  * Created by rsanchez on 03/05/16.
  */
 @Component
@@ -85,6 +124,42 @@ public class LocalIntegrationService implements IntegrationService {
 
   private static final String DEFAULT_FILE_NAME = "configuration.json";
 
+  private static final String JOURNAL_SUFFIX = ".journal";
+
+  private static final String SMILE_SUFFIX = ".smile";
+
+  private static final String TMP_SUFFIX = ".tmp";
+
+  /**
+   * Snapshot format. Supported values: json and smile
+   */
+  public static final String SNAPSHOT_FORMAT_KEY = "config.snapshot.format";
+
+  public static final String JSON_FORMAT = "json";
+
+  public static final String SMILE_FORMAT = "smile";
+
+  /**
+   * Number of journal entries that triggers a new snapshot
+   */
+  public static final String COMPACTION_THRESHOLD_KEY = "config.journal.compaction.threshold";
+
+  public static final String DEFAULT_COMPACTION_THRESHOLD = "1000";
+
+  /**
+   * Flag to enable the hot reload of the configuration file
+   */
+  public static final String WATCH_ENABLED_KEY = "config.watch.enabled";
+
+  public static final String DEFAULT_WATCH_ENABLED = "true";
+
+  /**
+   * Time, in milliseconds, to wait for the configuration file to be completely written
+   */
+  public static final String WATCH_QUIET_PERIOD_KEY = "config.watch.quiet.period";
+
+  public static final String DEFAULT_WATCH_QUIET_PERIOD = "500";
+
   @Autowired
   private LogMessageSource logMessage;
 
@@ -108,22 +183,59 @@ public class LocalIntegrationService implements IntegrationService {
    */
   private volatile IntegrationRepository repository;
 
+  private String snapshotFormat;
+
+  private int compactionThreshold;
+
+  /**
+   * Journal file opened in append mode. Guarded by this object.
+   */
+  private FileOutputStream journal;
+
+  /**
+   * Number of entries written to the journal since the last snapshot. Guarded by this object.
+   */
+  private int journalEntries;
+
+  /**
+   * Nodes read from the last version of the JSON file. Guarded by this object.
+   */
+  private ConfigurationTree fileTree = ConfigurationTree.EMPTY;
+
+  private ConfigurationFileWatcher watcher;
+
   @Autowired
   private Environment environment;
 
+  @Autowired
+  private InstanceOptionsCache instanceOptionsCache;
+
+  @Autowired
+  private ApplicationEventPublisher publisher;
+
   @Override
   @PostConstruct
-  public void init() {
+  public synchronized void init() {
     this.fileName = environment.getProperty("config.filename", DEFAULT_FILE_NAME);
-    this.mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
     this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    this.mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
 
-    InputStream input = null;
+    this.snapshotFormat = System.getProperty(SNAPSHOT_FORMAT_KEY, JSON_FORMAT);
+    this.compactionThreshold = Integer.valueOf(
+        System.getProperty(COMPACTION_THRESHOLD_KEY, DEFAULT_COMPACTION_THRESHOLD));
+
+    closeJournal();
+    stopWatcher();
+    fileTree = ConfigurationTree.EMPTY;
 
     try {
-      input = getInputStream();
+      IntegrationRepository repository = readSnapshot();
+
+      if (saveFile) {
+        replayJournal(repository);
+      }
 
-      this.repository = mapper.readValue(input, IntegrationRepository.class);
+      this.repository = repository;
 
       LOGGER.info("File {} loaded successfully", fileName);
     } catch (IOException e) {
@@ -131,11 +243,265 @@ public class LocalIntegrationService implements IntegrationService {
       String solution = logMessage.getMessage(CONFIGURATION_FILE_EXCEPTION_SOLUTION, fileName);
 
       throw new InitializationConfigException(message, e, solution);
+    }
+
+    if (saveFile && Boolean.valueOf(System.getProperty(WATCH_ENABLED_KEY, DEFAULT_WATCH_ENABLED))) {
+      startWatcher();
+    }
+  }
+
+  @PreDestroy
+  public synchronized void destroy() {
+    stopWatcher();
+    closeJournal();
+  }
+
+  /**
+   * Starts watching the JSON file. The application keeps working without the hot reload if the
+   * file can't be watched.
+   */
+  private void startWatcher() {
+    long quietPeriod =
+        Long.valueOf(System.getProperty(WATCH_QUIET_PERIOD_KEY, DEFAULT_WATCH_QUIET_PERIOD));
+
+    try {
+      if (fileTree == ConfigurationTree.EMPTY) {
+        // Repository loaded from the binary snapshot
+        fileTree = readFileTree();
+      }
+
+      watcher = new ConfigurationFileWatcher(Paths.get(fileName), quietPeriod, new Runnable() {
+        @Override
+        public void run() {
+          reload();
+        }
+      });
+      watcher.start();
+    } catch (IOException e) {
+      LOGGER.error(logMessage.getMessage(FAILED_TO_WATCH_CONFIGURATION, fileName), e);
+    }
+  }
+
+  private void stopWatcher() {
+    if (watcher != null) {
+      watcher.close();
+      watcher = null;
+    }
+  }
+
+  private ConfigurationTree readFileTree() throws IOException {
+    File file = new File(fileName);
+
+    if (!file.exists()) {
+      return ConfigurationTree.EMPTY;
+    }
+
+    return ConfigurationTree.from(mapper.readTree(file));
+  }
+
+  /**
+   * Reloads the JSON file changed outside the application. Only the integrations and instances
+   * that differ from the last version of the file are applied to the repository. The new
+   * repository is swapped in at once and the affected integrations are notified afterwards.
+   */
+  void reload() {
+    List<IntegrationConfigChangedEventData> events;
+
+    try {
+      ConfigurationTree current = readFileTree();
+
+      synchronized (this) {
+        ConfigurationTree previous = fileTree;
+        fileTree = current;
+
+        events = applyChanges(previous, current);
+      }
+    } catch (IOException e) {
+      LOGGER.error(logMessage.getMessage(FAILED_TO_RELOAD_CONFIGURATION, fileName), e);
+      return;
+    }
+
+    for (IntegrationConfigChangedEventData event : events) {
+      publisher.publishEvent(event);
+    }
+  }
+
+  /**
+   * Applies the differences between two versions of the JSON file to a copy of the repository,
+   * then replaces the repository and writes a new snapshot with the merged changes.
+   * @param previous Previous version of the file
+   * @param current Current version of the file
+   * @return Events to notify the affected integrations
+   * @throws IOException Reports failure to read the changed nodes
+   */
+  private List<IntegrationConfigChangedEventData> applyChanges(ConfigurationTree previous,
+      ConfigurationTree current) throws IOException {
+    IntegrationRepository copy = new IntegrationRepository(repository);
+
+    Set<String> changedSettings = new HashSet<>();
+    Set<String> removedSettings = new HashSet<>();
+    Map<String, Set<String>> changedInstances = new HashMap<>();
+    Map<String, Set<String>> removedInstances = new HashMap<>();
+
+    for (Map.Entry<String, JsonNode> entry : current.getIntegrations().entrySet()) {
+      if (!entry.getValue().equals(previous.getIntegrations().get(entry.getKey()))) {
+        copy.putIntegration(mapper.treeToValue(entry.getValue(), IntegrationSettings.class));
+        changedSettings.add(entry.getKey());
+      }
+    }
+
+    for (String configurationId : previous.getIntegrations().keySet()) {
+      if (!current.getIntegrations().containsKey(configurationId)) {
+        copy.removeIntegration(configurationId);
+        removedSettings.add(configurationId);
+      }
+    }
+
+    List<IntegrationInstance> instances = new ArrayList<>();
+
+    for (Map.Entry<String, JsonNode> entry : current.getInstances().entrySet()) {
+      if (!entry.getValue().equals(previous.getInstances().get(entry.getKey()))) {
+        IntegrationInstance instance =
+            mapper.treeToValue(entry.getValue(), IntegrationInstance.class);
+        copy.putInstance(instance);
+        instances.add(instance);
+        addTo(changedInstances, instance.getConfigurationId(), instance.getInstanceId());
+      }
+    }
+
+    for (Map.Entry<String, JsonNode> entry : previous.getInstances().entrySet()) {
+      if (!current.getInstances().containsKey(entry.getKey())) {
+        copy.removeInstance(entry.getKey());
+        instanceOptionsCache.invalidate(entry.getKey());
+        addTo(removedInstances, ConfigurationTree.getConfigurationId(entry.getValue()),
+            entry.getKey());
+      }
+    }
+
+    if (changedSettings.isEmpty() && removedSettings.isEmpty() && instances.isEmpty()
+        && removedInstances.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    this.repository = copy;
+
+    for (IntegrationInstance instance : instances) {
+      instanceOptionsCache.update(instance);
+    }
+
+    LOGGER.info("File {} reloaded. Integrations changed: {}, removed: {}. Instances changed: {}",
+        fileName, changedSettings.size(), removedSettings.size(), instances.size());
+
+    // The snapshot must hold the changes from both the file and the journal
+    compact();
+
+    Set<String> affected = new HashSet<>(changedSettings);
+    affected.addAll(changedInstances.keySet());
+    affected.addAll(removedInstances.keySet());
+
+    List<IntegrationConfigChangedEventData> events = new ArrayList<>();
+
+    for (String configurationId : affected) {
+      IntegrationSettings settings = copy.getIntegrationById(configurationId);
+
+      if (settings != null) {
+        events.add(new IntegrationConfigChangedEventData(settings,
+            changedSettings.contains(configurationId),
+            getOrEmpty(changedInstances, configurationId),
+            getOrEmpty(removedInstances, configurationId)));
+      }
+    }
+
+    return events;
+  }
+
+  private void addTo(Map<String, Set<String>> map, String key, String value) {
+    Set<String> values = map.get(key);
+
+    if (values == null) {
+      values = new HashSet<>();
+      map.put(key, values);
+    }
+
+    values.add(value);
+  }
+
+  private Set<String> getOrEmpty(Map<String, Set<String>> map, String key) {
+    Set<String> values = map.get(key);
+    return values != null ? values : Collections.<String>emptySet();
+  }
+
+  /**
+   * Reads the last snapshot. The binary snapshot is used if it's enabled and it was already
+   * written, otherwise the JSON file is read.
+   * @return Integration repository
+   * @throws IOException Reports failure to read the snapshot
+   */
+  private IntegrationRepository readSnapshot() throws IOException {
+    File binarySnapshot = getBinarySnapshotFile();
+
+    if (SMILE_FORMAT.equals(snapshotFormat) && binarySnapshot.exists()) {
+      LOGGER.info("Reading binary snapshot {}", binarySnapshot.getPath());
+      saveFile = true;
+      return new ObjectMapper(new SmileFactory())
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+          .readValue(binarySnapshot, IntegrationRepository.class);
+    }
+
+    InputStream input = null;
+
+    try {
+      input = getInputStream();
+
+      JsonNode root = mapper.readTree(input);
+      fileTree = ConfigurationTree.from(root);
+
+      return mapper.treeToValue(root, IntegrationRepository.class);
     } finally {
       closeStream(input);
     }
   }
 
+  /**
+   * Applies the changes written to the journal after the last snapshot. An entry that can't be
+   * parsed (i.e. partially written before a crash) is skipped.
+   * @param repository Integration repository
+   * @throws IOException Reports failure to read the journal
+   */
+  private void replayJournal(IntegrationRepository repository) throws IOException {
+    File journalFile = getJournalFile();
+    journalEntries = 0;
+
+    if (!journalFile.exists()) {
+      return;
+    }
+
+    BufferedReader reader = null;
+
+    try {
+      reader = new BufferedReader(
+          new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8));
+
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+
+        try {
+          mapper.readValue(line, JournalEntry.class).applyTo(repository);
+          journalEntries++;
+        } catch (JsonProcessingException e) {
+          LOGGER.warn(logMessage.getMessage(INVALID_JOURNAL_ENTRY, journalFile.getPath()), e);
+        }
+      }
+    } finally {
+      closeStream(reader);
+    }
+
+    LOGGER.info("{} journal entries applied from {}", journalEntries, journalFile.getPath());
+  }
+
   /**
    * Read the local file.
    * @return
@@ -195,11 +561,9 @@ public class LocalIntegrationService implements IntegrationService {
       throw new InvalidConfigurationIdException(message, solution);
     }
 
-    List<IntegrationSettings> integrations = repository.getIntegrations();
-    for (IntegrationSettings settings : integrations) {
-      if (integrationType.equals(settings.getType())) {
-        return settings;
-      }
+    IntegrationSettings settings = repository.getIntegrationByType(integrationType);
+    if (settings != null) {
+      return settings;
     }
 
     String message = logMessage.getMessage(INTEGRATION_TYPE_NOT_FOUND, integrationType);
@@ -217,10 +581,7 @@ public class LocalIntegrationService implements IntegrationService {
     }
 
     try {
-      IntegrationRepository copy = new IntegrationRepository(repository);
-      copy.putIntegration(settings);
-
-      saveRepository(copy);
+      commit(new JournalEntry(settings));
 
       return settings;
     } catch (IOException e) {
@@ -232,23 +593,106 @@ public class LocalIntegrationService implements IntegrationService {
   }
 
   /**
-   * Save the repository class into a local file.
-   * @param repository Repository object
-   * @throws IOException
+   * Appends the change to the journal and applies it to the repository. A new snapshot is written
+   * when the journal reaches the compaction threshold.
+   * @param entry Change to be saved
+   * @throws IOException Reports failure to write the journal
    */
-  private void saveRepository(IntegrationRepository repository) throws IOException {
+  private synchronized void commit(JournalEntry entry) throws IOException {
     if (saveFile) {
-      OutputStream output = null;
-      try {
-        output = new FileOutputStream(fileName);
-        this.mapper.writeValue(output, repository);
-        this.repository = repository;
-      } finally {
-        closeStream(output);
-      }
+      appendToJournal(entry);
+    }
+
+    entry.applyTo(repository);
+
+    if (saveFile && (++journalEntries >= compactionThreshold)) {
+      compact();
+    }
+  }
+
+  /**
+   * Writes the entry as a single line at the end of the journal. The journal is truncated back
+   * to its previous size if the entry can't be fully written.
+   * @param entry Change to be saved
+   * @throws IOException Reports failure to write the journal
+   */
+  private void appendToJournal(JournalEntry entry) throws IOException {
+    if (journal == null) {
+      journal = new FileOutputStream(getJournalFile(), true);
+    }
+
+    FileChannel channel = journal.getChannel();
+    long position = channel.position();
+
+    try {
+      mapper.writeValue(journal, entry);
+      journal.write('\n');
+    } catch (IOException e) {
+      channel.truncate(position);
+      throw e;
+    }
+  }
+
+  /**
+   * Writes a new snapshot and discards the journal. The journal is kept if the snapshot can't be
+   * written, so no change is lost.
+   */
+  private void compact() {
+    try {
+      writeSnapshot();
+
+      closeJournal();
+      Files.deleteIfExists(getJournalFile().toPath());
+      journalEntries = 0;
+
+      LOGGER.info("Journal compacted into the snapshot of {}", fileName);
+    } catch (IOException e) {
+      LOGGER.error(logMessage.getMessage(FAILED_TO_COMPACT_JOURNAL, fileName), e);
     }
   }
 
+  /**
+   * Writes the repository to a temporary file and then replaces the previous snapshot.
+   * @throws IOException Reports failure to write the snapshot
+   */
+  private void writeSnapshot() throws IOException {
+    File snapshot;
+    File tmp;
+
+    if (SMILE_FORMAT.equals(snapshotFormat)) {
+      snapshot = getBinarySnapshotFile();
+      tmp = new File(snapshot.getPath() + TMP_SUFFIX);
+      new ObjectMapper(new SmileFactory()).writeValue(tmp, repository);
+    } else {
+      snapshot = new File(fileName);
+      tmp = new File(fileName + TMP_SUFFIX);
+      mapper.writerWithDefaultPrettyPrinter().writeValue(tmp, repository);
+
+      // Keeps the watcher from reloading the file written by this application
+      fileTree = ConfigurationTree.from(mapper.readTree(tmp));
+    }
+
+    try {
+      Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private File getJournalFile() {
+    return new File(fileName + JOURNAL_SUFFIX);
+  }
+
+  private File getBinarySnapshotFile() {
+    return new File(fileName + SMILE_SUFFIX);
+  }
+
+  private void closeJournal() {
+    closeStream(journal);
+    journal = null;
+  }
+
   @Override
   public IntegrationInstance getInstanceById(String configurationId, String instanceId,
       String userId) {
@@ -281,10 +725,8 @@ public class LocalIntegrationService implements IntegrationService {
     }
 
     try {
-      IntegrationRepository copy = new IntegrationRepository(repository);
-      copy.putInstance(instance);
-
-      saveRepository(copy);
+      commit(new JournalEntry(instance));
+      instanceOptionsCache.update(instance);
 
       return instance;
     } catch (IOException e) {
@@ -18,6 +18,7 @@ package org.symphonyoss.integration.config;
 
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static org.symphonyoss.integration.config.properties.RemoteIntegrationServiceProperties.FORBIDDEN_USER;
 import static org.symphonyoss.integration.config.properties.RemoteIntegrationServiceProperties.FORBIDDEN_USER_SOLUTION;
 import static org.symphonyoss.integration.config.properties.RemoteIntegrationServiceProperties.INTEGRATION_INSTANCE_NOT_FOUND;
@@ -54,6 +55,9 @@ import javax.annotation.PostConstruct;
 /**
  * Reads configurations from any configured server.
  *
+ * Saving settings or instances tries the update first, so the common case costs a single round
+ * trip. The existence of the entity is only checked when the update is rejected.
+ *
  * Created by mquilzini on 26/05/16.
  */
 @Component
@@ -68,6 +72,9 @@ public class RemoteIntegrationService implements IntegrationService {
   @Autowired
   private IntegrationHttpApiClient client;
 
+  @Autowired
+  private InstanceOptionsCache instanceOptionsCache;
+
   private IntegrationApiClient configurationApiClient;
 
   private IntegrationInstanceAdminApiClient instanceApiClient;
@@ -135,11 +142,11 @@ public class RemoteIntegrationService implements IntegrationService {
 
   @Override
   public IntegrationSettings save(IntegrationSettings settings, String userId) {
-    if (integrationExists(settings, userId)) {
-      return updateIntegration(settings, userId);
-    } else {
+    if (settings.getConfigurationId() == null) {
       return createIntegration(settings, userId);
     }
+
+    return updateIntegration(settings, userId);
   }
 
   @Override
@@ -164,11 +171,9 @@ public class RemoteIntegrationService implements IntegrationService {
 
   @Override
   public IntegrationInstance save(IntegrationInstance instance, String userId) {
-    if (instanceExists(instance, userId)) {
-      return updateInstance(instance, userId);
-    } else {
-      throw new UnsupportedOperationException(logMessage.getMessage(INTEGRATION_INSTANCE_UNSUPPORTED_OPERATION));
-    }
+    IntegrationInstance result = updateInstance(instance, userId);
+    instanceOptionsCache.update(instance);
+    return result;
   }
 
   private IntegrationSettings createIntegration(IntegrationSettings settings, String userId)
@@ -192,6 +197,10 @@ public class RemoteIntegrationService implements IntegrationService {
     }
   }
 
+  /**
+   * Updates the integration settings. Creates the integration if the update is rejected
+   * because the integration doesn't exist.
+   */
   private IntegrationSettings updateIntegration(IntegrationSettings settings, String userId)
       throws RemoteConfigurationException {
     IntegrationSubmissionCreate create = buildIntegrationSubmission(settings);
@@ -202,6 +211,12 @@ public class RemoteIntegrationService implements IntegrationService {
     } catch (RemoteApiException e) {
       checkExceptionCodeForbidden(e);
 
+      if ((e.getCode() == NOT_FOUND.getStatusCode())
+          || ((e.getCode() == BAD_REQUEST.getStatusCode())
+          && !integrationExists(settings, userId))) {
+        return createIntegration(settings, userId);
+      }
+
       if (e.getCode() == BAD_REQUEST.getStatusCode()) {
         String message = logMessage.getMessage(INVALID_INTEGRATION_SETTINGS);
         String solution = logMessage.getMessage(INVALID_INTEGRATION_SETTINGS_SOLUTION);
@@ -241,6 +256,11 @@ public class RemoteIntegrationService implements IntegrationService {
     }
   }
 
+  /**
+   * Updates the integration instance. The pod reports missing instances either as not found or
+   * as bad request, so the existence of the instance is only checked when the update is rejected
+   * as bad request.
+   */
   private IntegrationInstance updateInstance(IntegrationInstance instance, String userId) throws RemoteConfigurationException {
     IntegrationInstanceSubmissionUpdate instanceUpdate = new IntegrationInstanceSubmissionUpdate();
     instanceUpdate.setInstanceId(instance.getInstanceId());
@@ -253,6 +273,12 @@ public class RemoteIntegrationService implements IntegrationService {
     } catch (RemoteApiException e) {
       checkExceptionCodeForbidden(e);
 
+      if ((e.getCode() == NOT_FOUND.getStatusCode())
+          || ((e.getCode() == BAD_REQUEST.getStatusCode()) && !instanceExists(instance, userId))) {
+        throw new UnsupportedOperationException(
+            logMessage.getMessage(INTEGRATION_INSTANCE_UNSUPPORTED_OPERATION));
+      }
+
       if (e.getCode() == BAD_REQUEST.getStatusCode()) {
         String message = logMessage.getMessage(INVALID_INTEGRATION_INSTANCE);
         String solution = logMessage.getMessage(INVALID_INTEGRATION_INSTANCE_SOLUTION);
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config.event;
+
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Event raised when the configuration of an integration, or any of its instances, was changed
+ * outside the application and reloaded.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+public class IntegrationConfigChangedEventData {
+
+  private final IntegrationSettings settings;
+
+  private final boolean settingsChanged;
+
+  private final Set<String> changedInstances;
+
+  private final Set<String> removedInstances;
+
+  public IntegrationConfigChangedEventData(IntegrationSettings settings, boolean settingsChanged,
+      Set<String> changedInstances, Set<String> removedInstances) {
+    this.settings = settings;
+    this.settingsChanged = settingsChanged;
+    this.changedInstances = Collections.unmodifiableSet(changedInstances);
+    this.removedInstances = Collections.unmodifiableSet(removedInstances);
+  }
+
+  public IntegrationSettings getSettings() {
+    return settings;
+  }
+
+  public boolean isSettingsChanged() {
+    return settingsChanged;
+  }
+
+  /**
+   * Instances created or updated
+   */
+  public Set<String> getChangedInstances() {
+    return changedInstances;
+  }
+
+  public Set<String> getRemovedInstances() {
+    return removedInstances;
+  }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JSON nodes of the integrations and instances read from the configuration file, indexed by
+ * identifier. Used to find out which entries were changed between two versions of the file.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+public final class ConfigurationTree {
+
+  public static final ConfigurationTree EMPTY = new ConfigurationTree(
+      Collections.<String, JsonNode>emptyMap(), Collections.<String, JsonNode>emptyMap());
+
+  private static final String CONFIGURATIONS = "configurations";
+
+  private static final String INTEGRATIONS = "integrations";
+
+  private static final String INSTANCES = "instances";
+
+  private static final String CONFIGURATION_ID = "configurationId";
+
+  private static final String INSTANCE_ID = "instanceId";
+
+  private final Map<String, JsonNode> integrations;
+
+  private final Map<String, JsonNode> instances;
+
+  private ConfigurationTree(Map<String, JsonNode> integrations, Map<String, JsonNode> instances) {
+    this.integrations = Collections.unmodifiableMap(integrations);
+    this.instances = Collections.unmodifiableMap(instances);
+  }
+
+  /**
+   * Indexes the nodes of the configuration file.
+   * @param root Root node of the configuration file
+   * @return Configuration tree
+   */
+  public static ConfigurationTree from(JsonNode root) {
+    Map<String, JsonNode> integrations = new HashMap<>();
+    index(root.path(CONFIGURATIONS), CONFIGURATION_ID, integrations);
+    index(root.path(INTEGRATIONS), CONFIGURATION_ID, integrations);
+
+    Map<String, JsonNode> instances = new HashMap<>();
+    index(root.path(INSTANCES), INSTANCE_ID, instances);
+
+    return new ConfigurationTree(integrations, instances);
+  }
+
+  private static void index(JsonNode array, String idField, Map<String, JsonNode> result) {
+    for (JsonNode node : array) {
+      JsonNode id = node.path(idField);
+
+      if (id.isTextual()) {
+        result.put(id.asText(), node);
+      }
+    }
+  }
+
+  /**
+   * Integration nodes indexed by configuration identifier
+   */
+  public Map<String, JsonNode> getIntegrations() {
+    return integrations;
+  }
+
+  /**
+   * Instance nodes indexed by instance identifier
+   */
+  public Map<String, JsonNode> getInstances() {
+    return instances;
+  }
+
+  /**
+   * Retrieves the configuration identifier of an instance node.
+   * @param instance Instance node
+   * @return Configuration identifier or null if the node doesn't have it
+   */
+  public static String getConfigurationId(JsonNode instance) {
+    JsonNode id = instance.path(CONFIGURATION_ID);
+    return id.isTextual() ? id.asText() : null;
+  }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config.model;
+
+import static org.symphonyoss.integration.utils.WebHookConfigurationUtils.OWNER;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.lang3.StringUtils;
+import org.symphonyoss.integration.model.stream.StreamType;
+import org.symphonyoss.integration.utils.WebHookConfigurationUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the optional properties of an integration instance. Holds the JSON already
+ * parsed, so the message delivery path doesn't need to read the same JSON for every message.
+ *
+ * Created by rsanchez on 23/10/17.
+ */
+public final class InstanceOptions {
+
+  private static final String ROOMS = "rooms";
+
+  private static final String STREAM_ID = "streamId";
+
+  private static final String ROOM_NAME = "roomName";
+
+  /**
+   * Raw JSON used to build this object
+   */
+  private final String optionalProperties;
+
+  private final List<String> streams;
+
+  private final StreamType streamType;
+
+  private final Long owner;
+
+  /**
+   * Room names indexed by the URL-safe stream identifier
+   */
+  private final Map<String, String> roomNames;
+
+  private InstanceOptions(String optionalProperties, List<String> streams,
+      StreamType streamType, Long owner, Map<String, String> roomNames) {
+    this.optionalProperties = optionalProperties;
+    this.streams = Collections.unmodifiableList(streams);
+    this.streamType = streamType;
+    this.owner = owner;
+    this.roomNames = Collections.unmodifiableMap(roomNames);
+  }
+
+  /**
+   * Parse the optional properties of an integration instance.
+   * @param optionalProperties JSON string
+   * @return Parsed instance options
+   * @throws IOException Reports failure to read the JSON
+   */
+  public static InstanceOptions parse(String optionalProperties) throws IOException {
+    List<String> streams = new ArrayList<>(WebHookConfigurationUtils.getStreams(optionalProperties));
+    StreamType streamType = WebHookConfigurationUtils.getStreamType(optionalProperties);
+
+    Long owner = null;
+    Map<String, String> roomNames = new HashMap<>();
+
+    if (StringUtils.isNotBlank(optionalProperties)) {
+      JsonNode node = WebHookConfigurationUtils.fromJsonString(optionalProperties);
+
+      JsonNode ownerNode = node.path(OWNER);
+      if (!ownerNode.isMissingNode() && !ownerNode.isNull()) {
+        owner = ownerNode.asLong();
+      }
+
+      Iterator<JsonNode> rooms = node.path(ROOMS).iterator();
+      while (rooms.hasNext()) {
+        JsonNode room = rooms.next();
+        String stream = normalizeStreamId(room.path(STREAM_ID).asText());
+
+        if (!roomNames.containsKey(stream)) {
+          roomNames.put(stream, room.path(ROOM_NAME).asText());
+        }
+      }
+    }
+
+    return new InstanceOptions(optionalProperties, streams, streamType, owner, roomNames);
+  }
+
+  /**
+   * Removes URL unsafe chars from the stream identifier, so it can be compared to the streams
+   * used to post messages.
+   * @param streamId Stream identifier
+   * @return URL-safe stream identifier
+   */
+  public static String normalizeStreamId(String streamId) {
+    return streamId.replaceAll("/", "_").replace("==", "");
+  }
+
+  /**
+   * Check if this object was built from the given JSON.
+   * @param optionalProperties JSON string
+   * @return true if the JSON is the same used to build this object
+   */
+  public boolean isParsedFrom(String optionalProperties) {
+    return StringUtils.equals(this.optionalProperties, optionalProperties);
+  }
+
+  public String getOptionalProperties() {
+    return optionalProperties;
+  }
+
+  public List<String> getStreams() {
+    return streams;
+  }
+
+  public StreamType getStreamType() {
+    return streamType;
+  }
+
+  public Long getOwner() {
+    return owner;
+  }
+
+  public Map<String, String> getRoomNames() {
+    return roomNames;
+  }
+
+  /**
+   * Retrieves the room name for the given stream.
+   * @param stream URL-safe stream identifier
+   * @return Room name or an empty string if the room name is unknown
+   */
+  public String getRoomName(String stream) {
+    String roomName = roomNames.get(stream);
+    return roomName != null ? roomName : StringUtils.EMPTY;
+  }
+
+}
@@ -20,26 +20,36 @@ import org.symphonyoss.integration.model.config.IntegrationInstance;
 import org.symphonyoss.integration.model.config.IntegrationSettings;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Repository class to map a list of integrations and integration instances.
  *
+ * The integrations are also indexed by type, so the lookup by type doesn't need to scan all the
+ * integrations. The maps are thread-safe, so readers don't need to copy the repository while it's
+ * being changed.
+ *
  * Created by rsanchez on 09/05/16.
  */
 public class IntegrationRepository {
 
-  private Map<String, IntegrationSettings> integrationMap = new HashMap<>();
+  private Map<String, IntegrationSettings> integrationMap = new ConcurrentHashMap<>();
+
+  private Map<String, IntegrationInstance> instanceMap = new ConcurrentHashMap<>();
 
-  private Map<String, IntegrationInstance> instanceMap = new HashMap<>();
+  /**
+   * Configuration identifiers indexed by integration type
+   */
+  private Map<String, String> typeIndex = new ConcurrentHashMap<>();
 
   public IntegrationRepository() {}
 
   public IntegrationRepository(IntegrationRepository repository) {
     this.integrationMap.putAll(repository.integrationMap);
     this.instanceMap.putAll(repository.instanceMap);
+    this.typeIndex.putAll(repository.typeIndex);
   }
 
   public List<IntegrationSettings> getIntegrations() {
@@ -48,16 +58,50 @@ public class IntegrationRepository {
 
   public void setConfigurations(List<IntegrationSettings> integrations) {
     for (IntegrationSettings settings : integrations) {
-      this.integrationMap.put(settings.getConfigurationId(), settings);
+      putIntegration(settings);
     }
   }
 
+  /**
+   * Same as {@link #setConfigurations(List)}. Required to read the files written by this class.
+   * @param integrations Integration list
+   */
+  public void setIntegrations(List<IntegrationSettings> integrations) {
+    setConfigurations(integrations);
+  }
+
   public IntegrationSettings getIntegrationById(String id) {
     return this.integrationMap.get(id);
   }
 
+  public IntegrationSettings getIntegrationByType(String type) {
+    String configurationId = this.typeIndex.get(type);
+    return configurationId != null ? this.integrationMap.get(configurationId) : null;
+  }
+
   public IntegrationSettings putIntegration(IntegrationSettings settings) {
-    return this.integrationMap.put(settings.getConfigurationId(), settings);
+    String configurationId = settings.getConfigurationId();
+    IntegrationSettings previous = this.integrationMap.put(configurationId, settings);
+
+    if ((previous != null) && (previous.getType() != null)) {
+      this.typeIndex.remove(previous.getType(), configurationId);
+    }
+
+    if (settings.getType() != null) {
+      this.typeIndex.put(settings.getType(), configurationId);
+    }
+
+    return previous;
+  }
+
+  public IntegrationSettings removeIntegration(String id) {
+    IntegrationSettings previous = this.integrationMap.remove(id);
+
+    if ((previous != null) && (previous.getType() != null)) {
+      this.typeIndex.remove(previous.getType(), id);
+    }
+
+    return previous;
   }
 
   public List<IntegrationInstance> getInstances() {
@@ -78,4 +122,8 @@ public class IntegrationRepository {
     return this.instanceMap.put(instance.getInstanceId(), instance);
   }
 
+  public IntegrationInstance removeInstance(String id) {
+    return this.instanceMap.remove(id);
+  }
+
 }
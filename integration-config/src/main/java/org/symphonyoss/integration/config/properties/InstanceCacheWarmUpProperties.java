@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config.properties;
+
+import org.symphonyoss.integration.config.InstanceCacheWarmUp;
+
+/**
+ * Log message keys used by the component {@link InstanceCacheWarmUp}
+ * Created by rsanchez on 03/11/17.
+ */
+public class InstanceCacheWarmUpProperties {
+
+  public static final String WARM_UP_PROGRESS = "integration.config.warmup.progress";
+
+  public static final String WARM_UP_FINISHED = "integration.config.warmup.finished";
+
+  public static final String WARM_UP_FAILED = "integration.config.warmup.failed";
+
+}
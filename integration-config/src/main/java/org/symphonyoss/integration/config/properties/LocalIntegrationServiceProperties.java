@@ -65,4 +65,12 @@ public class LocalIntegrationServiceProperties {
 
   public static final String INTEGRATION_INSTANCE_NOT_FOUND_SOLUTION = INTEGRATION_INSTANCE_NOT_FOUND + ".solution";
 
+  public static final String INVALID_JOURNAL_ENTRY = "integration.local.journal.invalid.entry";
+
+  public static final String FAILED_TO_COMPACT_JOURNAL = "integration.local.journal.compaction.failed";
+
+  public static final String FAILED_TO_WATCH_CONFIGURATION = "integration.local.watch.failed";
+
+  public static final String FAILED_TO_RELOAD_CONFIGURATION = "integration.local.reload.failed";
+
 }
@@ -0,0 +1,228 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.symphonyoss.integration.exception.config.RemoteConfigurationException;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.config.IntegrationSettings;
+import org.symphonyoss.integration.service.IntegrationService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link CachedIntegrationService}
+ *
+ * Created by rsanchez on 02/11/17.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachedIntegrationServiceTest {
+
+  private static final String USER_ID = "userId";
+
+  private static final String CONFIGURATION_ID = "configurationId";
+
+  private static final String INSTANCE_ID = "instanceId";
+
+  @Mock
+  private IntegrationService delegate;
+
+  @InjectMocks
+  private CachedIntegrationService cachedIntegrationService;
+
+  private IntegrationInstance instance;
+
+  @Before
+  public void init() {
+    cachedIntegrationService.init();
+
+    instance = new IntegrationInstance();
+    instance.setConfigurationId(CONFIGURATION_ID);
+    instance.setInstanceId(INSTANCE_ID);
+  }
+
+  @After
+  public void cleanup() {
+    cachedIntegrationService.destroy();
+  }
+
+  @Test
+  public void testGetInstanceCached() {
+    doReturn(instance).when(delegate).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    assertSame(instance,
+        cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID));
+    assertSame(instance,
+        cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID));
+
+    verify(delegate, times(1)).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+  }
+
+  @Test
+  public void testSaveInstanceInvalidatesCache() {
+    doReturn(instance).when(delegate).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    doReturn(instance).when(delegate).save(instance, USER_ID);
+
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    cachedIntegrationService.save(instance, USER_ID);
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    verify(delegate, times(2)).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+  }
+
+  @Test
+  public void testSaveInstanceInvalidatesCacheForEveryUser() {
+    String otherUser = "otherUserId";
+
+    doReturn(instance).when(delegate).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    doReturn(instance).when(delegate).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, otherUser);
+    doReturn(instance).when(delegate).save(instance, USER_ID);
+
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, otherUser);
+    cachedIntegrationService.save(instance, USER_ID);
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, otherUser);
+
+    verify(delegate, times(2)).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    verify(delegate, times(2)).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, otherUser);
+  }
+
+  @Test
+  public void testSavePreloadedInstanceInvalidatesCache() {
+    doReturn(instance).when(delegate).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    doReturn(instance).when(delegate).save(instance, USER_ID);
+
+    cachedIntegrationService.preload(instance, USER_ID);
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    verify(delegate, never()).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    cachedIntegrationService.save(instance, USER_ID);
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    verify(delegate, times(1)).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+  }
+
+  @Test
+  public void testSaveInstanceFailureKeepsCache() {
+    doReturn(instance).when(delegate).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    doThrow(RemoteConfigurationException.class).when(delegate).save(instance, USER_ID);
+
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    try {
+      cachedIntegrationService.save(instance, USER_ID);
+      fail();
+    } catch (RemoteConfigurationException e) {
+      cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+    }
+
+    verify(delegate, times(1)).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+  }
+
+  @Test
+  public void testSaveSettingsInvalidatesCache() {
+    IntegrationSettings settings = new IntegrationSettings();
+    settings.setConfigurationId(CONFIGURATION_ID);
+
+    doReturn(settings).when(delegate).getIntegrationById(CONFIGURATION_ID, USER_ID);
+    doReturn(settings).when(delegate).save(settings, USER_ID);
+
+    cachedIntegrationService.getIntegrationById(CONFIGURATION_ID, USER_ID);
+    cachedIntegrationService.getIntegrationById(CONFIGURATION_ID, USER_ID);
+    cachedIntegrationService.save(settings, USER_ID);
+    cachedIntegrationService.getIntegrationById(CONFIGURATION_ID, USER_ID);
+
+    verify(delegate, times(2)).getIntegrationById(CONFIGURATION_ID, USER_ID);
+  }
+
+  @Test(expected = RemoteConfigurationException.class)
+  public void testRemoteFailure() {
+    doThrow(RemoteConfigurationException.class).when(delegate)
+        .getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+  }
+
+  @Test
+  public void testConcurrentMissesCoalesced() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    doAnswer(new Answer<IntegrationInstance>() {
+      @Override
+      public IntegrationInstance answer(InvocationOnMock invocation) throws Throwable {
+        latch.await(5, TimeUnit.SECONDS);
+        return instance;
+      }
+    }).when(delegate).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+
+    int requests = 10;
+    ExecutorService executor = Executors.newFixedThreadPool(requests);
+
+    try {
+      List<Future<IntegrationInstance>> results = new ArrayList<>();
+
+      for (int i = 0; i < requests; i++) {
+        results.add(executor.submit(new Callable<IntegrationInstance>() {
+          @Override
+          public IntegrationInstance call() throws Exception {
+            return cachedIntegrationService.getInstanceById(CONFIGURATION_ID, INSTANCE_ID,
+                USER_ID);
+          }
+        }));
+      }
+
+      latch.countDown();
+
+      for (Future<IntegrationInstance> result : results) {
+        assertSame(instance, result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    verify(delegate, times(1)).getInstanceById(CONFIGURATION_ID, INSTANCE_ID, USER_ID);
+  }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.symphonyoss.integration.authentication.AuthenticationProxy;
+import org.symphonyoss.integration.exception.RemoteApiException;
+import org.symphonyoss.integration.logging.LogMessageSource;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.pod.api.client.IntegrationInstanceAdminApiClient;
+import org.symphonyoss.integration.pod.api.model.IntegrationInstanceList;
+
+/**
+ * Unit tests for {@link InstanceCacheWarmUp}
+ *
+ * Created by rsanchez on 03/11/17.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class InstanceCacheWarmUpTest {
+
+  private static final String USER_ID = "userId";
+
+  private static final String CONFIGURATION_ID = "configurationId";
+
+  private static final String TOKEN = "token";
+
+  private static final int PAGE_SIZE = Integer.valueOf(InstanceCacheWarmUp.DEFAULT_PAGE_SIZE);
+
+  @Mock
+  private AuthenticationProxy authenticationProxy;
+
+  @Mock
+  private LogMessageSource logMessage;
+
+  @Mock
+  private IntegrationInstanceAdminApiClient instanceApiClient;
+
+  @Mock
+  private CachedIntegrationService cachedIntegrationService;
+
+  @Spy
+  private InstanceOptionsCache instanceOptionsCache = new InstanceOptionsCache();
+
+  @InjectMocks
+  private InstanceCacheWarmUp instanceCacheWarmUp;
+
+  @Before
+  public void init() {
+    doReturn(TOKEN).when(authenticationProxy).getSessionToken(USER_ID);
+  }
+
+  @After
+  public void cleanup() {
+    instanceCacheWarmUp.destroy();
+  }
+
+  @Test
+  public void testLoadInstances() throws RemoteApiException {
+    doReturn(buildPage(0, PAGE_SIZE)).when(instanceApiClient)
+        .listInstances(TOKEN, CONFIGURATION_ID, 0, PAGE_SIZE);
+    doReturn(buildPage(PAGE_SIZE, 1)).when(instanceApiClient)
+        .listInstances(TOKEN, CONFIGURATION_ID, PAGE_SIZE, PAGE_SIZE);
+
+    instanceCacheWarmUp.loadInstances(CONFIGURATION_ID, USER_ID);
+
+    verify(cachedIntegrationService, times(PAGE_SIZE + 1)).preload(any(IntegrationInstance.class),
+        eq(USER_ID));
+    verify(instanceApiClient, never()).listInstances(TOKEN, CONFIGURATION_ID, PAGE_SIZE + 1,
+        PAGE_SIZE);
+  }
+
+  @Test
+  public void testLoadInstancesFailure() throws RemoteApiException {
+    doReturn(buildPage(0, PAGE_SIZE)).when(instanceApiClient)
+        .listInstances(TOKEN, CONFIGURATION_ID, 0, PAGE_SIZE);
+    doThrow(RemoteApiException.class).when(instanceApiClient)
+        .listInstances(TOKEN, CONFIGURATION_ID, PAGE_SIZE, PAGE_SIZE);
+
+    instanceCacheWarmUp.loadInstances(CONFIGURATION_ID, USER_ID);
+
+    // The first page is kept
+    verify(cachedIntegrationService, times(PAGE_SIZE)).preload(any(IntegrationInstance.class),
+        eq(USER_ID));
+  }
+
+  private IntegrationInstanceList buildPage(int offset, int size) {
+    IntegrationInstanceList page = new IntegrationInstanceList();
+
+    for (int i = offset; i < offset + size; i++) {
+      IntegrationInstance instance = new IntegrationInstance();
+      instance.setConfigurationId(CONFIGURATION_ID);
+      instance.setInstanceId(String.valueOf(i));
+      instance.setOptionalProperties("{}");
+      page.add(instance);
+    }
+
+    return page;
+  }
+
+}
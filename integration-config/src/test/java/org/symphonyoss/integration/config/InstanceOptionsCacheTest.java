@@ -0,0 +1,200 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.symphonyoss.integration.config.model.InstanceOptions;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.stream.StreamType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link InstanceOptionsCache}
+ *
+ * Created by rsanchez on 23/10/17.
+ */
+public class InstanceOptionsCacheTest {
+
+  private static final String INSTANCE_ID = "1234";
+
+  private static final String OTHER_INSTANCE_ID = "5678";
+
+  private static final String CONFIGURATION_ID = "57756bca4b54433738037005";
+
+  private static final String STREAM = "81NYrj5fWcB2BxlVZQmeRX___qjLh236dA";
+
+  private static final String STREAM_ID = "81NYrj5fWcB2BxlVZQmeRX///qjLh236dA==";
+
+  private static final String OPTIONAL_PROPERTIES = "{ \"owner\": \"268745369\", \"streams\": [ \""
+      + STREAM + "\"], \"streamType\" : \"CHATROOM\" , \"rooms\" : [ { \"streamId\" : \""
+      + STREAM_ID + "\" , \"roomName\" : \"Test Room\"}]}";
+
+  private InstanceOptionsCache cache = new InstanceOptionsCache();
+
+  @Test
+  public void testParse() throws IOException {
+    InstanceOptions options = cache.get(mockInstance(OPTIONAL_PROPERTIES));
+
+    assertEquals(StreamType.CHATROOM, options.getStreamType());
+    assertEquals(Long.valueOf(268745369L), options.getOwner());
+    assertEquals("Test Room", options.getRoomName(STREAM));
+    assertEquals("", options.getRoomName("unknown"));
+
+    List<String> streams = options.getStreams();
+    assertEquals(1, streams.size());
+    assertEquals(STREAM, streams.get(0));
+  }
+
+  @Test
+  public void testEmptyOptionalProperties() throws IOException {
+    InstanceOptions options = cache.get(mockInstance(""));
+
+    assertTrue(options.getStreams().isEmpty());
+    assertTrue(options.getRoomNames().isEmpty());
+    assertEquals(StreamType.NONE, options.getStreamType());
+    assertNull(options.getOwner());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testImmutableStreams() throws IOException {
+    InstanceOptions options = cache.get(mockInstance(OPTIONAL_PROPERTIES));
+    options.getStreams().clear();
+  }
+
+  @Test
+  public void testCached() throws IOException {
+    InstanceOptions options = cache.get(mockInstance(OPTIONAL_PROPERTIES));
+
+    assertSame(options, cache.get(mockInstance(OPTIONAL_PROPERTIES)));
+    assertSame(options, cache.getIfPresent(INSTANCE_ID));
+  }
+
+  @Test
+  public void testOptionalPropertiesChanged() throws IOException {
+    InstanceOptions options = cache.get(mockInstance(OPTIONAL_PROPERTIES));
+    InstanceOptions changed = cache.get(mockInstance("{ \"streamType\" : \"IM\" }"));
+
+    assertNotSame(options, changed);
+    assertEquals(StreamType.IM, changed.getStreamType());
+    assertSame(changed, cache.getIfPresent(INSTANCE_ID));
+  }
+
+  @Test
+  public void testInvalidate() throws IOException {
+    cache.get(mockInstance(OPTIONAL_PROPERTIES));
+    cache.invalidate(INSTANCE_ID);
+
+    assertNull(cache.getIfPresent(INSTANCE_ID));
+  }
+
+  @Test
+  public void testInstanceWithoutId() throws IOException {
+    IntegrationInstance instance = mockInstance(OPTIONAL_PROPERTIES);
+    instance.setInstanceId(null);
+
+    InstanceOptions options = cache.get(instance);
+
+    assertEquals(StreamType.CHATROOM, options.getStreamType());
+    assertNull(cache.getIfPresent(INSTANCE_ID));
+  }
+
+  @Test
+  public void testStreamIndex() throws IOException {
+    cache.get(mockInstance(OPTIONAL_PROPERTIES));
+
+    IntegrationInstance other = mockInstance(OPTIONAL_PROPERTIES);
+    other.setInstanceId(OTHER_INSTANCE_ID);
+    cache.get(other);
+
+    Set<String> instances = cache.getInstancesByStream(CONFIGURATION_ID, STREAM);
+    assertEquals(2, instances.size());
+    assertTrue(instances.contains(INSTANCE_ID));
+    assertTrue(instances.contains(OTHER_INSTANCE_ID));
+
+    assertTrue(cache.getInstancesByStream("otherConfiguration", STREAM).isEmpty());
+  }
+
+  @Test
+  public void testStreamIndexUpdate() throws IOException {
+    cache.get(mockInstance(OPTIONAL_PROPERTIES));
+
+    IntegrationInstance changed = mockInstance("{ \"streams\": [ \"newStream\" ] }");
+    cache.update(changed);
+
+    assertFalse(cache.getInstancesByStream(CONFIGURATION_ID, STREAM).contains(INSTANCE_ID));
+    assertTrue(cache.getInstancesByStream(CONFIGURATION_ID, "newStream").contains(INSTANCE_ID));
+    assertTrue(cache.getIfPresent(INSTANCE_ID).isParsedFrom(changed.getOptionalProperties()));
+  }
+
+  @Test
+  public void testStreamIndexInvalidate() throws IOException {
+    cache.get(mockInstance(OPTIONAL_PROPERTIES));
+    cache.invalidate(INSTANCE_ID);
+
+    assertTrue(cache.getInstancesByStream(CONFIGURATION_ID, STREAM).isEmpty());
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    for (int i = 0; i < 1000; i++) {
+      final IntegrationInstance instance =
+          mockInstance("{ \"streams\": [ \"stream" + (i % 10) + "\" ] }");
+
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          cache.update(instance);
+        }
+      });
+    }
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    String cachedStream = cache.getIfPresent(INSTANCE_ID).getStreams().get(0);
+
+    for (int i = 0; i < 10; i++) {
+      String stream = "stream" + i;
+      boolean indexed = cache.getInstancesByStream(CONFIGURATION_ID, stream).contains(INSTANCE_ID);
+      assertEquals(stream.equals(cachedStream), indexed);
+    }
+  }
+
+  private IntegrationInstance mockInstance(String optionalProperties) {
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setInstanceId(INSTANCE_ID);
+    instance.setConfigurationId(CONFIGURATION_ID);
+    instance.setOptionalProperties(optionalProperties);
+    return instance;
+  }
+
+}
@@ -18,30 +18,38 @@ package org.symphonyoss.integration.config;
 
 import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.symphonyoss.integration.utils.WebHookConfigurationUtils.LAST_POSTED_DATE;
 import static org.symphonyoss.integration.utils.WebHookConfigurationUtils.OWNER;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.env.Environment;
+import org.symphonyoss.integration.config.event.IntegrationConfigChangedEventData;
 import org.symphonyoss.integration.config.exception.ConfigurationNotFoundException;
 import org.symphonyoss.integration.config.exception.InitializationConfigException;
 import org.symphonyoss.integration.config.exception.InstanceNotFoundException;
@@ -49,7 +57,7 @@ import org.symphonyoss.integration.config.exception.InvalidConfigurationIdExcept
 import org.symphonyoss.integration.config.exception.InvalidInstanceIdException;
 import org.symphonyoss.integration.config.exception.SaveConfigurationException;
 import org.symphonyoss.integration.config.exception.SaveInstanceException;
-import org.symphonyoss.integration.config.model.IntegrationRepository;
+import org.symphonyoss.integration.config.model.JournalEntry;
 import org.symphonyoss.integration.exception.config.IntegrationConfigException;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationInstance;
@@ -68,6 +76,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 
 /**
  * Test class responsible to test the flows in the Integration Service.
@@ -97,6 +106,12 @@ public class LocalIntegrationServiceTest {
   @Mock
   private LogMessageSource logMessage;
 
+  @Spy
+  private InstanceOptionsCache instanceOptionsCache = new InstanceOptionsCache();
+
+  @Mock
+  private ApplicationEventPublisher publisher;
+
   @InjectMocks
   private LocalIntegrationService service;
 
@@ -108,10 +123,21 @@ public class LocalIntegrationServiceTest {
 
   @After
   public void finish() {
+    service.destroy();
+
     File file = new File(MOCK_CONFIGURATION);
     if (file.exists()) {
      file.delete();
     }
+
+    File journal = new File(MOCK_CONFIGURATION + ".journal");
+    if (journal.exists()) {
+      journal.delete();
+    }
+
+    System.clearProperty(LocalIntegrationService.COMPACTION_THRESHOLD_KEY);
+    System.clearProperty(LocalIntegrationService.SNAPSHOT_FORMAT_KEY);
+    System.clearProperty(LocalIntegrationService.WATCH_ENABLED_KEY);
   }
 
   @Test(expected = InvalidConfigurationIdException.class)
@@ -127,7 +153,7 @@ public class LocalIntegrationServiceTest {
   @Test(expected = SaveConfigurationException.class)
   public void testSaveConfigurationException() throws IntegrationConfigException, IOException {
     doThrow(IOException.class).when(objectMapper).
-        writeValue(any(OutputStream.class), any(IntegrationRepository.class));
+        writeValue(any(OutputStream.class), any(JournalEntry.class));
 
     service.init();
 
@@ -143,7 +169,7 @@ public class LocalIntegrationServiceTest {
   @Test(expected = SaveInstanceException.class)
   public void testSaveInstanceException() throws IntegrationConfigException, IOException {
     doThrow(IOException.class).when(objectMapper).
-        writeValue(any(OutputStream.class), any(IntegrationRepository.class));
+        writeValue(any(OutputStream.class), any(JournalEntry.class));
 
     service.init();
 
@@ -384,4 +410,132 @@ public class LocalIntegrationServiceTest {
         WebHookConfigurationUtils.getStreams(saved.getOptionalProperties()));
   }
 
+  @Test
+  public void testJournalReplay() throws IntegrationConfigException, IOException,
+      URISyntaxException {
+    String configFile = copyConfigurationToTempDir();
+    byte[] original = Files.readAllBytes(Paths.get(configFile));
+
+    service.init();
+
+    IntegrationInstance instance =
+        service.getInstanceById("575062074b54ba5e759c0fd0", "4321", TEST_USER);
+    instance.setCreatorId("new-user");
+    service.save(instance, TEST_USER);
+
+    // Only the journal was written
+    assertTrue(new File(configFile + ".journal").exists());
+    assertArrayEquals(original, Files.readAllBytes(Paths.get(configFile)));
+
+    service.init();
+
+    IntegrationInstance saved =
+        service.getInstanceById("575062074b54ba5e759c0fd0", "4321", TEST_USER);
+    assertEquals("new-user", saved.getCreatorId());
+  }
+
+  @Test
+  public void testJournalCompaction() throws IntegrationConfigException, IOException,
+      URISyntaxException {
+    System.setProperty(LocalIntegrationService.COMPACTION_THRESHOLD_KEY, "1");
+
+    String configFile = copyConfigurationToTempDir();
+
+    service.init();
+
+    IntegrationSettings jira = service.getIntegrationById("575062074b54ba5e759c0fd9", TEST_USER);
+    jira.setType("newJiraType");
+    service.save(jira, TEST_USER);
+
+    assertFalse(new File(configFile + ".journal").exists());
+    assertEquals("575062074b54ba5e759c0fd9",
+        service.getIntegrationByType("newJiraType", TEST_USER).getConfigurationId());
+
+    service.init();
+
+    IntegrationSettings saved = service.getIntegrationByType("newJiraType", TEST_USER);
+    assertEquals("575062074b54ba5e759c0fd9", saved.getConfigurationId());
+  }
+
+  @Test
+  public void testBinarySnapshot() throws IntegrationConfigException, IOException,
+      URISyntaxException {
+    System.setProperty(LocalIntegrationService.COMPACTION_THRESHOLD_KEY, "1");
+    System.setProperty(LocalIntegrationService.SNAPSHOT_FORMAT_KEY,
+        LocalIntegrationService.SMILE_FORMAT);
+
+    String configFile = copyConfigurationToTempDir();
+
+    service.init();
+
+    IntegrationInstance instance =
+        service.getInstanceById("575062074b54ba5e759c0fd0", "4321", TEST_USER);
+    instance.setCreatorId("new-user");
+    service.save(instance, TEST_USER);
+
+    assertTrue(new File(configFile + ".smile").exists());
+
+    service.init();
+
+    IntegrationInstance saved =
+        service.getInstanceById("575062074b54ba5e759c0fd0", "4321", TEST_USER);
+    assertEquals("new-user", saved.getCreatorId());
+    assertNotNull(service.getIntegrationById("575062074b54ba5e759c0fd9", TEST_USER));
+  }
+
+  @Test
+  public void testReload() throws IntegrationConfigException, IOException, URISyntaxException {
+    // The reload is triggered by the test
+    System.setProperty(LocalIntegrationService.WATCH_ENABLED_KEY, "false");
+
+    String configFile = copyConfigurationToTempDir();
+
+    service.init();
+
+    IntegrationInstance unchanged = service.getInstanceById("575062074b54ba5e759c0fd9", "1234",
+        TEST_USER);
+
+    ObjectNode root = (ObjectNode) objectMapper.readTree(new File(configFile));
+    for (JsonNode instance : root.path("instances")) {
+      if ("4321".equals(instance.path("instanceId").asText())) {
+        ((ObjectNode) instance).put("name", "Changed GitHub integration");
+      }
+    }
+    objectMapper.writeValue(new File(configFile), root);
+
+    service.reload();
+
+    IntegrationInstance changed =
+        service.getInstanceById("575062074b54ba5e759c0fd0", "4321", TEST_USER);
+    assertEquals("Changed GitHub integration", changed.getName());
+    assertSame(unchanged, service.getInstanceById("575062074b54ba5e759c0fd9", "1234", TEST_USER));
+
+    ArgumentCaptor<IntegrationConfigChangedEventData> captor =
+        ArgumentCaptor.forClass(IntegrationConfigChangedEventData.class);
+    verify(publisher, times(1)).publishEvent(captor.capture());
+
+    IntegrationConfigChangedEventData event = captor.getValue();
+    assertEquals("575062074b54ba5e759c0fd0", event.getSettings().getConfigurationId());
+    assertFalse(event.isSettingsChanged());
+    assertEquals(Collections.singleton("4321"), event.getChangedInstances());
+    assertTrue(event.getRemovedInstances().isEmpty());
+
+    // Nothing changed since the last reload
+    service.reload();
+    verify(publisher, times(1)).publishEvent(any(IntegrationConfigChangedEventData.class));
+  }
+
+  private String copyConfigurationToTempDir() throws IOException, URISyntaxException {
+    TemporaryFolder tmpDir = new TemporaryFolder();
+    tmpDir.create();
+
+    String toPathAsString = tmpDir.getRoot().getPath() + "/mock-configuration-tmp.json";
+    Path fromPath = Paths.get(getClass().getClassLoader().getResource(MOCK_CONFIGURATION).toURI());
+    Files.copy(fromPath, Paths.get(toPathAsString), REPLACE_EXISTING, COPY_ATTRIBUTES);
+
+    doReturn(toPathAsString).when(environment).getProperty(CONFIG_ENV_PROPERTY, DEFAULT_FILE_NAME);
+
+    return toPathAsString;
+  }
+
 }
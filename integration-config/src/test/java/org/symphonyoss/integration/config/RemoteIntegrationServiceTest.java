@@ -18,11 +18,15 @@ package org.symphonyoss.integration.config;
 
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.junit.Before;
@@ -30,6 +34,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
 import org.symphonyoss.integration.config.exception.ConfigurationNotFoundException;
@@ -75,6 +80,9 @@ public class RemoteIntegrationServiceTest {
   @Mock
   private LogMessageSource logMesagge;
 
+  @Spy
+  private InstanceOptionsCache instanceOptionsCache = new InstanceOptionsCache();
+
   @InjectMocks
   private RemoteIntegrationService remoteIntegrationService;
 
@@ -146,6 +154,9 @@ public class RemoteIntegrationServiceTest {
   public void testSaveIntegrationCreateFailed() throws Exception {
     IntegrationSettings settings = buildIntegrationSettings();
 
+    doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
+        configurationApiClient)
+        .updateIntegration(eq(TOKEN), eq(CONFIGURATION_ID), any(IntegrationSubmissionCreate.class));
     doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
         configurationApiClient).getIntegrationById(TOKEN, CONFIGURATION_ID);
 
@@ -159,6 +170,9 @@ public class RemoteIntegrationServiceTest {
   public void testSaveIntegrationCreate() throws Exception {
     IntegrationSettings settings = buildIntegrationSettings();
 
+    doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
+        configurationApiClient)
+        .updateIntegration(eq(TOKEN), eq(CONFIGURATION_ID), any(IntegrationSubmissionCreate.class));
     doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
         configurationApiClient).getIntegrationById(TOKEN, CONFIGURATION_ID);
 
@@ -198,6 +212,9 @@ public class RemoteIntegrationServiceTest {
     doReturn(settings).when(configurationApiClient)
         .updateIntegration(eq(TOKEN), eq(CONFIGURATION_ID), any(IntegrationSubmissionCreate.class));
     assertEquals(settings, remoteIntegrationService.save(settings, USER_ID));
+
+    // Single round trip
+    verify(configurationApiClient, never()).getIntegrationById(TOKEN, CONFIGURATION_ID);
   }
 
   @Test(expected = RemoteConfigurationException.class)
@@ -235,6 +252,9 @@ public class RemoteIntegrationServiceTest {
   public void testSaveInstanceCreate() throws Exception {
     IntegrationInstance instance = buildInstance();
 
+    doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
+        instanceApiClient)
+        .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
     doThrow(new RemoteApiException(BAD_REQUEST.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
         instanceApiClient).getInstanceById(TOKEN, CONFIGURATION_ID, INSTANCE_ID);
 
@@ -270,6 +290,21 @@ public class RemoteIntegrationServiceTest {
         .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
 
     assertEquals(instance, remoteIntegrationService.save(instance, USER_ID));
+    verify(instanceOptionsCache, times(1)).update(instance);
+
+    // Single round trip
+    verify(instanceApiClient, never()).getInstanceById(TOKEN, CONFIGURATION_ID, INSTANCE_ID);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSaveInstanceNotFound() throws Exception {
+    IntegrationInstance instance = buildInstance();
+
+    doThrow(new RemoteApiException(NOT_FOUND.getStatusCode(), API_EXCEPTION_MESSAGE)).when(
+        instanceApiClient)
+        .updateInstance(eq(TOKEN), any(IntegrationInstanceSubmissionUpdate.class));
+
+    remoteIntegrationService.save(instance, USER_ID);
   }
 
   private IntegrationSettings buildIntegrationSettings() {
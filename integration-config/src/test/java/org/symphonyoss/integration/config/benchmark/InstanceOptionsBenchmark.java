@@ -0,0 +1,120 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.config.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.symphonyoss.integration.config.InstanceOptionsCache;
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+import org.symphonyoss.integration.model.stream.StreamType;
+import org.symphonyoss.integration.utils.WebHookConfigurationUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost to read the streams of an integration instance parsing the optional
+ * properties on every call against reading them from the {@link InstanceOptionsCache}.
+ *
+ * This is not a unit test. Run it through the main method using the test classpath.
+ *
+ * Created by rsanchez on 23/10/17.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InstanceOptionsBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int rooms;
+
+  private IntegrationInstance instance;
+
+  private InstanceOptionsCache cache;
+
+  private String lastStream;
+
+  @Setup
+  public void setup() throws IOException {
+    StringBuilder streams = new StringBuilder();
+    StringBuilder roomList = new StringBuilder();
+
+    for (int i = 0; i < rooms; i++) {
+      if (i > 0) {
+        streams.append(",");
+        roomList.append(",");
+      }
+
+      String stream = "stream" + i;
+      streams.append("\"").append(stream).append("\"");
+      roomList.append("{ \"streamId\" : \"").append(stream).append("\", \"roomName\" : \"Room ")
+          .append(i).append("\" }");
+    }
+
+    instance = new IntegrationInstance();
+    instance.setInstanceId("1234");
+    instance.setOptionalProperties("{ \"owner\": 268745369, \"streamType\": \"CHATROOM\", "
+        + "\"streams\": [" + streams + "], \"rooms\": [" + roomList + "] }");
+
+    lastStream = "stream" + (rooms - 1);
+
+    cache = new InstanceOptionsCache();
+    cache.get(instance);
+  }
+
+  @Benchmark
+  public List<String> parseStreams() throws IOException {
+    return WebHookConfigurationUtils.getStreams(instance.getOptionalProperties());
+  }
+
+  @Benchmark
+  public StreamType parseStreamType() throws IOException {
+    return WebHookConfigurationUtils.getStreamType(instance.getOptionalProperties());
+  }
+
+  @Benchmark
+  public List<String> cachedStreams() throws IOException {
+    return cache.get(instance).getStreams();
+  }
+
+  @Benchmark
+  public String cachedRoomName() throws IOException {
+    return cache.get(instance).getRoomName(lastStream);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(InstanceOptionsBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+}
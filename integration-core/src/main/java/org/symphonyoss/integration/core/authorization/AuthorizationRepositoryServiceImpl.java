@@ -20,7 +20,6 @@ import org.springframework.context.annotation.Conditional;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
 import org.symphonyoss.integration.authorization.AuthorizationException;
-import org.symphonyoss.integration.authorization.AuthorizationRepositoryService;
 import org.symphonyoss.integration.authorization.UserAuthorizationData;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.logging.LogMessageSource;
@@ -36,7 +35,7 @@ import java.util.Map;
  */
 @Component
 @Conditional(RemoteAuthorizationRepoServiceCondition.class)
-public class AuthorizationRepositoryServiceImpl implements AuthorizationRepositoryService {
+public class AuthorizationRepositoryServiceImpl implements PagedAuthorizationRepositoryService {
 
   private static final String API_MSG = "core.integration.authorization.repo.api.exception";
   private static final String API_MSG_SOLUTION = API_MSG + ".solution";
@@ -92,4 +91,28 @@ public class AuthorizationRepositoryServiceImpl implements AuthorizationReposito
           logMessage.getMessage(API_MSG_SOLUTION));
     }
   }
+
+  /**
+   * The position of the pages is the number of entries to skip, as the remote API doesn't support
+   * resuming the search from a given entry.
+   */
+  @Override
+  public UserAuthorizationDataPage search(String integrationUser, String configurationId,
+      Map<String, String> filter, String position, int limit) throws AuthorizationException {
+    String sessionToken = authenticationProxy.getSessionToken(integrationUser);
+    int offset = (position == null) ? 0 : Integer.parseInt(position);
+
+    try {
+      List<UserAuthorizationData> entries =
+          apiClient.searchUserAuthData(sessionToken, configurationId, filter, offset, limit);
+
+      // A page of a different size means the last one or paging not supported by the server
+      String nextPosition = (entries.size() == limit) ? String.valueOf(offset + limit) : null;
+
+      return new UserAuthorizationDataPage(entries, nextPosition);
+    } catch (RemoteApiException e) {
+      throw new AuthorizationException(logMessage.getMessage(API_MSG), e,
+          logMessage.getMessage(API_MSG_SOLUTION));
+    }
+  }
 }
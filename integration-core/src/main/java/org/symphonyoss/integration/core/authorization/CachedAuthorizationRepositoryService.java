@@ -0,0 +1,223 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.authorization.AuthorizationException;
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+import org.symphonyoss.integration.authorization.UserAuthorizationDataKey;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caching decorator for the {@link AuthorizationRepositoryServiceImpl}.
+ *
+ * The authorization data is cached by configuration, URL and user. Users without authorization
+ * data are cached for a shorter time, so they are seen as soon as they authorize the integration
+ * through another node. Concurrent requests for the same missing entry are served by a single
+ * remote call. Authorization data saved through this service is written to the cache once the
+ * remote call succeeds, and its cached entry is discarded if the call fails.
+ * Searches aren't cached.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+@Primary
+@Component
+@Conditional(RemoteAuthorizationRepoServiceCondition.class)
+public class CachedAuthorizationRepositoryService implements PagedAuthorizationRepositoryService {
+
+  /**
+   * Time, in milliseconds, to keep the authorization data of a user
+   */
+  public static final String TTL_KEY = "authorization.cache.ttl";
+
+  public static final String DEFAULT_TTL = "30000";
+
+  /**
+   * Time, in milliseconds, to keep a user without authorization data
+   */
+  public static final String NEGATIVE_TTL_KEY = "authorization.cache.negative.ttl";
+
+  public static final String DEFAULT_NEGATIVE_TTL = "5000";
+
+  /**
+   * Maximum number of entries
+   */
+  public static final String MAX_SIZE_KEY = "authorization.cache.max.size";
+
+  public static final String DEFAULT_MAX_SIZE = "10000";
+
+  private static final String AUTHORIZATION_CACHE = "authorization.cache";
+
+  private static final String HIT_RATIO = "hit.ratio";
+
+  private static final String REMOTE_FIND = "authorization.remote.find";
+
+  private final PagedAuthorizationRepositoryService delegate;
+
+  private final Cache<UserAuthorizationDataKey, CachedEntry> cache;
+
+  private final long negativeTtl;
+
+  /**
+   * Latency of the remote calls to retrieve the authorization data
+   */
+  private final Timer remoteLatency;
+
+  public CachedAuthorizationRepositoryService(AuthorizationRepositoryServiceImpl delegate,
+      MetricRegistry metricsRegistry) {
+    this.delegate = delegate;
+
+    long ttl = Long.valueOf(System.getProperty(TTL_KEY, DEFAULT_TTL));
+    long maxSize = Long.valueOf(System.getProperty(MAX_SIZE_KEY, DEFAULT_MAX_SIZE));
+
+    this.negativeTtl = TimeUnit.MILLISECONDS.toNanos(
+        Long.valueOf(System.getProperty(NEGATIVE_TTL_KEY, DEFAULT_NEGATIVE_TTL)));
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .recordStats()
+        .build();
+
+    this.remoteLatency = metricsRegistry.timer(MetricRegistry.name(BASE_METRIC_NAME, REMOTE_FIND));
+
+    String hitRatioName = MetricRegistry.name(BASE_METRIC_NAME, AUTHORIZATION_CACHE, HIT_RATIO);
+    metricsRegistry.remove(hitRatioName);
+    metricsRegistry.register(hitRatioName, new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        CacheStats stats = cache.stats();
+        return Ratio.of(stats.hitCount(), stats.requestCount());
+      }
+    });
+  }
+
+  @Override
+  public void save(String integrationUser, String configurationId, UserAuthorizationData data)
+      throws AuthorizationException {
+    UserAuthorizationDataKey key = new UserAuthorizationDataKey(configurationId, data.getUrl(),
+        data.getUserId());
+
+    try {
+      delegate.save(integrationUser, configurationId, data);
+    } catch (AuthorizationException | RuntimeException e) {
+      // The remote data is unknown if the call failed, so it's discarded
+      cache.invalidate(key);
+      throw e;
+    }
+
+    cache.put(key, new CachedEntry(data));
+  }
+
+  @Override
+  public UserAuthorizationData find(final String integrationUser, final String configurationId,
+      final String url, final Long userId) throws AuthorizationException {
+    UserAuthorizationDataKey key = new UserAuthorizationDataKey(configurationId, url, userId);
+
+    Callable<CachedEntry> loader = new Callable<CachedEntry>() {
+      @Override
+      public CachedEntry call() throws AuthorizationException {
+        Timer.Context context = remoteLatency.time();
+
+        try {
+          return new CachedEntry(delegate.find(integrationUser, configurationId, url, userId));
+        } finally {
+          context.stop();
+        }
+      }
+    };
+
+    CachedEntry entry = get(key, loader);
+
+    if ((entry.data == null) && entry.isOlderThan(negativeTtl)) {
+      cache.asMap().remove(key, entry);
+      entry = get(key, loader);
+    }
+
+    return entry.data;
+  }
+
+  @Override
+  public List<UserAuthorizationData> search(String integrationUser, String configurationId,
+      Map<String, String> filter) throws AuthorizationException {
+    return delegate.search(integrationUser, configurationId, filter);
+  }
+
+  @Override
+  public UserAuthorizationDataPage search(String integrationUser, String configurationId,
+      Map<String, String> filter, String position, int limit) throws AuthorizationException {
+    return delegate.search(integrationUser, configurationId, filter, position, limit);
+  }
+
+  /**
+   * Retrieves the cached entry or loads it through the remote service. Exceptions reported by
+   * the remote service are rethrown as they were.
+   */
+  private CachedEntry get(UserAuthorizationDataKey key, Callable<CachedEntry> loader)
+      throws AuthorizationException {
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof AuthorizationException) {
+        throw (AuthorizationException) e.getCause();
+      }
+
+      throw new UncheckedExecutionException(e.getCause());
+    } catch (UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw e;
+    }
+  }
+
+  /**
+   * Authorization data, or its absence, and the time it was retrieved.
+   */
+  private static final class CachedEntry {
+
+    private final UserAuthorizationData data;
+
+    private final long loadTime = System.nanoTime();
+
+    private CachedEntry(UserAuthorizationData data) {
+      this.data = data;
+    }
+
+    private boolean isOlderThan(long nanos) {
+      return System.nanoTime() - loadTime >= nanos;
+    }
+
+  }
+
+}
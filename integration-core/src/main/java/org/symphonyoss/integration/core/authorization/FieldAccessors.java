@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reads the declared fields of the authorization data objects. The method handles are resolved
+ * once per class and field name, so the search doesn't need to use reflection for every record.
+ * Maps, like the authorization data read from JSON, are accessed by key.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+class FieldAccessors {
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  /**
+   * Used when the class doesn't declare the field. Always returns null.
+   */
+  private static final MethodHandle MISSING_FIELD = MethodHandles.dropArguments(
+      MethodHandles.constant(Object.class, null), 0, Object.class);
+
+  private final ConcurrentMap<Class<?>, ConcurrentMap<String, MethodHandle>> getters =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Reads the field value as string.
+   * @param target Object or map to be read
+   * @param fieldName Field declared by the object class or map key
+   * @return Field value as string or null if the field doesn't exist or its value is null
+   */
+  String getValue(Object target, String fieldName) {
+    if (target == null) {
+      return null;
+    }
+
+    if (target instanceof Map) {
+      Object value = ((Map<?, ?>) target).get(fieldName);
+      return value != null ? value.toString() : null;
+    }
+
+    MethodHandle getter = getGetter(target.getClass(), fieldName);
+
+    try {
+      Object value = (Object) getter.invokeExact(target);
+      return value != null ? value.toString() : null;
+    } catch (Throwable e) {
+      return null;
+    }
+  }
+
+  private MethodHandle getGetter(Class<?> type, String fieldName) {
+    ConcurrentMap<String, MethodHandle> classGetters = getters.get(type);
+
+    if (classGetters == null) {
+      classGetters = new ConcurrentHashMap<>();
+      ConcurrentMap<String, MethodHandle> current = getters.putIfAbsent(type, classGetters);
+
+      if (current != null) {
+        classGetters = current;
+      }
+    }
+
+    MethodHandle getter = classGetters.get(fieldName);
+
+    if (getter == null) {
+      getter = resolveGetter(type, fieldName);
+      classGetters.putIfAbsent(fieldName, getter);
+    }
+
+    return getter;
+  }
+
+  private MethodHandle resolveGetter(Class<?> type, String fieldName) {
+    try {
+      Field field = type.getDeclaredField(fieldName);
+      field.setAccessible(true);
+
+      return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+    } catch (NoSuchFieldException | IllegalAccessException | RuntimeException e) {
+      return MISSING_FIELD;
+    }
+  }
+
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.symphonyoss.integration.authorization.AuthorizationRepositoryService;
+
+/**
+ * Conditional class to create a file based implementation of
+ * {@link AuthorizationRepositoryService}. Requires the local authorization and the authorization
+ * data file.
+ * Created by rsanchez on 04/11/17.
+ */
+public class FileAuthorizationRepoServiceCondition implements Condition {
+
+  @Override
+  public boolean matches(ConditionContext conditionContext, AnnotatedTypeMetadata annotatedTypeMetadata) {
+    String localAuthorization = System.getProperty("local_authorization");
+
+    if (Boolean.valueOf(localAuthorization)
+        && StringUtils.isNotBlank(System.getProperty(FileAuthorizationRepositoryService.FILE_KEY))) {
+      return Boolean.TRUE;
+    }
+
+    return Boolean.FALSE;
+  }
+
+}
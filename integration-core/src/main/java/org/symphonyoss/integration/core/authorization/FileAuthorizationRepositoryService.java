@@ -0,0 +1,835 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+import org.symphonyoss.integration.authorization.AuthorizationException;
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+import org.symphonyoss.integration.authorization.UserAuthorizationDataKey;
+import org.symphonyoss.integration.core.bootstrap.NamedThreadFactory;
+import org.symphonyoss.integration.logging.LogMessageSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Implementation of a file based repository for authorization data, used in the local mode when
+ * the property {@link #FILE_KEY} is set. The authorization data survives the application restarts,
+ * so the users don't need to authorize the integrations again.
+ *
+ * Every save appends a record to the end of the file. Each record starts with its key and the
+ * length of the authorization data, so the in-memory index (key to file position) is built reading
+ * only the record headers. The authorization data is read from the file on demand. The index is
+ * built on the first access to the repository, not during the application startup.
+ *
+ * The records replaced by newer ones are discarded when the file is compacted, which happens in
+ * background once they take more space than the live records. The live records are copied to a
+ * new file without blocking the repository, which is locked only to copy the records saved in the
+ * meantime and to swap the files. The search results are returned in the order the entries were
+ * first saved, so the pages stay consistent while new entries are added. The position of a page is
+ * its start in that order, so each page is read without going through the previous ones.
+ *
+ * An incomplete record at the end of the file, left by a failure while writing it, is discarded
+ * when the file is loaded. Any other invalid record fails the load, so the file is never cut in
+ * the middle.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+@Component
+@Conditional(FileAuthorizationRepoServiceCondition.class)
+public class FileAuthorizationRepositoryService implements PagedAuthorizationRepositoryService {
+
+  /**
+   * Path of the authorization data file
+   */
+  public static final String FILE_KEY = "local.authorization.file";
+
+  /**
+   * Minimum file size, in bytes, to compact the file
+   */
+  public static final String COMPACTION_MIN_SIZE_KEY =
+      "local.authorization.file.compaction.min.size";
+
+  public static final String DEFAULT_COMPACTION_MIN_SIZE = "1048576";
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(FileAuthorizationRepositoryService.class);
+
+  private static final String FILE_MSG = "core.integration.authorization.repo.file.exception";
+  private static final String FILE_MSG_SOLUTION = FILE_MSG + ".solution";
+  private static final String TRUNCATED_FILE = "core.integration.authorization.repo.file.truncated";
+  private static final String COMPACTION_FAILED =
+      "core.integration.authorization.repo.file.compaction.failed";
+  private static final String CORRUPTED_FILE =
+      "core.integration.authorization.repo.file.corrupted";
+
+  /**
+   * File identifier ("IAD") followed by the format version
+   */
+  private static final int MAGIC = 0x49414401;
+
+  private static final int FILE_HEADER_SIZE = 4;
+
+  /**
+   * Key length and data length
+   */
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  /**
+   * Large enough to hold the biggest key (two modified UTF-8 strings and the user id)
+   */
+  private static final int SCAN_BUFFER_SIZE = 256 * 1024;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final FieldAccessors accessors = new FieldAccessors();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final LogMessageSource logMessage;
+
+  private final Path file;
+
+  private final long compactionMinSize;
+
+  /**
+   * Compacts the file in background
+   */
+  private final ExecutorService compactor = Executors.newSingleThreadExecutor(
+      new NamedThreadFactory("AuthorizationFileCompactor", true));
+
+  private final AtomicBoolean compacting = new AtomicBoolean();
+
+  private volatile boolean loaded;
+
+  /**
+   * Position of the live records, in the order they were first saved. Guarded by the lock.
+   */
+  private Map<UserAuthorizationDataKey, RecordPointer> index;
+
+  /**
+   * Keys of the live records, in the order they were first saved. Guarded by the lock.
+   */
+  private List<UserAuthorizationDataKey> order;
+
+  private FileChannel channel;
+
+  private long fileSize;
+
+  private long liveBytes;
+
+  public FileAuthorizationRepositoryService(LogMessageSource logMessage) {
+    this.logMessage = logMessage;
+    this.file = Paths.get(System.getProperty(FILE_KEY));
+    this.compactionMinSize =
+        Long.valueOf(System.getProperty(COMPACTION_MIN_SIZE_KEY, DEFAULT_COMPACTION_MIN_SIZE));
+  }
+
+  @PreDestroy
+  public void close() {
+    compactor.shutdown();
+    lock.writeLock().lock();
+
+    try {
+      closeChannel();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void save(String integrationUser, String configurationId, UserAuthorizationData data)
+      throws AuthorizationException {
+    UserAuthorizationDataKey key = new UserAuthorizationDataKey(configurationId, data.getUrl(),
+        data.getUserId());
+
+    ByteBuffer record;
+
+    try {
+      byte[] header = encodeKey(configurationId, data.getUrl(), data.getUserId());
+      byte[] payload = mapper.writeValueAsBytes(data);
+
+      record = ByteBuffer.allocate(RECORD_HEADER_SIZE + header.length + payload.length);
+      record.putInt(header.length).putInt(payload.length).put(header).put(payload).flip();
+    } catch (IOException e) {
+      throw fileException(e);
+    }
+
+    boolean compact;
+
+    ensureLoaded();
+    lock.writeLock().lock();
+
+    try {
+      long offset = fileSize;
+
+      try {
+        checkOpen();
+        writeFully(channel, record, offset);
+        channel.force(false);
+      } catch (IOException e) {
+        discardPartialRecord(offset);
+        throw fileException(e);
+      }
+
+      RecordPointer pointer = new RecordPointer(configurationId, offset,
+          record.getInt(0), record.getInt(4));
+      RecordPointer previous = index.put(key, pointer);
+
+      fileSize += pointer.size();
+      liveBytes += pointer.size();
+
+      if (previous != null) {
+        liveBytes -= previous.size();
+      } else {
+        order.add(key);
+      }
+
+      compact = shouldCompact();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    if (compact) {
+      scheduleCompaction();
+    }
+  }
+
+  @Override
+  public UserAuthorizationData find(String integrationUser, String configurationId, String url,
+      Long userId) throws AuthorizationException {
+    UserAuthorizationDataKey key = new UserAuthorizationDataKey(configurationId, url, userId);
+
+    ensureLoaded();
+    lock.readLock().lock();
+
+    try {
+      checkOpen();
+
+      RecordPointer pointer = index.get(key);
+      return pointer != null ? readData(pointer) : null;
+    } catch (IOException e) {
+      throw fileException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<UserAuthorizationData> search(String integrationUser, String configurationId,
+      Map<String, String> filter) throws AuthorizationException {
+    return search(integrationUser, configurationId, filter, null, Integer.MAX_VALUE).getEntries();
+  }
+
+  @Override
+  public UserAuthorizationDataPage search(String integrationUser, String configurationId,
+      Map<String, String> filter, String position, int limit) throws AuthorizationException {
+    List<UserAuthorizationData> result = new ArrayList<>();
+    boolean unfiltered = (filter == null) || filter.isEmpty();
+    int start = (position == null) ? 0 : Integer.parseInt(position);
+    String nextPosition;
+
+    ensureLoaded();
+    lock.readLock().lock();
+
+    try {
+      checkOpen();
+
+      int current = Math.min(start, order.size());
+
+      while ((current < order.size()) && (result.size() < limit)) {
+        RecordPointer pointer = index.get(order.get(current++));
+
+        if (!pointer.belongsTo(configurationId)) {
+          continue;
+        }
+
+        UserAuthorizationData userAuthorizationData = readData(pointer);
+
+        if (unfiltered || isAcceptable(userAuthorizationData, filter)) {
+          result.add(userAuthorizationData);
+        }
+      }
+
+      nextPosition = (current < order.size()) ? String.valueOf(current) : null;
+    } catch (IOException e) {
+      throw fileException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    return new UserAuthorizationDataPage(result, nextPosition);
+  }
+
+  /**
+   * Checks if the authorization data should be considered according to the filter.
+   *
+   * @param userAuthorizationData User authorization data
+   * @param filter Filters
+   * @return true if the authorization data should be considered according to the filter.
+   */
+  private boolean isAcceptable(UserAuthorizationData userAuthorizationData, Map<String, String> filter) {
+    Object data = userAuthorizationData.getData();
+
+    for (Map.Entry<String, String> query : filter.entrySet()) {
+      if (!query.getValue().equals(accessors.getValue(data, query.getKey()))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Opens the file and builds the index, if it wasn't done yet.
+   */
+  private void ensureLoaded() throws AuthorizationException {
+    if (loaded) {
+      return;
+    }
+
+    boolean compact = false;
+
+    lock.writeLock().lock();
+
+    try {
+      if (!loaded) {
+        load();
+        checkOpen();
+        loaded = true;
+        compact = shouldCompact();
+      }
+    } catch (IOException e) {
+      closeChannel();
+      throw fileException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    if (compact) {
+      scheduleCompaction();
+    }
+  }
+
+  private void load() throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    this.index = new LinkedHashMap<>();
+    this.order = new ArrayList<>();
+    this.liveBytes = 0;
+
+    if (channel.size() == 0) {
+      writeFully(channel, fileHeader(), 0);
+      this.fileSize = FILE_HEADER_SIZE;
+      return;
+    }
+
+    ByteBuffer magic = ByteBuffer.allocate(FILE_HEADER_SIZE);
+    channel.read(magic, 0);
+
+    if ((magic.position() < FILE_HEADER_SIZE) || (magic.getInt(0) != MAGIC)) {
+      throw new IOException("Unknown file format: " + file);
+    }
+
+    this.fileSize = scan();
+
+    if (fileSize < channel.size()) {
+      LOGGER.warn(logMessage.getMessage(TRUNCATED_FILE, String.valueOf(channel.size() - fileSize),
+          file.toString()));
+      channel.truncate(fileSize);
+    }
+  }
+
+  /**
+   * Reads the record headers to build the index. An incomplete record at the end of the file,
+   * left by a failure while writing it, stops the scan. Invalid records are reported as a
+   * failure, unless the rest of the file is filled with zeros (space allocated by the file system
+   * but never written).
+   * @return End position of the last complete record
+   * @throws IOException Failure to read the file or invalid record found
+   */
+  private long scan() throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    long size = channel.size();
+    long position = FILE_HEADER_SIZE;
+    long windowStart = position;
+
+    buffer.limit(0);
+
+    while (position + RECORD_HEADER_SIZE <= size) {
+      if (position - windowStart + RECORD_HEADER_SIZE > buffer.limit()) {
+        windowStart = fill(buffer, position);
+      }
+
+      buffer.position((int) (position - windowStart));
+
+      int headerLength = buffer.getInt();
+      int payloadLength = buffer.getInt();
+
+      if ((headerLength < 0) || (headerLength > SCAN_BUFFER_SIZE - RECORD_HEADER_SIZE)
+          || (payloadLength < 0)) {
+        if (isZeroFilled(position, size)) {
+          break;
+        }
+
+        throw corruptedFile(position);
+      }
+
+      if (position + RECORD_HEADER_SIZE + headerLength + payloadLength > size) {
+        // Incomplete record at the end of the file
+        break;
+      }
+
+      if (position - windowStart + RECORD_HEADER_SIZE + headerLength > buffer.limit()) {
+        windowStart = fill(buffer, position);
+        buffer.position(RECORD_HEADER_SIZE);
+      }
+
+      byte[] header = new byte[headerLength];
+      buffer.get(header);
+
+      UserAuthorizationDataKey key;
+      String configurationId;
+
+      try {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+        configurationId = readNullableUTF(in);
+        key = new UserAuthorizationDataKey(configurationId, readNullableUTF(in),
+            in.readBoolean() ? in.readLong() : null);
+      } catch (IOException e) {
+        if (isZeroFilled(position, size)) {
+          break;
+        }
+
+        throw corruptedFile(position);
+      }
+
+      RecordPointer pointer = new RecordPointer(configurationId, position, headerLength,
+          payloadLength);
+      RecordPointer previous = index.put(key, pointer);
+
+      liveBytes += pointer.size();
+
+      if (previous != null) {
+        liveBytes -= previous.size();
+      } else {
+        order.add(key);
+      }
+
+      position += pointer.size();
+    }
+
+    return position;
+  }
+
+  /**
+   * Fills the buffer with the file content starting at the given position.
+   * @return File position of the first byte in the buffer
+   */
+  private long fill(ByteBuffer buffer, long position) throws IOException {
+    buffer.clear();
+
+    long current = position;
+
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, current);
+
+      if (read < 0) {
+        break;
+      }
+
+      current += read;
+    }
+
+    buffer.flip();
+    return position;
+  }
+
+  /**
+   * Checks if the file content from the given position to the end contains only zeros.
+   */
+  private boolean isZeroFilled(long position, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SCAN_BUFFER_SIZE, size - position));
+    long current = position;
+
+    while (current < size) {
+      long windowStart = fill(buffer, current);
+
+      if (!buffer.hasRemaining()) {
+        return false;
+      }
+
+      while (buffer.hasRemaining()) {
+        if (buffer.get() != 0) {
+          return false;
+        }
+      }
+
+      current = windowStart + buffer.limit();
+    }
+
+    return true;
+  }
+
+  private IOException corruptedFile(long position) {
+    String message = logMessage.getMessage(CORRUPTED_FILE, file.toString(),
+        String.valueOf(position));
+    LOGGER.error(message);
+    return new IOException("Invalid record at position " + position + ": " + file);
+  }
+
+  private boolean shouldCompact() {
+    long garbage = fileSize - FILE_HEADER_SIZE - liveBytes;
+    return (fileSize >= compactionMinSize) && (garbage > liveBytes);
+  }
+
+  /**
+   * Starts the compaction in background, unless it's already in progress.
+   */
+  private void scheduleCompaction() {
+    if (!compacting.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      compactor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            compact();
+          } finally {
+            compacting.set(false);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Repository closed
+      compacting.set(false);
+    }
+  }
+
+  /**
+   * Copies the live records to a new file, which then replaces the current one. The records are
+   * copied without holding the lock. The write lock is held only to copy the records saved during
+   * the compaction and to swap the files. Failures are logged and the current file is kept.
+   */
+  private void compact() {
+    Map<UserAuthorizationDataKey, RecordPointer> snapshot;
+    FileChannel source;
+    long end;
+
+    lock.readLock().lock();
+
+    try {
+      if (channel == null) {
+        return;
+      }
+
+      snapshot = new LinkedHashMap<>(index);
+      source = channel;
+      end = fileSize;
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    Map<UserAuthorizationDataKey, RecordPointer> moved = new HashMap<>();
+    long position = FILE_HEADER_SIZE;
+
+    try (FileChannel target = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      writeFully(target, fileHeader(), 0);
+
+      // Records up to the end position are never changed, so they can be read without the lock
+      for (Map.Entry<UserAuthorizationDataKey, RecordPointer> entry : snapshot.entrySet()) {
+        RecordPointer pointer = entry.getValue();
+        transferFully(source, pointer.offset, pointer.size(), target, position);
+
+        moved.put(entry.getKey(), pointer.moveTo(position));
+        position += pointer.size();
+      }
+
+      lock.writeLock().lock();
+
+      try {
+        if (channel != source) {
+          // Closed or reloaded in the meantime
+          target.close();
+          deleteQuietly(tmp);
+          return;
+        }
+
+        swap(target, tmp, moved, end, position);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    } catch (IOException e) {
+      LOGGER.error(logMessage.getMessage(COMPACTION_FAILED, file.toString()), e);
+      deleteQuietly(tmp);
+    }
+  }
+
+  /**
+   * Appends the records saved during the compaction to the new file and replaces the current file.
+   * Must be invoked holding the write lock.
+   * @param target New file
+   * @param tmp Path of the new file
+   * @param moved Position of the records already copied to the new file
+   * @param end End position of the records already copied
+   * @param position End position of the new file
+   */
+  private void swap(FileChannel target, Path tmp,
+      Map<UserAuthorizationDataKey, RecordPointer> moved, long end, long position)
+      throws IOException {
+    long tailSize = fileSize - end;
+    transferFully(channel, end, tailSize, target, position);
+    target.force(true);
+    target.close();
+
+    Map<UserAuthorizationDataKey, RecordPointer> compacted = new LinkedHashMap<>();
+
+    for (Map.Entry<UserAuthorizationDataKey, RecordPointer> entry : index.entrySet()) {
+      RecordPointer pointer = entry.getValue();
+      RecordPointer newPointer = (pointer.offset >= end)
+          ? pointer.moveTo(pointer.offset - end + position) : moved.get(entry.getKey());
+
+      if (newPointer == null) {
+        throw new IOException("Record missing from the compacted file: " + file);
+      }
+
+      compacted.put(entry.getKey(), newPointer);
+    }
+
+    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+
+    closeChannel();
+
+    try {
+      this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.index = compacted;
+      this.fileSize = position + tailSize;
+      this.loaded = true;
+    } catch (IOException e) {
+      // The file is loaded again on the next access
+      LOGGER.error(logMessage.getMessage(COMPACTION_FAILED, file.toString()), e);
+    }
+  }
+
+  private UserAuthorizationData readData(RecordPointer pointer) throws IOException {
+    ByteBuffer payload = ByteBuffer.allocate(pointer.payloadLength);
+    long position = pointer.payloadOffset();
+
+    while (payload.hasRemaining()) {
+      int read = channel.read(payload, position);
+
+      if (read < 0) {
+        throw new IOException("Unexpected end of file: " + file);
+      }
+
+      position += read;
+    }
+
+    return mapper.readValue(payload.array(), UserAuthorizationData.class);
+  }
+
+  private void writeFully(FileChannel target, ByteBuffer buffer, long position)
+      throws IOException {
+    long current = position;
+
+    while (buffer.hasRemaining()) {
+      current += target.write(buffer, current);
+    }
+  }
+
+  private void transferFully(FileChannel source, long position, long count, FileChannel target,
+      long targetPosition) throws IOException {
+    target.position(targetPosition);
+
+    long transferred = 0;
+
+    while (transferred < count) {
+      long result = source.transferTo(position + transferred, count - transferred, target);
+
+      if (result <= 0) {
+        throw new IOException("Unexpected end of file: " + file);
+      }
+
+      transferred += result;
+    }
+  }
+
+  /**
+   * Removes the bytes written by a failed save, so the next record starts at the right position.
+   */
+  private void discardPartialRecord(long offset) {
+    if (channel == null) {
+      return;
+    }
+
+    try {
+      channel.truncate(offset);
+    } catch (IOException e) {
+      // The incomplete record is discarded when the file is loaded again
+      this.loaded = false;
+      closeChannel();
+    }
+  }
+
+  /**
+   * Verifies the file wasn't closed by a failed compaction or by the application shutdown since
+   * it was loaded.
+   */
+  private void checkOpen() throws IOException {
+    if (channel == null) {
+      throw new IOException("Authorization data file is closed: " + file);
+    }
+  }
+
+  private void closeChannel() {
+    this.loaded = false;
+
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOGGER.warn(logMessage.getMessage(FILE_MSG, file.toString()), e);
+      }
+
+      this.channel = null;
+    }
+  }
+
+  private void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      LOGGER.warn(logMessage.getMessage(FILE_MSG, path.toString()), e);
+    }
+  }
+
+  private ByteBuffer fileHeader() {
+    ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+    header.putInt(MAGIC).flip();
+    return header;
+  }
+
+  private byte[] encodeKey(String configurationId, String url, Long userId) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+
+    writeNullableUTF(out, configurationId);
+    writeNullableUTF(out, url);
+    out.writeBoolean(userId != null);
+
+    if (userId != null) {
+      out.writeLong(userId);
+    }
+
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private String readNullableUTF(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private AuthorizationException fileException(IOException e) {
+    return new AuthorizationException(logMessage.getMessage(FILE_MSG, file.toString()), e,
+        logMessage.getMessage(FILE_MSG_SOLUTION));
+  }
+
+  /**
+   * Position of a record in the file.
+   */
+  private static final class RecordPointer {
+
+    private final String configurationId;
+
+    private final long offset;
+
+    private final int headerLength;
+
+    private final int payloadLength;
+
+    private RecordPointer(String configurationId, long offset, int headerLength,
+        int payloadLength) {
+      this.configurationId = configurationId;
+      this.offset = offset;
+      this.headerLength = headerLength;
+      this.payloadLength = payloadLength;
+    }
+
+    private long size() {
+      return RECORD_HEADER_SIZE + headerLength + payloadLength;
+    }
+
+    private long payloadOffset() {
+      return offset + RECORD_HEADER_SIZE + headerLength;
+    }
+
+    private boolean belongsTo(String configurationId) {
+      return (configurationId == null) || configurationId.equals(this.configurationId);
+    }
+
+    private RecordPointer moveTo(long offset) {
+      return new RecordPointer(configurationId, offset, headerLength, payloadLength);
+    }
+
+  }
+
+}
@@ -16,6 +16,7 @@
 
 package org.symphonyoss.integration.core.authorization;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.annotation.Condition;
 import org.springframework.context.annotation.ConditionContext;
 import org.springframework.core.type.AnnotatedTypeMetadata;
@@ -23,6 +24,8 @@ import org.symphonyoss.integration.authorization.AuthorizationRepositoryService;
 
 /**
  * Conditional class to create a local implementation of {@link AuthorizationRepositoryService}
+ * that keeps the authorization data only in memory. When the authorization data file is set, the
+ * {@link FileAuthorizationRepositoryService} is created instead.
  * Created by rsanchez on 14/08/17.
  */
 public class LocalAuthorizationRepoServiceCondition implements Condition {
@@ -31,7 +34,8 @@ public class LocalAuthorizationRepoServiceCondition implements Condition {
   public boolean matches(ConditionContext conditionContext, AnnotatedTypeMetadata annotatedTypeMetadata) {
     String localAuthorization = System.getProperty("local_authorization");
 
-    if (Boolean.valueOf(localAuthorization)) {
+    if (Boolean.valueOf(localAuthorization)
+        && StringUtils.isBlank(System.getProperty(FileAuthorizationRepositoryService.FILE_KEY))) {
       return Boolean.TRUE;
     }
 
@@ -16,29 +16,140 @@
 
 package org.symphonyoss.integration.core.authorization;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.authorization.AuthorizationException;
-import org.symphonyoss.integration.authorization.AuthorizationRepositoryService;
 import org.symphonyoss.integration.authorization.UserAuthorizationData;
 import org.symphonyoss.integration.authorization.UserAuthorizationDataKey;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of a local based repository for authorization data.
  *
+ * The entries are kept in a concurrent cache, optionally bounded and expiring after a time to
+ * live.
+ * The fields of the authorization data listed in {@link #INDEXED_FIELDS_KEY} are indexed, so the
+ * searches filtering by them don't need to scan every entry.
+ * The search results are returned in the order the entries were first saved. The position of a
+ * page is the sequence number of its first entry in that order, so each page is read without going
+ * through the previous ones.
+ *
  * Created by rsanchez on 14/08/17.
  */
 @Component
 @Conditional(LocalAuthorizationRepoServiceCondition.class)
-public class LocalAuthorizationRepositoryService implements AuthorizationRepositoryService {
+public class LocalAuthorizationRepositoryService implements PagedAuthorizationRepositoryService {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(LocalAuthorizationRepositoryService.class);
+
+  /**
+   * Time to live, in milliseconds, of the authorization data. Zero means the entries don't expire.
+   */
+  public static final String TTL_KEY = "local.authorization.ttl";
+
+  public static final String DEFAULT_TTL = "0";
+
+  /**
+   * Maximum number of entries. Zero means the repository is unbounded. Entries evicted to honor
+   * this limit are lost, so it should be set only when the data can be obtained again.
+   */
+  public static final String MAX_SIZE_KEY = "local.authorization.max.size";
+
+  public static final String DEFAULT_MAX_SIZE = "0";
+
+  /**
+   * Comma-separated list of fields of the authorization data to be indexed
+   */
+  public static final String INDEXED_FIELDS_KEY = "local.authorization.indexed.fields";
+
+  private final Cache<UserAuthorizationDataKey, UserAuthorizationData> properties;
+
+  private final FieldAccessors accessors = new FieldAccessors();
 
-  private final Map<UserAuthorizationDataKey, UserAuthorizationData> properties = new HashMap<>();
+  private final Set<String> indexedFields;
+
+  /**
+   * Entry keys indexed by field name and field value
+   */
+  private final ConcurrentMap<String, ConcurrentMap<String, IndexedKeys>> indexes =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Entry keys by sequence number, in the order they were first saved
+   */
+  private final ConcurrentNavigableMap<Long, UserAuthorizationDataKey> order =
+      new ConcurrentSkipListMap<>();
+
+  /**
+   * Sequence number and indexed values of each entry. Guarded by this object.
+   */
+  private final Map<UserAuthorizationDataKey, IndexedEntry> indexedEntries = new HashMap<>();
+
+  /**
+   * Guarded by this object.
+   */
+  private long nextSequence;
+
+  public LocalAuthorizationRepositoryService() {
+    long ttl = Long.valueOf(System.getProperty(TTL_KEY, DEFAULT_TTL));
+    long maxSize = Long.valueOf(System.getProperty(MAX_SIZE_KEY, DEFAULT_MAX_SIZE));
+
+    this.indexedFields = new HashSet<>();
+
+    for (String field : StringUtils.split(System.getProperty(INDEXED_FIELDS_KEY, ""), ',')) {
+      if (StringUtils.isNotBlank(field)) {
+        this.indexedFields.add(field.trim());
+      }
+    }
+
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+
+    if (maxSize > 0) {
+      builder.maximumSize(maxSize);
+    }
+
+    if (ttl > 0) {
+      builder.expireAfterWrite(ttl, TimeUnit.MILLISECONDS);
+    }
+
+    this.properties = builder.removalListener(
+        new RemovalListener<UserAuthorizationDataKey, UserAuthorizationData>() {
+          @Override
+          public void onRemoval(
+              RemovalNotification<UserAuthorizationDataKey, UserAuthorizationData> notification) {
+            if (RemovalCause.SIZE.equals(notification.getCause())) {
+              UserAuthorizationData data = notification.getValue();
+              LOG.warn("Authorization data of user {} on {} evicted to keep the repository size",
+                  data.getUserId(), data.getUrl());
+            }
+
+            unindex(notification.getKey(), notification.getValue());
+          }
+        }).build();
+  }
 
   @Override
   public void save(String integrationUser, String configurationId, UserAuthorizationData data)
@@ -46,28 +157,85 @@ public class LocalAuthorizationRepositoryService implements AuthorizationReposit
     UserAuthorizationDataKey key = new UserAuthorizationDataKey(configurationId, data.getUrl(),
         data.getUserId());
 
-    properties.put(key, data);
+    // Indexed before caching, so the removal listener can tell the replaced entry apart. Both
+    // updates happen under the index lock, so concurrent saves of the same key can't leave the
+    // index pointing to a value other than the cached one.
+    synchronized (this) {
+      index(key, data);
+      properties.put(key, data);
+    }
   }
 
   @Override
   public UserAuthorizationData find(String integrationUser, String configurationId, String url,
       Long userId) throws AuthorizationException {
     UserAuthorizationDataKey key = new UserAuthorizationDataKey(configurationId, url, userId);
-    return properties.get(key);
+    return properties.getIfPresent(key);
   }
 
   @Override
   public List<UserAuthorizationData> search(String integrationUser, String configurationId,
       Map<String, String> filter) throws AuthorizationException {
+    return search(integrationUser, configurationId, filter, null, Integer.MAX_VALUE).getEntries();
+  }
+
+  @Override
+  public UserAuthorizationDataPage search(String integrationUser, String configurationId,
+      Map<String, String> filter, String position, int limit) throws AuthorizationException {
     List<UserAuthorizationData> result = new ArrayList<>();
+    NavigableMap<Long, UserAuthorizationDataKey> candidates = getIndexedCandidates(filter);
+    long start = (position == null) ? 0 : Long.valueOf(position);
 
-    for (UserAuthorizationData userAuthorizationData : properties.values()) {
-      if (isAcceptable(userAuthorizationData, filter)) {
+    if (candidates == null) {
+      candidates = order;
+    }
+
+    Iterator<Map.Entry<Long, UserAuthorizationDataKey>> iterator =
+        candidates.tailMap(start, true).entrySet().iterator();
+    long current = start;
+
+    while (iterator.hasNext() && (result.size() < limit)) {
+      Map.Entry<Long, UserAuthorizationDataKey> candidate = iterator.next();
+      current = candidate.getKey() + 1;
+
+      // Entries evicted in the meantime are skipped
+      UserAuthorizationData userAuthorizationData = properties.getIfPresent(candidate.getValue());
+
+      if ((userAuthorizationData != null) && isAcceptable(userAuthorizationData, filter)) {
         result.add(userAuthorizationData);
       }
     }
 
-    return result;
+    String nextPosition = iterator.hasNext() ? String.valueOf(current) : null;
+    return new UserAuthorizationDataPage(result, nextPosition);
+  }
+
+  /**
+   * Retrieves the smallest set of keys matching an indexed filter.
+   * @param filter Filters
+   * @return Candidate keys by sequence number or null if the filter doesn't use any indexed field
+   */
+  private NavigableMap<Long, UserAuthorizationDataKey> getIndexedCandidates(
+      Map<String, String> filter) {
+    IndexedKeys candidates = null;
+
+    for (Map.Entry<String, String> query : filter.entrySet()) {
+      if (!indexedFields.contains(query.getKey())) {
+        continue;
+      }
+
+      IndexedKeys keys = getIndex(query.getKey()).get(query.getValue());
+
+      if (keys == null) {
+        return Collections.emptyNavigableMap();
+      }
+
+      if ((candidates == null) || (keys.size < candidates.size)) {
+        candidates = keys;
+      }
+    }
+
+    return (candidates != null) ? candidates.keys : null;
   }
 
   /**
@@ -81,20 +249,135 @@ public class LocalAuthorizationRepositoryService implements AuthorizationReposit
     Object data = userAuthorizationData.getData();
 
     for (Map.Entry<String, String> query : filter.entrySet()) {
+      if (!query.getValue().equals(accessors.getValue(data, query.getKey()))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private synchronized void index(UserAuthorizationDataKey key, UserAuthorizationData data) {
+    Map<String, String> values = new HashMap<>();
+
+    for (String field : indexedFields) {
+      String value = accessors.getValue(data.getData(), field);
+
+      if (value != null) {
+        values.put(field, value);
+      }
+    }
+
+    IndexedEntry previous = indexedEntries.get(key);
+    long sequence;
+
+    if (previous != null) {
+      // Replaced entries keep their position
+      sequence = previous.sequence;
+      removeFromIndexes(key, previous);
+    } else {
+      sequence = nextSequence++;
+      order.put(sequence, key);
+    }
+
+    indexedEntries.put(key, new IndexedEntry(data, values, sequence));
+
+    for (Map.Entry<String, String> entry : values.entrySet()) {
+      ConcurrentMap<String, IndexedKeys> index = getIndex(entry.getKey());
+      IndexedKeys keys = index.get(entry.getValue());
+
+      if (keys == null) {
+        keys = new IndexedKeys();
+        index.put(entry.getValue(), keys);
+      }
 
-      try {
-        Field field = data.getClass().getDeclaredField(query.getKey());
-        field.setAccessible(true);
+      keys.keys.put(sequence, key);
+      keys.size++;
+    }
+  }
+
+  /**
+   * Removes the entry from the indexes, unless the given data was already replaced by a newer
+   * one.
+   * @param key Entry key
+   * @param data Authorization data removed from the cache
+   */
+  private synchronized void unindex(UserAuthorizationDataKey key, UserAuthorizationData data) {
+    IndexedEntry entry = indexedEntries.get(key);
+
+    if ((entry == null) || (entry.data != data)) {
+      return;
+    }
 
-        if (!query.getValue().equals(field.get(data).toString())) {
-          return false;
+    indexedEntries.remove(key);
+    order.remove(entry.sequence);
+    removeFromIndexes(key, entry);
+  }
+
+  private void removeFromIndexes(UserAuthorizationDataKey key, IndexedEntry indexedEntry) {
+    for (Map.Entry<String, String> entry : indexedEntry.values.entrySet()) {
+      ConcurrentMap<String, IndexedKeys> index = getIndex(entry.getKey());
+      IndexedKeys keys = index.get(entry.getValue());
+
+      if ((keys != null) && (keys.keys.remove(indexedEntry.sequence) != null)) {
+        keys.size--;
+
+        if (keys.size == 0) {
+          index.remove(entry.getValue());
         }
-      } catch (NoSuchFieldException | IllegalAccessException | NullPointerException e) {
-        return false;
       }
     }
+  }
+
+  private ConcurrentMap<String, IndexedKeys> getIndex(String field) {
+    ConcurrentMap<String, IndexedKeys> index = indexes.get(field);
+
+    if (index == null) {
+      index = new ConcurrentHashMap<>();
+      ConcurrentMap<String, IndexedKeys> current =
+          indexes.putIfAbsent(field, index);
+
+      if (current != null) {
+        index = current;
+      }
+    }
+
+    return index;
+  }
+
+  /**
+   * Entry keys with the same value of an indexed field, by sequence number. Changed only holding
+   * the lock of the repository.
+   */
+  private static final class IndexedKeys {
+
+    private final ConcurrentNavigableMap<Long, UserAuthorizationDataKey> keys =
+        new ConcurrentSkipListMap<>();
+
+    /**
+     * Kept apart as the size of the map isn't a constant-time operation
+     */
+    private volatile int size;
+
+  }
+
+  /**
+   * Authorization data added to the indexes, its indexed values and its sequence number.
+   */
+  private static final class IndexedEntry {
+
+    private final UserAuthorizationData data;
+
+    private final Map<String, String> values;
+
+    private final long sequence;
+
+    private IndexedEntry(UserAuthorizationData data, Map<String, String> values, long sequence) {
+      this.data = data;
+      this.values = values;
+      this.sequence = sequence;
+    }
 
-    return true;
   }
 
 }
@@ -0,0 +1,47 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import org.symphonyoss.integration.authorization.AuthorizationException;
+import org.symphonyoss.integration.authorization.AuthorizationRepositoryService;
+
+import java.util.Map;
+
+/**
+ * Repository for authorization data able to return the search results in pages, so the callers
+ * don't need to keep all the results in memory. Use {@link UserAuthorizationDataCursor} to iterate
+ * over all the results.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+public interface PagedAuthorizationRepositoryService extends AuthorizationRepositoryService {
+
+  /**
+   * Search for a page of user authorization data. Each repository resumes the search from the
+   * given position, so retrieving a page doesn't require reading the previous ones again.
+   * @param integrationUser Integration user
+   * @param configurationId Configuration identifier
+   * @param filter Map used as filter
+   * @param position Position returned with the previous page or null to retrieve the first page
+   * @param limit Max number of entries to return
+   * @return Page of found user authorization data
+   * @throws AuthorizationException Failure to search the authorization data
+   */
+  UserAuthorizationDataPage search(String integrationUser, String configurationId,
+      Map<String, String> filter, String position, int limit) throws AuthorizationException;
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import org.symphonyoss.integration.authorization.AuthorizationException;
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Iterates over the user authorization data matching a filter, retrieving one page at a time.
+ * Only the current page is kept in memory.
+ *
+ * Entries saved while iterating may be skipped or returned twice, depending on how the repository
+ * orders them. The iteration stops if the repository doesn't advance to a new position or returns
+ * the same page again, so repositories ignoring the paging parameters don't make it loop.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+public class UserAuthorizationDataCursor {
+
+  public static final int DEFAULT_PAGE_SIZE = 100;
+
+  private final PagedAuthorizationRepositoryService repository;
+
+  private final String integrationUser;
+
+  private final String configurationId;
+
+  private final Map<String, String> filter;
+
+  private final int pageSize;
+
+  private List<UserAuthorizationData> page = Collections.emptyList();
+
+  private int index;
+
+  /**
+   * Position of the next page
+   */
+  private String position;
+
+  private boolean lastPage;
+
+  public UserAuthorizationDataCursor(PagedAuthorizationRepositoryService repository,
+      String integrationUser, String configurationId, Map<String, String> filter) {
+    this(repository, integrationUser, configurationId, filter, DEFAULT_PAGE_SIZE);
+  }
+
+  public UserAuthorizationDataCursor(PagedAuthorizationRepositoryService repository,
+      String integrationUser, String configurationId, Map<String, String> filter, int pageSize) {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+    }
+
+    this.repository = repository;
+    this.integrationUser = integrationUser;
+    this.configurationId = configurationId;
+    this.filter = filter;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Checks if there are more entries, retrieving the next page if the current one was consumed.
+   * @return true if there are more entries
+   * @throws AuthorizationException Failure to retrieve the next page
+   */
+  public boolean hasNext() throws AuthorizationException {
+    if (index < page.size()) {
+      return true;
+    }
+
+    if (lastPage) {
+      return false;
+    }
+
+    UserAuthorizationDataPage result =
+        repository.search(integrationUser, configurationId, filter, position, pageSize);
+    List<UserAuthorizationData> entries = result.getEntries();
+    String nextPosition = result.getNextPosition();
+
+    if (isSamePage(page, entries)) {
+      this.lastPage = true;
+      this.page = Collections.emptyList();
+      return false;
+    }
+
+    this.lastPage = (nextPosition == null) || nextPosition.equals(position);
+    this.page = entries;
+    this.index = 0;
+    this.position = nextPosition;
+
+    return !page.isEmpty();
+  }
+
+  /**
+   * Retrieves the next entry.
+   * @return User authorization data
+   * @throws AuthorizationException Failure to retrieve the next page
+   * @throws NoSuchElementException There are no more entries
+   */
+  public UserAuthorizationData next() throws AuthorizationException {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    return page.get(index++);
+  }
+
+  /**
+   * Checks if the repository returned the previous page again, comparing the users of the first
+   * and the last entries.
+   */
+  private boolean isSamePage(List<UserAuthorizationData> previous,
+      List<UserAuthorizationData> current) {
+    if (previous.isEmpty() || (previous.size() != current.size())) {
+      return false;
+    }
+
+    return isSameUser(previous.get(0), current.get(0))
+        && isSameUser(previous.get(previous.size() - 1), current.get(current.size() - 1));
+  }
+
+  private boolean isSameUser(UserAuthorizationData data, UserAuthorizationData other) {
+    return Objects.equals(data.getUrl(), other.getUrl())
+        && Objects.equals(data.getUserId(), other.getUserId());
+  }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+
+import java.util.List;
+
+/**
+ * Page of user authorization data returned by {@link PagedAuthorizationRepositoryService}, along
+ * with the position to retrieve the next page.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+public final class UserAuthorizationDataPage {
+
+  private final List<UserAuthorizationData> entries;
+
+  private final String nextPosition;
+
+  public UserAuthorizationDataPage(List<UserAuthorizationData> entries, String nextPosition) {
+    this.entries = entries;
+    this.nextPosition = nextPosition;
+  }
+
+  public List<UserAuthorizationData> getEntries() {
+    return entries;
+  }
+
+  /**
+   * Position to retrieve the next page. The format is defined by each repository.
+   * @return Next position or null if this is the last page
+   */
+  public String getNextPosition() {
+    return nextPosition;
+  }
+
+}
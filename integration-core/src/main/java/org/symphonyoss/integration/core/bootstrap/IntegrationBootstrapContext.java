@@ -23,10 +23,13 @@ import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.Integration;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
+import org.symphonyoss.integration.config.InstanceCacheWarmUp;
+import org.symphonyoss.integration.config.event.IntegrationConfigChangedEventData;
 import org.symphonyoss.integration.core.NullIntegration;
 import org.symphonyoss.integration.core.runnable.IntegrationAbstractRunnable;
 import org.symphonyoss.integration.exception.IntegrationRuntimeException;
@@ -106,6 +109,9 @@ public class IntegrationBootstrapContext implements IntegrationBootstrap {
   @Autowired
   private Environment environment;
 
+  @Autowired
+  private InstanceCacheWarmUp instanceCacheWarmUp;
+
   /**
    * Atomic  Integer used to control when the application should log its health.
    * The application health should only be logged after the last default integration finishes
@@ -267,6 +273,9 @@ public class IntegrationBootstrapContext implements IntegrationBootstrap {
       LOGGER.info(logMessage.getMessage(INTEGRATION_SUCCESSFULLY_BOOTSTRAPPED, integrationUser));
 
       logging.logIntegration(integration);
+
+      // Webhooks are accepted while the instances are loaded in background
+      instanceCacheWarmUp.warmUp(settings.getConfigurationId(), integrationUser);
     } catch (ConnectivityException e) {
       LOGGER.error(logMessage.getMessage(FAIL_BOOTSTRAP_INTEGRATION_RETRYING, integrationUser), e);
       try {
@@ -320,6 +329,22 @@ public class IntegrationBootstrapContext implements IntegrationBootstrap {
     this.integrations.clear();
   }
 
+  /**
+   * Notifies the integration that its configuration was reloaded. The other integrations are
+   * not touched.
+   * @param event Configuration changed event
+   */
+  @EventListener
+  public void handleConfigChangedEvent(IntegrationConfigChangedEventData event) {
+    IntegrationSettings settings = event.getSettings();
+    Integration integration = getIntegrationById(settings.getConfigurationId());
+
+    if (integration != null) {
+      LOGGER.info(logMessage.getMessage(INTEGRATION_CONFIG_CHANGED, settings.getType()));
+      integration.onConfigChange(settings);
+    }
+  }
+
   @Override
   public Integration getIntegrationById(String id) throws IllegalStateException {
     return this.integrations.get(id);
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.bridge;
+
+import org.symphonyoss.integration.model.message.Message;
+import org.symphonyoss.integration.service.StreamService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Extends the {@link StreamService} to post messages without blocking the caller thread.
+ *
+ * Created by rsanchez on 26/10/17.
+ */
+public interface AsyncStreamService extends StreamService {
+
+  /**
+   * Post a message to one existing stream asynchronously.
+   * @param integrationUser Integration user
+   * @param stream Stream identifier
+   * @param message Message to be posted
+   * @return Future to be completed with the message posted or with the exception reported by the
+   * Agent API
+   */
+  CompletableFuture<Message> postMessageAsync(String integrationUser, String stream,
+      Message message);
+
+  /**
+   * Post a message to several existing streams asynchronously. The message is encoded only once
+   * for all the streams.
+   * @param integrationUser Integration user
+   * @param streams Stream identifiers
+   * @param message Message to be posted
+   * @return Futures, in the same order of the streams, to be completed with the message posted or
+   * with the exception reported by the Agent API
+   */
+  List<CompletableFuture<Message>> postMessageAsync(String integrationUser, List<String> streams,
+      Message message);
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.bridge;
+
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Keeps the streams recently reported as forbidden for each integration user, so the Integration
+ * Bridge can skip the posts that would certainly fail until the instance is updated.
+ *
+ * Entries expire after a configurable time, allowing the stream to be retried if the integration
+ * user was added back to the room.
+ *
+ * Created by rsanchez on 30/10/17.
+ */
+@Component
+public class ForbiddenStreamCache {
+
+  /**
+   * Time, in milliseconds, to keep a stream marked as forbidden
+   */
+  public static final String TTL_KEY = "forbidden.stream.cache.ttl";
+
+  public static final String DEFAULT_TTL = "60000";
+
+  private static final long MAX_SIZE = 10000;
+
+  private static final String SKIPPED_POSTS = "skipped.forbidden.posts";
+
+  @Autowired
+  private MetricRegistry metricsRegistry;
+
+  private final Cache<String, Boolean> cache;
+
+  /**
+   * Number of posts skipped because the stream was marked as forbidden
+   */
+  private Meter skippedPosts;
+
+  public ForbiddenStreamCache() {
+    long ttl = Long.valueOf(System.getProperty(TTL_KEY, DEFAULT_TTL));
+    this.cache = CacheBuilder.newBuilder()
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .maximumSize(MAX_SIZE)
+        .build();
+  }
+
+  @PostConstruct
+  public void init() {
+    this.skippedPosts = metricsRegistry.meter(MetricRegistry.name(BASE_METRIC_NAME, SKIPPED_POSTS));
+  }
+
+  /**
+   * Marks the stream as forbidden for the integration user.
+   * @param integrationUser Integration user
+   * @param stream Stream identifier
+   */
+  public void put(String integrationUser, String stream) {
+    cache.put(getKey(integrationUser, stream), Boolean.TRUE);
+  }
+
+  /**
+   * Verifies if the stream was recently reported as forbidden for the integration user.
+   * @param integrationUser Integration user
+   * @param stream Stream identifier
+   * @return true if the stream is marked as forbidden
+   */
+  public boolean isForbidden(String integrationUser, String stream) {
+    return cache.getIfPresent(getKey(integrationUser, stream)) != null;
+  }
+
+  /**
+   * Discards the forbidden mark of the stream.
+   * @param integrationUser Integration user
+   * @param stream Stream identifier
+   */
+  public void invalidate(String integrationUser, String stream) {
+    cache.invalidate(getKey(integrationUser, stream));
+  }
+
+  /**
+   * Signals a post skipped because the stream is marked as forbidden.
+   */
+  public void skipPost() {
+    if (skippedPosts != null) {
+      skippedPosts.mark();
+    }
+  }
+
+  private String getKey(String integrationUser, String stream) {
+    return integrationUser + ":" + stream;
+  }
+
+}
@@ -17,32 +17,43 @@
 package org.symphonyoss.integration.core.bridge;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.symphonyoss.integration.logging.DistributedTracingUtils.TRACE_ID;
 import static org.symphonyoss.integration.core.properties
     .IntegrationBridgeExceptionHandlerProperties.FAIL_NOTIFY_OWNER;
 import static org.symphonyoss.integration.core.properties
     .IntegrationBridgeExceptionHandlerProperties.FAIL_POST_MESSAGE;
+import static org.symphonyoss.integration.core.properties
+    .IntegrationBridgeExceptionHandlerProperties.FAIL_RETRIEVE_INSTANCE;
 import static org.symphonyoss.integration.core.properties
     .IntegrationBridgeExceptionHandlerProperties.FAIL_UPDATE_STREAM;
 import static org.symphonyoss.integration.core.properties
     .IntegrationBridgeExceptionHandlerProperties.FAIL_UPDATE_STREAM_SOLUTION;
 import static org.symphonyoss.integration.core.properties
     .IntegrationBridgeExceptionHandlerProperties.INVALID_MESSAGE;
+import static org.symphonyoss.integration.core.properties
+    .IntegrationBridgeExceptionHandlerProperties.REMOVE_STREAM_FROM_INSTANCES;
 import static org.symphonyoss.integration.core.properties
     .IntegrationBridgeExceptionHandlerProperties.UNABLE_POST_STREAM;
 import static org.symphonyoss.integration.core.properties
     .IntegrationBridgeExceptionHandlerProperties.UPDATE_INSTANCE_NOTIFY;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import org.apache.commons.lang3.StringUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
+import org.symphonyoss.integration.config.InstanceOptionsCache;
+import org.symphonyoss.integration.config.model.InstanceOptions;
+import org.symphonyoss.integration.core.bootstrap.NamedThreadFactory;
+import org.symphonyoss.integration.core.runnable.IntegrationAbstractRunnable;
 import org.symphonyoss.integration.entity.model.User;
 import org.symphonyoss.integration.exception.ExceptionHandler;
-import org.symphonyoss.integration.exception.IntegrationRuntimeException;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.exception.config.IntegrationConfigException;
 import org.symphonyoss.integration.json.JsonUtils;
@@ -58,11 +69,19 @@ import org.symphonyoss.integration.service.StreamService;
 import org.symphonyoss.integration.utils.WebHookConfigurationUtils;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.ws.rs.core.Response.Status;
 
 /**
@@ -92,24 +111,44 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
           + "I can no longer post messages for some of the rooms in this instance unless I am "
           + "reconfigured to do so.</messageML>";
 
-  private static final String STREAM_ID = "streamId";
+  private static final String CODE = "code";
+
+  /**
+   * Used to copy the integration instances before changing them
+   */
+  private static final ObjectMapper INSTANCE_MAPPER = new ObjectMapper();
+
+  /**
+   * Time window, in milliseconds, used to group the streams that must be removed from the same
+   * instance.
+   */
+  public static final String STREAM_REMOVAL_DELAY_KEY = "stream.removal.delay";
 
-  private static final String ROOM_NAME = "roomName";
+  public static final String DEFAULT_STREAM_REMOVAL_DELAY = "5000";
 
-  private static final String ROOMS = "rooms";
+  /**
+   * Expiration time, in minutes, of the IM streams and display names used to notify the owners.
+   */
+  private static final long NOTIFICATION_CACHE_EXPIRATION = 60;
 
-  private static final String CODE = "code";
+  private static final long NOTIFICATION_CACHE_MAX_SIZE = 10000;
 
   @Autowired
   private AuthenticationProxy authenticationProxy;
 
-  @Qualifier("remoteIntegrationService")
+  @Qualifier("cachedIntegrationService")
   @Autowired
   private IntegrationService integrationService;
 
   @Autowired
   private StreamService streamService;
 
+  @Autowired
+  private InstanceOptionsCache instanceOptionsCache;
+
+  @Autowired
+  private ForbiddenStreamCache forbiddenStreamCache;
+
   @Autowired
   private PodHttpApiClient podApiClient;
 
@@ -118,9 +157,49 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
   @Autowired
   private LogMessageSource logMessage;
 
+  /**
+   * Streams waiting to be removed indexed by instance identifier
+   */
+  private final ConcurrentMap<String, StreamRemoval> pendingRemovals = new ConcurrentHashMap<>();
+
+  /**
+   * IM streams between the integration user and the instance owner
+   */
+  private final Cache<String, String> ownerIMs = CacheBuilder.newBuilder()
+      .expireAfterWrite(NOTIFICATION_CACHE_EXPIRATION, TimeUnit.MINUTES)
+      .maximumSize(NOTIFICATION_CACHE_MAX_SIZE)
+      .build();
+
+  /**
+   * Display names of the integration users
+   */
+  private final Cache<String, String> displayNames = CacheBuilder.newBuilder()
+      .expireAfterWrite(NOTIFICATION_CACHE_EXPIRATION, TimeUnit.MINUTES)
+      .maximumSize(NOTIFICATION_CACHE_MAX_SIZE)
+      .build();
+
+  /**
+   * Removes the streams in background. If null, the streams are removed in the caller thread.
+   */
+  private ScheduledExecutorService scheduler;
+
+  private long removalDelay;
+
   @PostConstruct
   public void init() {
     usersApi = new UserApiClient(podApiClient, logMessage);
+
+    removalDelay = Long.valueOf(
+        System.getProperty(STREAM_REMOVAL_DELAY_KEY, DEFAULT_STREAM_REMOVAL_DELAY));
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+        new NamedThreadFactory("StreamRemoval", true));
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
   }
 
   public void handleRemoteApiException(RemoteApiException remoteException,
@@ -132,7 +211,9 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
     LOGGER.error(message, remoteException);
 
     if (isForbiddenError(status, remoteException.getResponseMessage())) {
-      updateStreams(instance, integrationUser, stream);
+      forbiddenStreamCache.put(integrationUser, stream);
+      scheduleStreamRemoval(instance, integrationUser, stream);
+      scheduleRelatedStreamRemovals(instance, integrationUser, stream);
     } else if (Status.BAD_REQUEST.equals(status)) {
       LOGGER.warn(logMessage.getMessage(INVALID_MESSAGE, stream, instance.getInstanceId()),
           remoteException);
@@ -167,83 +248,237 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
   }
 
   /**
-   * Update the integration instance removing the stream. Needs to notify the instance owner.
+   * Schedules the stream removal. Streams reported for the same instance within the time window
+   * are removed together.
    * @param instance to determine the unreachable room name and provide info for the remaining process.
    * @param integrationUser to remove the stream from the instance and to notify the instance owner.
    * @param stream to be removed from the instance.
    */
-  private void updateStreams(IntegrationInstance instance, String integrationUser, String stream) {
+  private void scheduleStreamRemoval(IntegrationInstance instance, String integrationUser,
+      String stream) {
+    final String instanceId = instance.getInstanceId();
+
+    if ((scheduler == null) || (instanceId == null)) {
+      updateStreams(instance, integrationUser, Collections.singletonList(stream));
+      return;
+    }
+
+    while (true) {
+      StreamRemoval removal = pendingRemovals.get(instanceId);
+
+      if (removal == null) {
+        StreamRemoval newRemoval = new StreamRemoval();
+        newRemoval.add(instance, integrationUser, stream);
+
+        removal = pendingRemovals.putIfAbsent(instanceId, newRemoval);
+
+        if (removal == null) {
+          scheduleStreamRemoval(instanceId, newRemoval);
+          return;
+        }
+      }
+
+      if (removal.add(instance, integrationUser, stream)) {
+        return;
+      }
+
+      // Removal already started, a new one must be scheduled
+      pendingRemovals.remove(instanceId, removal);
+    }
+  }
+
+  /**
+   * Schedules the stream removal for the other instances, from the same configuration, that are
+   * configured to post on the same stream. The integration user lost the access to the stream, so
+   * those instances would fail as well. The related instances are retrieved in background.
+   * @param instance Instance that reported the failure
+   * @param integrationUser to remove the stream from the instances and to notify the owners.
+   * @param stream to be removed from the instances.
+   */
+  private void scheduleRelatedStreamRemovals(final IntegrationInstance instance,
+      final String integrationUser, final String stream) {
+    if (scheduler == null) {
+      removeStreamFromRelatedInstances(instance, integrationUser, stream);
+      return;
+    }
+
     try {
-      String roomName = StringUtils.EMPTY;
-      Iterator<JsonNode> rooms =
-          WebHookConfigurationUtils.fromJsonString(instance.getOptionalProperties())
-              .path(ROOMS)
-              .iterator();
-
-      while (rooms.hasNext()) {
-        JsonNode room = rooms.next();
-        // removes url unsafe chars from the streamId field, so it can be compared to the stream
-        // being processed
-        String roomStream = room.path(STREAM_ID).asText().replaceAll("/", "_").replace("==", "");
-        if (stream.equals(roomStream)) {
-          roomName = room.path(ROOM_NAME).asText();
-          break;
+      scheduler.execute(new IntegrationAbstractRunnable(MDC.get(TRACE_ID)) {
+        @Override
+        protected void execute() {
+          removeStreamFromRelatedInstances(instance, integrationUser, stream);
         }
+      });
+    } catch (RejectedExecutionException e) {
+      removeStreamFromRelatedInstances(instance, integrationUser, stream);
+    }
+  }
+
+  /**
+   * Retrieves the other instances configured to post on the stream and schedules the stream
+   * removal for each of them.
+   * @param instance Instance that reported the failure
+   * @param integrationUser to remove the stream from the instances and to notify the owners.
+   * @param stream to be removed from the instances.
+   */
+  private void removeStreamFromRelatedInstances(IntegrationInstance instance,
+      String integrationUser, String stream) {
+    String configurationId = instance.getConfigurationId();
+    Set<String> instances = instanceOptionsCache.getInstancesByStream(configurationId, stream);
+    instances.remove(instance.getInstanceId());
+
+    if (instances.isEmpty()) {
+      return;
+    }
+
+    LOGGER.info(logMessage.getMessage(REMOVE_STREAM_FROM_INSTANCES, stream,
+        String.valueOf(instances.size())));
+
+    for (String instanceId : instances) {
+      try {
+        IntegrationInstance related =
+            integrationService.getInstanceById(configurationId, instanceId, integrationUser);
+
+        if (related != null) {
+          scheduleStreamRemoval(related, integrationUser, stream);
+        }
+      } catch (RuntimeException e) {
+        LOGGER.error(logMessage.getMessage(FAIL_RETRIEVE_INSTANCE, instanceId), e);
       }
+    }
+  }
 
-      removeStreamFromInstance(instance, integrationUser, stream);
-      notifyInstanceOwner(instance, integrationUser, roomName);
-    } catch (IntegrationRuntimeException | IOException e) {
+  private void scheduleStreamRemoval(final String instanceId, final StreamRemoval removal) {
+    try {
+      scheduler.schedule(new IntegrationAbstractRunnable(MDC.get(TRACE_ID)) {
+        @Override
+        protected void execute() {
+          removal.close();
+          pendingRemovals.remove(instanceId, removal);
+
+          updateStreams(removal.getInstance(), removal.getIntegrationUser(),
+              removal.getStreams());
+        }
+      }, removalDelay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      removal.close();
+      pendingRemovals.remove(instanceId, removal);
+
+      updateStreams(removal.getInstance(), removal.getIntegrationUser(), removal.getStreams());
+    }
+  }
+
+  /**
+   * Update the integration instance removing the streams. Needs to notify the instance owner.
+   * @param instance to determine the unreachable room names and provide info for the remaining process.
+   * @param integrationUser to remove the streams from the instance and to notify the instance owner.
+   * @param streams to be removed from the instance.
+   */
+  private void updateStreams(IntegrationInstance instance, String integrationUser,
+      List<String> streams) {
+    try {
+      InstanceOptions options = instanceOptionsCache.get(instance);
+
+      removeStreamsFromInstance(instance, integrationUser, streams);
+
+      for (String stream : streams) {
+        notifyInstanceOwner(instance, integrationUser, options.getOwner(),
+            options.getRoomName(stream));
+      }
+    } catch (RuntimeException | IOException e) {
       String solution = logMessage.getMessage(FAIL_UPDATE_STREAM_SOLUTION);
       LOGGER.error(logMessage.getMessage(FAIL_UPDATE_STREAM), e, solution);
     }
   }
 
   /**
-   * Remove stream from instance
+   * Remove streams from instance. The instance is shared by the integration service cache, so the
+   * changes are saved through a copy of it.
    * @param instance Integration instance
    * @param integrationUser Integration user
-   * @param stream Stream that will be removed
+   * @param removedStreams Streams that will be removed
    * @throws IntegrationConfigException Reports failure to save the configuration instance
    * @throws IOException Reports failure to read or write the JSON nodes
    */
-  private void removeStreamFromInstance(IntegrationInstance instance, String integrationUser,
-      String stream) throws IOException {
-    List<String> streams = streamService.getStreams(instance);
-    streams.remove(stream);
+  private void removeStreamsFromInstance(IntegrationInstance instance, String integrationUser,
+      List<String> removedStreams) throws IOException {
+    List<String> streams = new ArrayList<>(streamService.getStreams(instance));
+    streams.removeAll(removedStreams);
 
     String optionalProperties = instance.getOptionalProperties();
 
     JsonNode optionalPropertiesNode =
         WebHookConfigurationUtils.setStreams(optionalProperties, streams);
     optionalPropertiesNode =
-        WebHookConfigurationUtils.setRemovedStreams(optionalPropertiesNode, Arrays.asList(stream));
+        WebHookConfigurationUtils.setRemovedStreams(optionalPropertiesNode, removedStreams);
 
-    instance.setOptionalProperties(WebHookConfigurationUtils.toJsonString(optionalPropertiesNode));
+    JsonNode instanceNode = INSTANCE_MAPPER.valueToTree(instance);
+    IntegrationInstance updated =
+        INSTANCE_MAPPER.treeToValue(instanceNode, IntegrationInstance.class);
+    updated.setOptionalProperties(WebHookConfigurationUtils.toJsonString(optionalPropertiesNode));
 
-    integrationService.save(instance, integrationUser);
+    integrationService.save(updated, integrationUser);
   }
 
   /**
    * Notifies the instance owner about the integration bridge not being able to post the message to the configured room.
    * @param instance to determine the owner of this instance.
    * @param integrationUser to determine which integration user is going to post the message.
+   * @param ownerUserId the owner of this instance.
    * @param roomName to tell the user which room we can't reach.
    */
   private void notifyInstanceOwner(IntegrationInstance instance, String integrationUser,
-      String roomName) {
+      Long ownerUserId, String roomName) {
     try {
-      // Create IM
-      Long ownerUserId = WebHookConfigurationUtils.getOwner(instance.getOptionalProperties());
-      Stream im = streamService.createIM(integrationUser, ownerUserId);
+      String im = getOwnerIM(integrationUser, ownerUserId);
 
       // Posting message through the IM
-      postIM(integrationUser, roomName, im.getId(), instance.getName());
-    } catch (RemoteApiException | IOException e) {
+      postIM(integrationUser, roomName, im, instance.getName());
+    } catch (RemoteApiException e) {
       LOGGER.error(logMessage.getMessage(FAIL_NOTIFY_OWNER), e);
     }
   }
 
+  /**
+   * Retrieves the IM stream between the integration user and the instance owner. The IM is
+   * created only if it wasn't used recently.
+   * @param integrationUser Integration user
+   * @param ownerUserId Instance owner
+   * @return IM stream identifier
+   * @throws RemoteApiException Failure to create the IM
+   */
+  private String getOwnerIM(String integrationUser, Long ownerUserId) throws RemoteApiException {
+    String key = integrationUser + ":" + ownerUserId;
+    String im = ownerIMs.getIfPresent(key);
+
+    if (im == null) {
+      Stream stream = streamService.createIM(integrationUser, ownerUserId);
+      im = stream.getId();
+      ownerIMs.put(key, im);
+    }
+
+    return im;
+  }
+
+  /**
+   * Retrieves the display name of the integration user.
+   * @param integrationUser Integration user
+   * @return Display name
+   * @throws RemoteApiException Failure to retrieve the user info
+   */
+  private String getDisplayName(String integrationUser) throws RemoteApiException {
+    String displayName = displayNames.getIfPresent(integrationUser);
+
+    if (displayName == null) {
+      User userInfo = usersApi.getUserByUsername(
+          authenticationProxy.getSessionToken(integrationUser), integrationUser);
+      displayName = userInfo.getDisplayName();
+      displayNames.put(integrationUser, displayName);
+    }
+
+    return displayName;
+  }
+
   /**
    * Posting a notification message through the IM.
    * @param integrationUser to determine which integration user is going to post the message.
@@ -254,17 +489,14 @@ public class IntegrationBridgeExceptionHandler extends ExceptionHandler {
    */
   private void postIM(String integrationUser, String roomName, String im, String instanceName)
       throws RemoteApiException {
-
-    User userInfo = usersApi.getUserByUsername(authenticationProxy.getSessionToken(integrationUser),
-        integrationUser);
+    String displayName = getDisplayName(integrationUser);
 
     String message;
 
     if (isBlank(roomName)) {
-      message =
-          String.format(UNDETERMINED_ROOM_NOTIFICATION, userInfo.getDisplayName(), instanceName);
+      message = String.format(UNDETERMINED_ROOM_NOTIFICATION, displayName, instanceName);
     } else {
-      message = String.format(DEFAULT_NOTIFICATION, userInfo.getDisplayName(), roomName, roomName);
+      message = String.format(DEFAULT_NOTIFICATION, displayName, roomName, roomName);
     }
 
     Message messageSubmission = new Message();
@@ -24,6 +24,8 @@ import static org.symphonyoss.integration.core.properties.IntegrationBridgeImplP
     .REMOTE_API_EXCEPTION_REASON;
 import static org.symphonyoss.integration.core.properties.IntegrationBridgeImplProperties
     .REMOTE_API_EXCEPTION_WITH_RESULT_REASON;
+import static org.symphonyoss.integration.core.properties.IntegrationBridgeImplProperties
+    .SKIPPED_FORBIDDEN_STREAM;
 import static org.symphonyoss.integration.core.properties.IntegrationBridgeImplProperties
     .USER_POSTED_MESSAGE;
 
@@ -42,8 +44,11 @@ import org.symphonyoss.integration.model.message.Message;
 import org.symphonyoss.integration.service.IntegrationBridge;
 import org.symphonyoss.integration.service.StreamService;
 
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import javax.ws.rs.ProcessingException;
 import javax.ws.rs.core.Response;
@@ -65,6 +70,9 @@ public class IntegrationBridgeImpl implements IntegrationBridge {
   @Autowired
   private IntegrationBridgeExceptionHandler exceptionHandler;
 
+  @Autowired
+  private ForbiddenStreamCache forbiddenStreamCache;
+
   @Autowired
   private LogMessageSource logMessage;
 
@@ -97,6 +105,9 @@ public class IntegrationBridgeImpl implements IntegrationBridge {
    * a RemoteApiException is thrown with 500. In this case, the Integration Bridge returns 500 because there might be
    * intermittent errors in the process and a retry by the originating system could cause the message to succeed.
    *
+   * Streams recently reported as forbidden for the integration user are skipped and handled as if the agent had
+   * returned 403 again.
+   *
    * @param instance the integration instance
    * @param integrationUser the integration user
    * @param streams the list of streams
@@ -118,10 +129,24 @@ public class IntegrationBridgeImpl implements IntegrationBridge {
       throw new RemoteApiException(code, reason, solution);
     }
 
+    List<String> reachableStreams = getReachableStreams(integrationUser, streams);
+
+    List<CompletableFuture<Message>> responses =
+        dispatchMessage(integrationUser, reachableStreams, message);
+
     RemoteApiException remoteApiException = null;
-    for (String stream : streams) {
+
+    if (reachableStreams.size() < streams.size()) {
+      Integer code = Response.Status.FORBIDDEN.getStatusCode();
+      remoteApiException = new RemoteApiException(code, Response.Status.FORBIDDEN.getReasonPhrase());
+    }
+
+    for (int i = 0; i < reachableStreams.size(); i++) {
+      String stream = reachableStreams.get(i);
+      CompletableFuture<Message> response = (responses != null) ? responses.get(i) : null;
+
       try {
-        Message messageResponse = postMessage(integrationUser, stream, message);
+        Message messageResponse = postMessage(integrationUser, stream, message, response);
         result.add(messageResponse);
       } catch (RemoteApiException e) {
         exceptionHandler.handleRemoteApiException(e, instance, integrationUser, stream);
@@ -158,21 +183,95 @@ public class IntegrationBridgeImpl implements IntegrationBridge {
   }
 
   /**
-   * Sends a message to a specific stream using {@link AuthenticationProxy}.
+   * Removes the streams recently reported as forbidden for the integration user.
+   * @param integrationUser the user of integration
+   * @param streams the list of streams
+   * @return Streams the message should be posted to
+   */
+  private List<String> getReachableStreams(String integrationUser, List<String> streams) {
+    List<String> reachableStreams = new ArrayList<>(streams.size());
+
+    for (String stream : streams) {
+      if (forbiddenStreamCache.isForbidden(integrationUser, stream)) {
+        LOGGER.info(logMessage.getMessage(SKIPPED_FORBIDDEN_STREAM, integrationUser, stream));
+        forbiddenStreamCache.skipPost();
+      } else {
+        reachableStreams.add(stream);
+      }
+    }
+
+    return reachableStreams;
+  }
+
+  /**
+   * Posts the message to all the streams at once when the stream service supports asynchronous
+   * calls. The responses are consumed in the same order of the streams.
+   * @param integrationUser the user of integration
+   * @param streams the list of streams
+   * @param message the actual message. It's expected to be already on proper format.
+   * @return Pending responses or null if the message must be posted synchronously
+   */
+  private List<CompletableFuture<Message>> dispatchMessage(String integrationUser,
+      List<String> streams, Message message) {
+    if ((streams.size() <= 1) || (!(streamService instanceof AsyncStreamService))) {
+      return null;
+    }
+
+    return ((AsyncStreamService) streamService).postMessageAsync(integrationUser, streams, message);
+  }
+
+  /**
+   * Sends a message to a specific stream using {@link AuthenticationProxy}. If the message was
+   * already dispatched, waits for the pending response.
    * @param integrationUser the user of integration
    * @param stream the stream identifier.
    * @param message the actual message. It's expected to be already on proper format.
+   * @param response Pending response or null if the message wasn't dispatched yet
    * @return Response message
    * @throws RemoteApiException
    */
-  private Message postMessage(String integrationUser, String stream, Message message)
-      throws RemoteApiException {
-    Message messageResponse = streamService.postMessage(integrationUser, stream, message);
+  private Message postMessage(String integrationUser, String stream, Message message,
+      CompletableFuture<Message> response) throws RemoteApiException {
+    Message messageResponse;
+
+    if (response == null) {
+      messageResponse = streamService.postMessage(integrationUser, stream, message);
+    } else {
+      messageResponse = waitForResponse(response);
+    }
+
     LOGGER.info(logMessage.getMessage(USER_POSTED_MESSAGE,integrationUser, stream));
 
     return messageResponse;
   }
 
+  /**
+   * Waits for the pending response and rethrows the exception reported by the stream service.
+   * @param response Pending response
+   * @return Response message
+   * @throws RemoteApiException
+   */
+  private Message waitForResponse(CompletableFuture<Message> response) throws RemoteApiException {
+    try {
+      return response.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ProcessingException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+
+      if (cause instanceof RemoteApiException) {
+        throw (RemoteApiException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+
+      throw new UndeclaredThrowableException(cause);
+    }
+  }
+
   @Override
   public Integration getIntegrationById(String integrationId) {
     return this.bootstrap.getIntegrationById(integrationId);
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.bridge;
+
+import org.symphonyoss.integration.model.config.IntegrationInstance;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Groups the streams that must be removed from an integration instance, so they can be removed
+ * with a single update.
+ *
+ * Once closed, this object doesn't accept more streams and a new one must be created.
+ *
+ * Created by rsanchez on 27/10/17.
+ */
+class StreamRemoval {
+
+  private IntegrationInstance instance;
+
+  private String integrationUser;
+
+  private final Set<String> streams = new LinkedHashSet<>();
+
+  private boolean closed;
+
+  /**
+   * Adds a stream to be removed. Keeps the most recent copy of the integration instance.
+   * @param instance Integration instance
+   * @param integrationUser Integration user
+   * @param stream Stream to be removed
+   * @return false if this object was already closed
+   */
+  public synchronized boolean add(IntegrationInstance instance, String integrationUser,
+      String stream) {
+    if (closed) {
+      return false;
+    }
+
+    this.instance = instance;
+    this.integrationUser = integrationUser;
+    this.streams.add(stream);
+
+    return true;
+  }
+
+  /**
+   * Stops accepting new streams.
+   */
+  public synchronized void close() {
+    this.closed = true;
+  }
+
+  public synchronized IntegrationInstance getInstance() {
+    return instance;
+  }
+
+  public synchronized String getIntegrationUser() {
+    return integrationUser;
+  }
+
+  public synchronized List<String> getStreams() {
+    return new ArrayList<>(streams);
+  }
+
+}
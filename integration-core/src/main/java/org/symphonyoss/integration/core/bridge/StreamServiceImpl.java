@@ -26,20 +26,26 @@ import static org.symphonyoss.integration.core.properties.StreamServiceImplPrope
     .ERROR_GET_STREAM_JSON_SOLUTION;
 import static org.symphonyoss.integration.healthcheck.services.indicators.AgentHealthIndicator
     .AGENT_MESSAGEML_VERSION2;
+import static org.symphonyoss.integration.logging.DistributedTracingUtils.TRACE_ID;
 
 import com.github.zafarkhaja.semver.Version;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.symphonyoss.integration.agent.api.client.AgentApiClient;
 import org.symphonyoss.integration.agent.api.client.MessageApiClient;
+import org.symphonyoss.integration.agent.api.client.PreparedMessage;
 import org.symphonyoss.integration.agent.api.client.V2MessageApiClient;
 import org.symphonyoss.integration.agent.api.client.V4MessageApiClient;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
 import org.symphonyoss.integration.authentication.AuthenticationToken;
 import org.symphonyoss.integration.authentication.api.enums.ServiceName;
+import org.symphonyoss.integration.config.InstanceOptionsCache;
+import org.symphonyoss.integration.core.bootstrap.NamedThreadFactory;
+import org.symphonyoss.integration.core.runnable.IntegrationAbstractRunnable;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.healthcheck.event.ServiceVersionUpdatedEventData;
 import org.symphonyoss.integration.logging.LogMessageSource;
@@ -50,7 +56,6 @@ import org.symphonyoss.integration.model.stream.Stream;
 import org.symphonyoss.integration.model.stream.StreamType;
 import org.symphonyoss.integration.pod.api.client.PodHttpApiClient;
 import org.symphonyoss.integration.pod.api.client.StreamApiClient;
-import org.symphonyoss.integration.service.StreamService;
 import org.symphonyoss.integration.utils.WebHookConfigurationUtils;
 
 import java.io.IOException;
@@ -59,18 +64,39 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * Service component responsible to post message through the Agent Message API.
  * Created by rsanchez on 13/05/16.
  */
 @Component
-public class StreamServiceImpl implements StreamService {
+public class StreamServiceImpl implements AsyncStreamService {
 
   private static final Logger LOG = LoggerFactory.getLogger(StreamServiceImpl.class);
 
+  /**
+   * Number of threads used to post messages asynchronously
+   */
+  public static final String DISPATCHER_THREADS_KEY = "message.dispatcher.threads";
+
+  public static final String DEFAULT_DISPATCHER_THREADS = "20";
+
+  /**
+   * Maximum number of messages waiting for a dispatcher thread. When the queue is full the caller
+   * thread posts the message itself.
+   */
+  public static final String DISPATCHER_QUEUE_SIZE_KEY = "message.dispatcher.queue.size";
+
+  public static final String DEFAULT_DISPATCHER_QUEUE_SIZE = "500";
+
   @Autowired
   private AuthenticationProxy authenticationProxy;
 
@@ -86,6 +112,12 @@ public class StreamServiceImpl implements StreamService {
   @Autowired
   private LogMessageSource logMessage;
 
+  /**
+   * Parsed instance options
+   */
+  @Autowired
+  private InstanceOptionsCache instanceOptionsCache;
+
   /**
    * Pod Stream API Client
    */
@@ -96,6 +128,11 @@ public class StreamServiceImpl implements StreamService {
    */
   private Map<MessageMLVersion, MessageApiClient> apiResolver = new HashMap<>();
 
+  /**
+   * Executor used to post messages asynchronously
+   */
+  private ExecutorService dispatcher;
+
   /**
    * Initialize
    */
@@ -109,11 +146,33 @@ public class StreamServiceImpl implements StreamService {
     // After that, this API version might get overridden by the event handler method.
     apiResolver.put(MessageMLVersion.V1, messageApiClient);
     apiResolver.put(MessageMLVersion.V2, messageApiClient);
+
+    int threads = Integer.valueOf(
+        System.getProperty(DISPATCHER_THREADS_KEY, DEFAULT_DISPATCHER_THREADS));
+    int queueSize = Integer.valueOf(
+        System.getProperty(DISPATCHER_QUEUE_SIZE_KEY, DEFAULT_DISPATCHER_QUEUE_SIZE));
+    dispatcher = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize),
+        new NamedThreadFactory("MessageDispatcher", true),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (dispatcher != null) {
+      dispatcher.shutdown();
+    }
   }
 
   @Override
   public List<String> getStreams(IntegrationInstance instance) {
-    return getStreams(instance.getOptionalProperties());
+    try {
+      return instanceOptionsCache.get(instance).getStreams();
+    } catch (IOException e) {
+      LOG.warn(logMessage.getMessage(ERROR_GET_STREAM_JSON, instance.getOptionalProperties()), e,
+          ERROR_GET_STREAM_JSON_SOLUTION);
+      return Collections.emptyList();
+    }
   }
 
   @Override
@@ -130,7 +189,7 @@ public class StreamServiceImpl implements StreamService {
   @Override
   public StreamType getStreamType(IntegrationInstance instance) {
     try {
-      return WebHookConfigurationUtils.getStreamType(instance.getOptionalProperties());
+      return instanceOptionsCache.get(instance).getStreamType();
     } catch (IOException e) {
       LOG.warn(logMessage.getMessage(ERROR_GET_STREAM_INSTANCE, instance.getInstanceId()), e,
           ERROR_GET_STREAM_INSTANCE_SOLUTION);
@@ -141,17 +200,88 @@ public class StreamServiceImpl implements StreamService {
   @Override
   public Message postMessage(String integrationUser, String stream, Message messageSubmission)
       throws RemoteApiException {
+    MessageApiClient messageApi = apiResolver.get(messageSubmission.getVersion());
+    return postMessage(integrationUser, stream, messageApi, messageSubmission, null);
+  }
+
+  /**
+   * Post a message through the given Message API client.
+   * @param integrationUser Integration user
+   * @param stream Stream identifier
+   * @param messageApi Message API client
+   * @param messageSubmission Message to be posted
+   * @param prepared Message already encoded by the Message API v4 or null to encode it
+   * @return Message posted
+   */
+  private Message postMessage(String integrationUser, String stream, MessageApiClient messageApi,
+      Message messageSubmission, PreparedMessage prepared) throws RemoteApiException {
     AuthenticationToken authToken = authenticationProxy.getToken(integrationUser);
 
     String sessionToken = authToken.getSessionToken();
     String keyManagerToken = authToken.getKeyManagerToken();
 
-    MessageApiClient messageApi = apiResolver.get(messageSubmission.getVersion());
+    if (prepared != null) {
+      return ((V4MessageApiClient) messageApi).postMessage(sessionToken, keyManagerToken, stream,
+          prepared);
+    }
 
     // Post Message using Message API
     return messageApi.postMessage(sessionToken, keyManagerToken, stream, messageSubmission);
   }
 
+  @Override
+  public CompletableFuture<Message> postMessageAsync(String integrationUser, String stream,
+      Message messageSubmission) {
+    MessageApiClient messageApi = apiResolver.get(messageSubmission.getVersion());
+    return dispatch(integrationUser, stream, messageApi, messageSubmission, null);
+  }
+
+  @Override
+  public List<CompletableFuture<Message>> postMessageAsync(String integrationUser,
+      List<String> streams, Message messageSubmission) {
+    MessageApiClient messageApi = apiResolver.get(messageSubmission.getVersion());
+    PreparedMessage prepared = null;
+
+    if (messageApi instanceof V4MessageApiClient) {
+      // Encoded once and released when the last post finishes
+      prepared = ((V4MessageApiClient) messageApi).prepare(messageSubmission);
+    }
+
+    List<CompletableFuture<Message>> result = new ArrayList<>(streams.size());
+
+    for (String stream : streams) {
+      result.add(dispatch(integrationUser, stream, messageApi, messageSubmission, prepared));
+    }
+
+    return result;
+  }
+
+  private CompletableFuture<Message> dispatch(final String integrationUser, final String stream,
+      final MessageApiClient messageApi, final Message messageSubmission,
+      final PreparedMessage prepared) {
+    final CompletableFuture<Message> future = new CompletableFuture<>();
+
+    Runnable task = new IntegrationAbstractRunnable(MDC.get(TRACE_ID)) {
+      @Override
+      protected void execute() {
+        try {
+          future.complete(
+              postMessage(integrationUser, stream, messageApi, messageSubmission, prepared));
+        } catch (Exception e) {
+          future.completeExceptionally(e);
+        }
+      }
+    };
+
+    if (dispatcher == null) {
+      task.run();
+    } else {
+      dispatcher.execute(task);
+    }
+
+    return future;
+  }
+
   @Override
   public Stream createIM(String integrationUser, Long userId) throws RemoteApiException {
     List<Long> userIdList = new ArrayList<>();
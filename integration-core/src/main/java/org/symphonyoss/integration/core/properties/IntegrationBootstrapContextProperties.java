@@ -32,5 +32,6 @@ public class IntegrationBootstrapContextProperties {
   public static final String FAIL_BOOTSTRAP_INTEGRATION_RETRYING = "core.bootstrapcontext.fail.bootstrap.integration.retrying";
   public static final String VERIFY_NEW_INTEGRATIONS = "core.bootstrapcontext.verify.new.integrations";
   public static final String SHUTTING_DOWN_INTEGRATION = "core.bootstrapcontext.shutting.down.integration";
+  public static final String INTEGRATION_CONFIG_CHANGED = "core.bootstrapcontext.integration.config.changed";
 
 }
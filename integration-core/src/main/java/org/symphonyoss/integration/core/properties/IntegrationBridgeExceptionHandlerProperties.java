@@ -14,4 +14,6 @@ public class IntegrationBridgeExceptionHandlerProperties {
   public static final String FAIL_NOTIFY_OWNER = "core.integration.bridge.exception.handler.fail.notify.owner";
   public static final String UPDATE_INSTANCE_NOTIFY = "core.integration.bridge.exception.handler.update.instance.notify";
   public static final String FAIL_UPDATE_STREAM_SOLUTION = "core.integration.bridge.exception.handler.fail.update.streams.solution";
+  public static final String REMOVE_STREAM_FROM_INSTANCES = "core.integration.bridge.exception.handler.remove.stream.from.instances";
+  public static final String FAIL_RETRIEVE_INSTANCE = "core.integration.bridge.exception.handler.fail.retrieve.instance";
 }
@@ -12,4 +12,5 @@ public class IntegrationBridgeImplProperties {
   public static final String NO_STREAMS_SOLUTION = "core.integration.bridge.impl.no.streams.solution";
   public static final String REMOTE_API_EXCEPTION_WITH_RESULT_REASON = "core.integration.bridge.impl.remote.api.exception.with.result.reason";
   public static final String REMOTE_API_EXCEPTION_REASON = "core.integration.bridge.impl.remote.api.exception.reason";
+  public static final String SKIPPED_FORBIDDEN_STREAM = "core.integration.bridge.impl.skipped.forbidden.stream";
 }
@@ -17,6 +17,7 @@
 package org.symphonyoss.integration.core.authorization;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -151,6 +152,41 @@ public class AuthorizationRepositoryServiceTest extends MockKeystore {
     assertEquals(userAuthData, result.get(0));
   }
 
+  @Test
+  public void testPagedSearch() throws RemoteApiException, AuthorizationException {
+    List<UserAuthorizationData> expected = new ArrayList<>();
+    expected.add(userAuthData);
+
+    String path = "/v1/configuration/" + CONFIGURATION_ID + "/auth/user/search";
+
+    Map<String, String> headerParams = new HashMap<>();
+    headerParams.put(SESSION_TOKEN_HEADER_PARAM, SESSION_TOKEN);
+
+    Map<String, String> queryParams = new HashMap<>();
+    queryParams.put("offset", "20");
+    queryParams.put("limit", "10");
+
+    doReturn(expected).when(integrationHttpApiClient).doGet(path, headerParams, queryParams,
+        UserAuthorizationDataList.class);
+
+    UserAuthorizationDataPage result = ((PagedAuthorizationRepositoryService) authRepoService)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, new HashMap<String, String>(), "20", 10);
+
+    assertEquals(1, result.getEntries().size());
+    assertEquals(userAuthData, result.getEntries().get(0));
+    assertNull(result.getNextPosition());
+
+    queryParams.put("limit", "1");
+    doReturn(expected).when(integrationHttpApiClient).doGet(path, headerParams, queryParams,
+        UserAuthorizationDataList.class);
+
+    result = ((PagedAuthorizationRepositoryService) authRepoService)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, new HashMap<String, String>(), "20", 1);
+
+    assertEquals(1, result.getEntries().size());
+    assertEquals("21", result.getNextPosition());
+  }
+
   @Test(expected = AuthorizationException.class)
   public void testInvalidSearch() throws RemoteApiException, AuthorizationException {
     doReturn(null).when(authenticationProxy).getSessionToken(INTEGRATION_USER);
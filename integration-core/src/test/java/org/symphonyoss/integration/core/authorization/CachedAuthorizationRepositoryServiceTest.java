@@ -0,0 +1,159 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.symphonyoss.integration.metrics.IntegrationMetricsConstants.BASE_METRIC_NAME;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.symphonyoss.integration.authorization.AuthorizationException;
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+
+/**
+ * Unit tests for {@link CachedAuthorizationRepositoryService}
+ * Created by rsanchez on 04/11/17.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachedAuthorizationRepositoryServiceTest {
+
+  private static final String INTEGRATION_USER = "integrationUser";
+
+  private static final String CONFIGURATION_ID = "configurationId";
+
+  private static final String URL = "https://test.symphony.com";
+
+  private static final Long USER_ID = 10L;
+
+  @Mock
+  private AuthorizationRepositoryServiceImpl delegate;
+
+  private MetricRegistry metricRegistry = new MetricRegistry();
+
+  private UserAuthorizationData data = new UserAuthorizationData(URL, USER_ID);
+
+  private CachedAuthorizationRepositoryService service;
+
+  @Before
+  public void init() {
+    this.service = new CachedAuthorizationRepositoryService(delegate, metricRegistry);
+  }
+
+  @After
+  public void cleanup() {
+    System.clearProperty(CachedAuthorizationRepositoryService.NEGATIVE_TTL_KEY);
+  }
+
+  @Test
+  public void testFind() throws AuthorizationException {
+    doReturn(data).when(delegate).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+
+    assertEquals(data, service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+    assertEquals(data, service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+
+    verify(delegate, times(1)).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+
+    assertEquals(0.5, metricRegistry.getGauges().get(
+        MetricRegistry.name(BASE_METRIC_NAME, "authorization.cache", "hit.ratio")).getValue());
+    assertEquals(1, metricRegistry.timer(
+        MetricRegistry.name(BASE_METRIC_NAME, "authorization.remote.find")).getCount());
+  }
+
+  @Test
+  public void testFindUnauthorizedUser() throws AuthorizationException {
+    assertNull(service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+    assertNull(service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+
+    verify(delegate, times(1)).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+  }
+
+  @Test
+  public void testNegativeTtl() throws AuthorizationException {
+    System.setProperty(CachedAuthorizationRepositoryService.NEGATIVE_TTL_KEY, "0");
+    service = new CachedAuthorizationRepositoryService(delegate, metricRegistry);
+
+    assertNull(service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+
+    doReturn(data).when(delegate).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+
+    assertEquals(data, service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+    assertEquals(data, service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+
+    verify(delegate, times(2)).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+  }
+
+  @Test
+  public void testSave() throws AuthorizationException {
+    assertNull(service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, data);
+    verify(delegate, times(1)).save(INTEGRATION_USER, CONFIGURATION_ID, data);
+
+    // Written through, no remote call needed
+    assertEquals(data, service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+    verify(delegate, times(1)).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+  }
+
+  @Test
+  public void testSaveFailure() throws AuthorizationException {
+    doReturn(data).when(delegate).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+    assertEquals(data, service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+
+    AuthorizationException exception = new AuthorizationException("message",
+        new IllegalStateException(), "solution");
+    doThrow(exception).when(delegate).save(INTEGRATION_USER, CONFIGURATION_ID, data);
+
+    try {
+      service.save(INTEGRATION_USER, CONFIGURATION_ID, data);
+      fail();
+    } catch (AuthorizationException e) {
+      assertEquals(exception, e);
+    }
+
+    assertEquals(data, service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+    verify(delegate, times(2)).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+  }
+
+  @Test
+  public void testFindFailure() throws AuthorizationException {
+    AuthorizationException exception = new AuthorizationException("message",
+        new IllegalStateException(), "solution");
+    doThrow(exception).when(delegate).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+
+    try {
+      service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+      fail();
+    } catch (AuthorizationException e) {
+      assertEquals(exception, e);
+    }
+
+    doReturn(data).when(delegate).find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID);
+    assertEquals(data, service.find(INTEGRATION_USER, CONFIGURATION_ID, URL, USER_ID));
+  }
+
+}
@@ -0,0 +1,305 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.symphonyoss.integration.authorization.AuthorizationException;
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+import org.symphonyoss.integration.logging.LogMessageSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link FileAuthorizationRepositoryService}
+ * Created by rsanchez on 04/11/17.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FileAuthorizationRepositoryServiceTest {
+
+  private static final String INTEGRATION_USER = "integrationUser";
+
+  private static final String CONFIGURATION_ID = "configurationId";
+
+  private static final String INTEGRATION_URL1 = "https://test1.symphony.com";
+
+  private static final String INTEGRATION_URL2 = "https://test2.symphony.com";
+
+  private static final Long USER_ID = new Long(123456);
+
+  private static final String MOCK_ACCESS_TOKEN = "as4e435tdfst4302ds8dfs9883249328dsf9";
+
+  private static final String MOCK_VERIFIER = "a32er9";
+
+  @Mock
+  private LogMessageSource logMessage;
+
+  private Path file;
+
+  private FileAuthorizationRepositoryService service;
+
+  @Before
+  public void init() throws IOException {
+    this.file = Files.createTempFile("authorization", ".data");
+    Files.delete(file);
+
+    System.setProperty(FileAuthorizationRepositoryService.FILE_KEY, file.toString());
+
+    this.service = new FileAuthorizationRepositoryService(logMessage);
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    service.close();
+
+    System.clearProperty(FileAuthorizationRepositoryService.FILE_KEY);
+    System.clearProperty(FileAuthorizationRepositoryService.COMPACTION_MIN_SIZE_KEY);
+
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void testSaveAndFind() throws AuthorizationException {
+    assertNull(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID));
+
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1, MOCK_ACCESS_TOKEN));
+
+    UserAuthorizationData result =
+        service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID);
+
+    assertData(result, INTEGRATION_URL1, MOCK_ACCESS_TOKEN);
+    assertNull(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL2, USER_ID));
+  }
+
+  @Test
+  public void testReload() throws AuthorizationException {
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1, MOCK_ACCESS_TOKEN));
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1, "newToken"));
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL2, MOCK_ACCESS_TOKEN));
+    service.close();
+
+    service = new FileAuthorizationRepositoryService(logMessage);
+
+    assertData(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID),
+        INTEGRATION_URL1, "newToken");
+    assertData(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL2, USER_ID),
+        INTEGRATION_URL2, MOCK_ACCESS_TOKEN);
+  }
+
+  @Test
+  public void testSaveAndSearch() throws AuthorizationException {
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1, MOCK_ACCESS_TOKEN));
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL2, "otherToken"));
+    service.save(INTEGRATION_USER, "otherConfiguration",
+        mockData(INTEGRATION_URL1, MOCK_ACCESS_TOKEN));
+
+    Map<String, String> filter = new HashMap<>();
+    filter.put("accessToken", MOCK_ACCESS_TOKEN);
+    filter.put("verifier", MOCK_VERIFIER);
+
+    List<UserAuthorizationData> result = service.search(INTEGRATION_USER, CONFIGURATION_ID, filter);
+
+    assertEquals(1, result.size());
+    assertData(result.get(0), INTEGRATION_URL1, MOCK_ACCESS_TOKEN);
+
+    filter.put("verifier", "test");
+    assertTrue(service.search(INTEGRATION_USER, CONFIGURATION_ID, filter).isEmpty());
+  }
+
+  @Test
+  public void testPagedSearch() throws AuthorizationException {
+    for (int i = 0; i < 5; i++) {
+      service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1 + i,
+          (i % 2 == 0) ? MOCK_ACCESS_TOKEN : "otherToken"));
+    }
+
+    // Replacing an entry keeps its position
+    service.save(INTEGRATION_USER, CONFIGURATION_ID,
+        mockData(INTEGRATION_URL1 + 0, MOCK_ACCESS_TOKEN));
+
+    Map<String, String> filter = new HashMap<>();
+
+    UserAuthorizationDataPage page =
+        service.search(INTEGRATION_USER, CONFIGURATION_ID, filter, null, 2);
+    assertEquals(2, page.getEntries().size());
+    assertData(page.getEntries().get(0), INTEGRATION_URL1 + 0, MOCK_ACCESS_TOKEN);
+    assertData(page.getEntries().get(1), INTEGRATION_URL1 + 1, "otherToken");
+
+    page = service.search(INTEGRATION_USER, CONFIGURATION_ID, filter, page.getNextPosition(), 2);
+    assertEquals(2, page.getEntries().size());
+    assertData(page.getEntries().get(0), INTEGRATION_URL1 + 2, MOCK_ACCESS_TOKEN);
+    assertData(page.getEntries().get(1), INTEGRATION_URL1 + 3, "otherToken");
+
+    page = service.search(INTEGRATION_USER, CONFIGURATION_ID, filter, page.getNextPosition(), 2);
+    assertEquals(1, page.getEntries().size());
+    assertData(page.getEntries().get(0), INTEGRATION_URL1 + 4, MOCK_ACCESS_TOKEN);
+    assertNull(page.getNextPosition());
+
+    filter.put("accessToken", MOCK_ACCESS_TOKEN);
+
+    page = service.search(INTEGRATION_USER, CONFIGURATION_ID, filter, null, 2);
+    assertEquals(2, page.getEntries().size());
+    assertData(page.getEntries().get(0), INTEGRATION_URL1 + 0, MOCK_ACCESS_TOKEN);
+    assertData(page.getEntries().get(1), INTEGRATION_URL1 + 2, MOCK_ACCESS_TOKEN);
+
+    page = service.search(INTEGRATION_USER, CONFIGURATION_ID, filter, page.getNextPosition(), 2);
+    assertEquals(1, page.getEntries().size());
+    assertData(page.getEntries().get(0), INTEGRATION_URL1 + 4, MOCK_ACCESS_TOKEN);
+    assertNull(page.getNextPosition());
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    System.setProperty(FileAuthorizationRepositoryService.COMPACTION_MIN_SIZE_KEY, "0");
+    service = new FileAuthorizationRepositoryService(logMessage);
+
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1, "tokenA"));
+    long size = Files.size(file);
+
+    for (int i = 0; i < 10; i++) {
+      service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1, "token" + i));
+    }
+
+    awaitCompaction();
+
+    // Without compaction, the file would keep the 11 records
+    long recordSize = size - 4;
+    assertTrue(Files.size(file) < size + 10 * recordSize);
+    assertData(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID),
+        INTEGRATION_URL1, "token9");
+
+    service.close();
+    service = new FileAuthorizationRepositoryService(logMessage);
+
+    assertData(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID),
+        INTEGRATION_URL1, "token9");
+  }
+
+  @Test
+  public void testIncompleteRecord() throws AuthorizationException, IOException {
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1, MOCK_ACCESS_TOKEN));
+    service.close();
+
+    long size = Files.size(file);
+    Files.write(file, new byte[] {0, 0, 0, 20, 0}, StandardOpenOption.APPEND);
+
+    service = new FileAuthorizationRepositoryService(logMessage);
+
+    assertData(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID),
+        INTEGRATION_URL1, MOCK_ACCESS_TOKEN);
+    assertEquals(size, Files.size(file));
+
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL2, MOCK_ACCESS_TOKEN));
+    service.close();
+
+    service = new FileAuthorizationRepositoryService(logMessage);
+
+    assertData(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL2, USER_ID),
+        INTEGRATION_URL2, MOCK_ACCESS_TOKEN);
+  }
+
+  @Test
+  public void testZeroFilledTail() throws AuthorizationException, IOException {
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1, MOCK_ACCESS_TOKEN));
+    service.close();
+
+    long size = Files.size(file);
+    Files.write(file, new byte[16], StandardOpenOption.APPEND);
+
+    service = new FileAuthorizationRepositoryService(logMessage);
+
+    assertData(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID),
+        INTEGRATION_URL1, MOCK_ACCESS_TOKEN);
+    assertEquals(size, Files.size(file));
+  }
+
+  @Test
+  public void testCorruptedRecord() throws AuthorizationException, IOException {
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL1, MOCK_ACCESS_TOKEN));
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, mockData(INTEGRATION_URL2, MOCK_ACCESS_TOKEN));
+    service.close();
+
+    long size = Files.size(file);
+
+    // Invalid key length on the first record
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), 4);
+    }
+
+    service = new FileAuthorizationRepositoryService(logMessage);
+
+    try {
+      service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL2, USER_ID);
+      fail();
+    } catch (AuthorizationException e) {
+      // The records after the invalid one are kept
+      assertEquals(size, Files.size(file));
+    }
+  }
+
+  /**
+   * Waits for the compactions scheduled so far.
+   */
+  private void awaitCompaction() throws Exception {
+    ExecutorService compactor =
+        (ExecutorService) Whitebox.getInternalState(service, "compactor");
+
+    compactor.submit(new Runnable() {
+      @Override
+      public void run() {
+        // Runs after the compactions already scheduled
+      }
+    }).get(10, TimeUnit.SECONDS);
+  }
+
+  private UserAuthorizationData mockData(String url, String accessToken) {
+    return new UserAuthorizationData(url, USER_ID, new MockOAuth1Data(accessToken, MOCK_VERIFIER));
+  }
+
+  /**
+   * The authorization data is read from JSON, so its data is a map.
+   */
+  private void assertData(UserAuthorizationData result, String url, String accessToken) {
+    assertEquals(url, result.getUrl());
+    assertEquals(USER_ID, result.getUserId());
+
+    Map<?, ?> data = (Map<?, ?>) result.getData();
+    assertEquals(accessToken, data.get("accessToken"));
+    assertEquals(MOCK_VERIFIER, data.get("verifier"));
+  }
+
+}
@@ -43,4 +43,18 @@ public class LocalAuthorizationRepoServiceConditionTest {
     assertTrue(condition.matches(null, null));
   }
 
+  @Test
+  public void testFileAuthorizationRepoService() {
+    LocalAuthorizationRepoServiceCondition condition = new LocalAuthorizationRepoServiceCondition();
+
+    System.setProperty(PROPERTY_KEY, "true");
+    System.setProperty(FileAuthorizationRepositoryService.FILE_KEY, "authorization.data");
+
+    try {
+      assertFalse(condition.matches(null, null));
+    } finally {
+      System.clearProperty(FileAuthorizationRepositoryService.FILE_KEY);
+    }
+  }
+
 }
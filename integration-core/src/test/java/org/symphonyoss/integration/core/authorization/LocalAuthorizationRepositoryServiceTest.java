@@ -1,17 +1,26 @@
 package org.symphonyoss.integration.core.authorization;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.symphonyoss.integration.authorization.AuthorizationException;
 import org.symphonyoss.integration.authorization.UserAuthorizationData;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Unit tests for {@link LocalAuthorizationRepositoryService}
@@ -47,6 +56,12 @@ public class LocalAuthorizationRepositoryServiceTest {
     authorizationData = new UserAuthorizationData(INTEGRATION_URL1, USER_ID, data);
   }
 
+  @After
+  public void cleanup() {
+    System.clearProperty(LocalAuthorizationRepositoryService.INDEXED_FIELDS_KEY);
+    System.clearProperty(LocalAuthorizationRepositoryService.MAX_SIZE_KEY);
+  }
+
   @Test
   public void testSaveAndFind() throws AuthorizationException {
     UserAuthorizationData result =
@@ -98,4 +113,176 @@ public class LocalAuthorizationRepositoryServiceTest {
     assertTrue(result.isEmpty());
   }
 
+  @Test
+  public void testIndexedSearch() throws AuthorizationException {
+    System.setProperty(LocalAuthorizationRepositoryService.INDEXED_FIELDS_KEY, "accessToken");
+    service = new LocalAuthorizationRepositoryService();
+
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, authorizationData);
+
+    UserAuthorizationData other = new UserAuthorizationData(INTEGRATION_URL2, USER_ID,
+        new MockOAuth1Data("otherToken", MOCK_VERIFIER));
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, other);
+
+    HashMap<String, String> filter = new HashMap<>();
+    filter.put("accessToken", MOCK_ACCESS_TOKEN);
+    filter.put("verifier", MOCK_VERIFIER);
+
+    List<UserAuthorizationData> result = service.search(INTEGRATION_USER, CONFIGURATION_ID, filter);
+
+    assertEquals(1, result.size());
+    assertEquals(authorizationData, result.get(0));
+
+    filter.put("accessToken", "unknown");
+    assertTrue(service.search(INTEGRATION_USER, CONFIGURATION_ID, filter).isEmpty());
+  }
+
+  @Test
+  public void testIndexedSearchAfterReplace() throws AuthorizationException {
+    System.setProperty(LocalAuthorizationRepositoryService.INDEXED_FIELDS_KEY, "accessToken");
+    service = new LocalAuthorizationRepositoryService();
+
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, authorizationData);
+
+    UserAuthorizationData replaced = new UserAuthorizationData(INTEGRATION_URL1, USER_ID,
+        new MockOAuth1Data("newToken", MOCK_VERIFIER));
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, replaced);
+
+    HashMap<String, String> filter = new HashMap<>();
+    filter.put("accessToken", MOCK_ACCESS_TOKEN);
+
+    assertTrue(service.search(INTEGRATION_USER, CONFIGURATION_ID, filter).isEmpty());
+
+    filter.put("accessToken", "newToken");
+
+    List<UserAuthorizationData> result = service.search(INTEGRATION_USER, CONFIGURATION_ID, filter);
+    assertEquals(1, result.size());
+    assertEquals(replaced, result.get(0));
+  }
+
+  @Test
+  public void testPagedSearch() throws AuthorizationException {
+    for (int i = 0; i < 5; i++) {
+      service.save(INTEGRATION_USER, CONFIGURATION_ID,
+          new UserAuthorizationData(INTEGRATION_URL1 + i, USER_ID, data));
+    }
+
+    HashMap<String, String> filter = new HashMap<>();
+    filter.put("accessToken", MOCK_ACCESS_TOKEN);
+
+    assertPages(filter);
+  }
+
+  @Test
+  public void testIndexedPagedSearch() throws AuthorizationException {
+    System.setProperty(LocalAuthorizationRepositoryService.INDEXED_FIELDS_KEY, "accessToken");
+    service = new LocalAuthorizationRepositoryService();
+
+    for (int i = 0; i < 5; i++) {
+      service.save(INTEGRATION_USER, CONFIGURATION_ID,
+          new UserAuthorizationData(INTEGRATION_URL1 + i, USER_ID, data));
+    }
+
+    // Replacing an entry keeps its position
+    service.save(INTEGRATION_USER, CONFIGURATION_ID,
+        new UserAuthorizationData(INTEGRATION_URL1 + 0, USER_ID, data));
+
+    HashMap<String, String> filter = new HashMap<>();
+    filter.put("accessToken", MOCK_ACCESS_TOKEN);
+
+    assertPages(filter);
+  }
+
+  /**
+   * Checks the five saved entries are returned in the order they were saved, two per page.
+   */
+  private void assertPages(Map<String, String> filter) throws AuthorizationException {
+    List<UserAuthorizationData> found = new ArrayList<>();
+
+    UserAuthorizationDataPage page =
+        service.search(INTEGRATION_USER, CONFIGURATION_ID, filter, null, 2);
+    assertEquals(2, page.getEntries().size());
+    found.addAll(page.getEntries());
+
+    page = service.search(INTEGRATION_USER, CONFIGURATION_ID, filter, page.getNextPosition(), 2);
+    assertEquals(2, page.getEntries().size());
+    found.addAll(page.getEntries());
+
+    page = service.search(INTEGRATION_USER, CONFIGURATION_ID, filter, page.getNextPosition(), 2);
+    assertEquals(1, page.getEntries().size());
+    assertNull(page.getNextPosition());
+    found.addAll(page.getEntries());
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(INTEGRATION_URL1 + i, found.get(i).getUrl());
+    }
+  }
+
+  @Test
+  public void testUnboundedByDefault() throws AuthorizationException {
+    for (long userId = 0; userId < 1000; userId++) {
+      service.save(INTEGRATION_USER, CONFIGURATION_ID,
+          new UserAuthorizationData(INTEGRATION_URL1, userId, data));
+    }
+
+    for (long userId = 0; userId < 1000; userId++) {
+      assertNotNull(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, userId));
+    }
+  }
+
+  @Test
+  public void testConcurrentSavesKeepIndexConsistent() throws Exception {
+    System.setProperty(LocalAuthorizationRepositoryService.INDEXED_FIELDS_KEY, "accessToken");
+    service = new LocalAuthorizationRepositoryService();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<Void>> results = new ArrayList<>();
+
+    for (int i = 0; i < 1000; i++) {
+      final String accessToken = "token" + (i % 8);
+
+      results.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          service.save(INTEGRATION_USER, CONFIGURATION_ID, new UserAuthorizationData(
+              INTEGRATION_URL1, USER_ID, new MockOAuth1Data(accessToken, MOCK_VERIFIER)));
+          return null;
+        }
+      }));
+    }
+
+    try {
+      for (Future<Void> result : results) {
+        result.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    UserAuthorizationData saved =
+        service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID);
+    String savedToken = ((MockOAuth1Data) saved.getData()).getAccessToken();
+
+    for (int i = 0; i < 8; i++) {
+      HashMap<String, String> filter = new HashMap<>();
+      filter.put("accessToken", "token" + i);
+
+      List<UserAuthorizationData> found = service.search(INTEGRATION_USER, CONFIGURATION_ID,
+          filter);
+      assertEquals(savedToken.equals("token" + i) ? 1 : 0, found.size());
+    }
+  }
+
+  @Test
+  public void testMaxSize() throws AuthorizationException {
+    System.setProperty(LocalAuthorizationRepositoryService.MAX_SIZE_KEY, "1");
+    service = new LocalAuthorizationRepositoryService();
+
+    service.save(INTEGRATION_USER, CONFIGURATION_ID, authorizationData);
+    service.save(INTEGRATION_USER, CONFIGURATION_ID,
+        new UserAuthorizationData(INTEGRATION_URL2, USER_ID, data));
+
+    assertNull(service.find(INTEGRATION_USER, CONFIGURATION_ID, INTEGRATION_URL1, USER_ID));
+  }
+
 }
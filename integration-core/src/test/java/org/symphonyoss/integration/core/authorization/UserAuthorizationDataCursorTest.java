@@ -0,0 +1,175 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.authorization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.symphonyoss.integration.authorization.AuthorizationException;
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Unit tests for {@link UserAuthorizationDataCursor}
+ * Created by rsanchez on 04/11/17.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class UserAuthorizationDataCursorTest {
+
+  private static final String INTEGRATION_USER = "integrationUser";
+
+  private static final String CONFIGURATION_ID = "configurationId";
+
+  private static final String URL = "https://test.symphony.com";
+
+  @Mock
+  private PagedAuthorizationRepositoryService repository;
+
+  private Map<String, String> filter = new HashMap<>();
+
+  @Test
+  public void testIterate() throws AuthorizationException {
+    List<UserAuthorizationData> firstPage = Arrays.asList(mockData(1L), mockData(2L));
+    List<UserAuthorizationData> secondPage = Collections.singletonList(mockData(3L));
+
+    doReturn(new UserAuthorizationDataPage(firstPage, "2")).when(repository)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, filter, null, 2);
+    doReturn(new UserAuthorizationDataPage(secondPage, null)).when(repository)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, filter, "2", 2);
+
+    UserAuthorizationDataCursor cursor =
+        new UserAuthorizationDataCursor(repository, INTEGRATION_USER, CONFIGURATION_ID, filter, 2);
+
+    assertEquals(Long.valueOf(1), cursor.next().getUserId());
+    assertEquals(Long.valueOf(2), cursor.next().getUserId());
+    assertTrue(cursor.hasNext());
+    assertEquals(Long.valueOf(3), cursor.next().getUserId());
+    assertFalse(cursor.hasNext());
+
+    verify(repository, times(2)).search(eq(INTEGRATION_USER), eq(CONFIGURATION_ID), eq(filter),
+        anyString(), anyInt());
+  }
+
+  @Test
+  public void testExactPages() throws AuthorizationException {
+    List<UserAuthorizationData> firstPage = Arrays.asList(mockData(1L), mockData(2L));
+
+    doReturn(new UserAuthorizationDataPage(firstPage, "2")).when(repository)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, filter, null, 2);
+    doReturn(new UserAuthorizationDataPage(Collections.<UserAuthorizationData>emptyList(), null))
+        .when(repository).search(INTEGRATION_USER, CONFIGURATION_ID, filter, "2", 2);
+
+    UserAuthorizationDataCursor cursor =
+        new UserAuthorizationDataCursor(repository, INTEGRATION_USER, CONFIGURATION_ID, filter, 2);
+
+    cursor.next();
+    cursor.next();
+
+    assertFalse(cursor.hasNext());
+    assertFalse(cursor.hasNext());
+
+    verify(repository, times(1)).search(INTEGRATION_USER, CONFIGURATION_ID, filter, "2", 2);
+  }
+
+  @Test
+  public void testPositionNotAdvancing() throws AuthorizationException {
+    List<UserAuthorizationData> firstPage = Arrays.asList(mockData(1L), mockData(2L));
+    List<UserAuthorizationData> secondPage = Arrays.asList(mockData(3L), mockData(4L));
+
+    doReturn(new UserAuthorizationDataPage(firstPage, "2")).when(repository)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, filter, null, 2);
+    doReturn(new UserAuthorizationDataPage(secondPage, "2")).when(repository)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, filter, "2", 2);
+
+    assertEquals(4, count(newCursor()));
+
+    verify(repository, times(1)).search(INTEGRATION_USER, CONFIGURATION_ID, filter, "2", 2);
+  }
+
+  @Test
+  public void testRepeatedPage() throws AuthorizationException {
+    List<UserAuthorizationData> page = Arrays.asList(mockData(1L), mockData(2L));
+
+    // Server ignoring the paging parameters and holding exactly one page of entries
+    doReturn(new UserAuthorizationDataPage(page, "2")).when(repository)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, filter, null, 2);
+    doReturn(new UserAuthorizationDataPage(page, "4")).when(repository)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, filter, "2", 2);
+
+    assertEquals(2, count(newCursor()));
+
+    verify(repository, times(2)).search(eq(INTEGRATION_USER), eq(CONFIGURATION_ID), eq(filter),
+        anyString(), anyInt());
+  }
+
+  @Test
+  public void testPaginationNotSupported() throws AuthorizationException {
+    List<UserAuthorizationData> all = Arrays.asList(mockData(1L), mockData(2L), mockData(3L));
+
+    doReturn(new UserAuthorizationDataPage(all, null)).when(repository)
+        .search(INTEGRATION_USER, CONFIGURATION_ID, filter, null, 2);
+
+    assertEquals(3, count(newCursor()));
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void testNoMoreEntries() throws AuthorizationException {
+    doReturn(new UserAuthorizationDataPage(Collections.<UserAuthorizationData>emptyList(), null))
+        .when(repository).search(INTEGRATION_USER, CONFIGURATION_ID, filter, null, 2);
+
+    new UserAuthorizationDataCursor(repository, INTEGRATION_USER, CONFIGURATION_ID, filter, 2)
+        .next();
+  }
+
+  private UserAuthorizationDataCursor newCursor() {
+    return new UserAuthorizationDataCursor(repository, INTEGRATION_USER, CONFIGURATION_ID, filter,
+        2);
+  }
+
+  private int count(UserAuthorizationDataCursor cursor) throws AuthorizationException {
+    int count = 0;
+
+    while (cursor.hasNext()) {
+      cursor.next();
+      count++;
+    }
+
+    return count;
+  }
+
+  private UserAuthorizationData mockData(Long userId) {
+    return new UserAuthorizationData(URL, userId);
+  }
+
+}
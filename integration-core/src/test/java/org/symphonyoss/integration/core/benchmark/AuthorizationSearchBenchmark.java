@@ -0,0 +1,155 @@
+/**
+ * Copyright 2016-2017 Symphony Integrations - Symphony LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.symphonyoss.integration.core.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.symphonyoss.integration.authorization.AuthorizationException;
+import org.symphonyoss.integration.authorization.UserAuthorizationData;
+import org.symphonyoss.integration.core.authorization.LocalAuthorizationRepositoryService;
+import org.symphonyoss.integration.core.authorization.MockOAuth1Data;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the search of the {@link LocalAuthorizationRepositoryService}, with and without
+ * indexes, against the previous implementation that scanned every entry using reflection.
+ *
+ * This is not a unit test. Run it through the main method using the test classpath.
+ *
+ * Created by rsanchez on 04/11/17.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AuthorizationSearchBenchmark {
+
+  private static final String INTEGRATION_USER = "integrationUser";
+
+  private static final String CONFIGURATION_ID = "configurationId";
+
+  @Param({"1000", "10000", "100000"})
+  private int population;
+
+  private List<UserAuthorizationData> entries;
+
+  private LocalAuthorizationRepositoryService scanService;
+
+  private LocalAuthorizationRepositoryService indexedService;
+
+  private Map<String, String> filter;
+
+  @Setup
+  public void setup() throws AuthorizationException {
+    scanService = new LocalAuthorizationRepositoryService();
+
+    System.setProperty(LocalAuthorizationRepositoryService.INDEXED_FIELDS_KEY, "accessToken");
+    try {
+      indexedService = new LocalAuthorizationRepositoryService();
+    } finally {
+      System.clearProperty(LocalAuthorizationRepositoryService.INDEXED_FIELDS_KEY);
+    }
+
+    entries = new ArrayList<>(population);
+
+    for (int i = 0; i < population; i++) {
+      UserAuthorizationData data = new UserAuthorizationData("https://test.symphony.com",
+          (long) i, new MockOAuth1Data("token" + i, "verifier" + i));
+
+      entries.add(data);
+      scanService.save(INTEGRATION_USER, CONFIGURATION_ID, data);
+      indexedService.save(INTEGRATION_USER, CONFIGURATION_ID, data);
+    }
+
+    int last = population - 1;
+    filter = new HashMap<>();
+    filter.put("accessToken", "token" + last);
+    filter.put("verifier", "verifier" + last);
+  }
+
+  @Benchmark
+  public List<UserAuthorizationData> reflectionScan() {
+    List<UserAuthorizationData> result = new ArrayList<>();
+
+    for (UserAuthorizationData entry : entries) {
+      if (isAcceptable(entry, filter)) {
+        result.add(entry);
+      }
+    }
+
+    return result;
+  }
+
+  @Benchmark
+  public List<UserAuthorizationData> cachedAccessorScan() throws AuthorizationException {
+    return scanService.search(INTEGRATION_USER, CONFIGURATION_ID, filter);
+  }
+
+  @Benchmark
+  public List<UserAuthorizationData> indexedSearch() throws AuthorizationException {
+    return indexedService.search(INTEGRATION_USER, CONFIGURATION_ID, filter);
+  }
+
+  /**
+   * Filter used before the field accessors were cached.
+   */
+  private static boolean isAcceptable(UserAuthorizationData userAuthorizationData,
+      Map<String, String> filter) {
+    Object data = userAuthorizationData.getData();
+
+    for (Map.Entry<String, String> query : filter.entrySet()) {
+      try {
+        Field field = data.getClass().getDeclaredField(query.getKey());
+        field.setAccessible(true);
+
+        if (!query.getValue().equals(field.get(data).toString())) {
+          return false;
+        }
+      } catch (NoSuchFieldException | IllegalAccessException | NullPointerException e) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(AuthorizationSearchBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+
+}
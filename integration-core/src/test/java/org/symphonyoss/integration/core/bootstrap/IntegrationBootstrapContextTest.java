@@ -32,6 +32,8 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
 import org.symphonyoss.integration.Integration;
 import org.symphonyoss.integration.IntegrationStatus;
+import org.symphonyoss.integration.config.InstanceCacheWarmUp;
+import org.symphonyoss.integration.config.event.IntegrationConfigChangedEventData;
 import org.symphonyoss.integration.exception.IntegrationRuntimeException;
 import org.symphonyoss.integration.exception.authentication.ConnectivityException;
 import org.symphonyoss.integration.exception.bootstrap.RetryLifecycleException;
@@ -113,6 +115,9 @@ public class IntegrationBootstrapContextTest {
   @Mock
   private LogMessageSource logMessage;
 
+  @Mock
+  private InstanceCacheWarmUp instanceCacheWarmUp;
+
   /**
    * Setting up the mocks needed for most tests.
    * @throws Exception
@@ -171,6 +176,8 @@ public class IntegrationBootstrapContextTest {
     Integration integration = this.integrationBootstrapContext.getIntegrationById(CONFIGURATION_ID);
     assertNotNull(integration);
     assertEquals(this.integration, integration);
+
+    verify(instanceCacheWarmUp, times(1)).warmUp(eq(CONFIGURATION_ID), anyString());
   }
 
   /**
@@ -363,6 +370,24 @@ public class IntegrationBootstrapContextTest {
     assertNull(this.integrationBootstrapContext.getIntegrationById(CONFIGURATION_ID));
   }
 
+  /**
+   * Validates the integration is notified when its configuration is reloaded
+   */
+  @Test
+  public void testConfigChanged() throws InterruptedException {
+    testStartupBootstrappingOneIntegration();
+
+    IntegrationSettings settings = new IntegrationSettings();
+    settings.setConfigurationId(CONFIGURATION_ID);
+    settings.setType(WEBHOOKINTEGRATION_TYPE_JIRA);
+
+    this.integrationBootstrapContext.handleConfigChangedEvent(
+        new IntegrationConfigChangedEventData(settings, true, Collections.<String>emptySet(),
+            Collections.<String>emptySet()));
+
+    verify(integration, times(1)).onConfigChange(settings);
+  }
+
   /**
    * Checs if {@link IntegrationBootstrapContext} is logging the health check information after both the
    * application and integrations are bootstrapped.
@@ -17,6 +17,8 @@
 package org.symphonyoss.integration.core.bridge;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
@@ -25,19 +27,26 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.mockito.stubbing.Answer;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
+import org.symphonyoss.integration.config.InstanceOptionsCache;
 import org.symphonyoss.integration.entity.model.User;
 import org.symphonyoss.integration.logging.LogMessageSource;
 import org.symphonyoss.integration.model.config.IntegrationInstance;
@@ -53,6 +62,10 @@ import org.symphonyoss.integration.service.StreamService;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test class responsible to test the flows in the {@link IntegrationBridgeExceptionHandler}.
@@ -92,6 +105,12 @@ public class IntegrationBridgeExceptionHandlerTest {
   @Spy
   private StreamService streamService = new StreamServiceImpl();
 
+  @Spy
+  private InstanceOptionsCache instanceOptionsCache = new InstanceOptionsCache();
+
+  @Spy
+  private ForbiddenStreamCache forbiddenStreamCache = new ForbiddenStreamCache();
+
   @Mock
   private IntegrationService integrationService;
 
@@ -117,6 +136,8 @@ public class IntegrationBridgeExceptionHandlerTest {
     this.messagePosted = "";
     this.savedInstance = null;
 
+    Whitebox.setInternalState(streamService, "instanceOptionsCache", instanceOptionsCache);
+
     doAnswer(new Answer<Message>() {
       @Override
       public Message answer(InvocationOnMock invocationOnMock) throws Throwable {
@@ -156,6 +177,7 @@ public class IntegrationBridgeExceptionHandlerTest {
         instance, INTEGRATION_USER, STREAM);
 
     assertTrue(messagePosted.isEmpty());
+    assertFalse(forbiddenStreamCache.isForbidden(INTEGRATION_USER, STREAM));
   }
 
   @Test
@@ -244,6 +266,8 @@ public class IntegrationBridgeExceptionHandlerTest {
     exceptionHandler.handleRemoteApiException(new RemoteApiException(403, JSON_403_RESPONSE),
         instance, INTEGRATION_USER, STREAM);
 
+    assertTrue(forbiddenStreamCache.isForbidden(INTEGRATION_USER, STREAM));
+
     List<String> streams =
         WebHookConfigurationUtils.getStreams(savedInstance.getOptionalProperties());
     assertTrue(streams.isEmpty());
@@ -282,6 +306,160 @@ public class IntegrationBridgeExceptionHandlerTest {
         messagePosted);
   }
 
+  @Test
+  public void testForbiddenStreamsRemovedTogether() throws Exception {
+    String stream2 = "dsaDSAD1S56D_1Q0__WqjLdsA";
+    String optionalProperties =
+        "{ \"lastPostedDate\": 1, \"owner\": \"" + USER_ID + "\", \"streams\": [ \"" + STREAM
+            + "\", \"" + stream2 + "\", \"stream3\"], \"streamType\" : \"CHATROOM\" , "
+            + "\"rooms\" : [ { \"streamId\" : \"" + STREAM_ID + "\" , \"roomName\" : \"Test Room\"}, "
+            + "{ \"streamId\" : \"" + STREAM_ID_ALT + "\" , \"roomName\" : \"Test Room 2\"}]}";
+
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setInstanceId("1234");
+    instance.setName(INSTANCE_NAME);
+    instance.setOptionalProperties(optionalProperties);
+
+    mockIntegrationService();
+
+    when(authenticationProxy.getSessionToken(INTEGRATION_USER)).thenReturn(TOKEN);
+
+    Stream resultIM = new Stream();
+    resultIM.setId(IM);
+    doReturn(resultIM).when(streamService).createIM(INTEGRATION_USER, new Long(USER_ID));
+
+    User userInfo = new User();
+    userInfo.setDisplayName(DISPLAY_NAME);
+    when(usersApi.getUserByUsername(TOKEN, INTEGRATION_USER)).thenReturn(userInfo);
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    Whitebox.setInternalState(exceptionHandler, "scheduler", scheduler);
+    Whitebox.setInternalState(exceptionHandler, "removalDelay", 100L);
+
+    try {
+      exceptionHandler.handleRemoteApiException(new RemoteApiException(403, JSON_403_RESPONSE),
+          instance, INTEGRATION_USER, STREAM);
+      exceptionHandler.handleRemoteApiException(new RemoteApiException(403, JSON_403_RESPONSE),
+          instance, INTEGRATION_USER, stream2);
+
+      // Nothing saved by the caller thread
+      assertNull(savedInstance);
+
+      scheduler.shutdown();
+      assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+    } finally {
+      scheduler.shutdownNow();
+    }
+
+    verify(integrationService, times(1)).save(any(IntegrationInstance.class), anyString());
+    verify(streamService, times(1)).createIM(INTEGRATION_USER, new Long(USER_ID));
+    verify(usersApi, times(1)).getUserByUsername(TOKEN, INTEGRATION_USER);
+    verify(streamService, times(2)).postMessage(eq(INTEGRATION_USER), eq(IM), any(Message.class));
+
+    List<String> streams =
+        WebHookConfigurationUtils.getStreams(savedInstance.getOptionalProperties());
+    assertEquals(1, streams.size());
+    assertEquals("stream3", streams.get(0));
+  }
+
+  @Test
+  public void testForbiddenStreamRemovedFromRelatedInstances() throws Exception {
+    String configurationId = "57756bca4b54433738037005";
+
+    IntegrationInstance instance = mockInstance();
+    instance.setInstanceId("1234");
+    instance.setConfigurationId(configurationId);
+
+    IntegrationInstance related = mockInstance();
+    related.setInstanceId("5678");
+    related.setConfigurationId(configurationId);
+    instanceOptionsCache.get(related);
+
+    mockIntegrationService();
+    doReturn(related).when(integrationService)
+        .getInstanceById(configurationId, "5678", INTEGRATION_USER);
+    doThrow(RemoteApiException.class).when(streamService).createIM(anyString(), anyLong());
+
+    exceptionHandler.handleRemoteApiException(new RemoteApiException(403, JSON_403_RESPONSE),
+        instance, INTEGRATION_USER, STREAM);
+
+    ArgumentCaptor<IntegrationInstance> saved = ArgumentCaptor.forClass(IntegrationInstance.class);
+    verify(integrationService, times(2)).save(saved.capture(), eq(INTEGRATION_USER));
+
+    IntegrationInstance savedRelated = findInstance(saved.getAllValues(), "5678");
+    List<String> streams =
+        WebHookConfigurationUtils.getStreams(savedRelated.getOptionalProperties());
+    assertTrue(streams.isEmpty());
+
+    // The cached instances are saved through copies and kept unchanged
+    assertEquals(1, WebHookConfigurationUtils.getStreams(related.getOptionalProperties()).size());
+    assertEquals(1, WebHookConfigurationUtils.getStreams(instance.getOptionalProperties()).size());
+  }
+
+  private IntegrationInstance findInstance(List<IntegrationInstance> instances, String instanceId) {
+    for (IntegrationInstance instance : instances) {
+      if (instanceId.equals(instance.getInstanceId())) {
+        return instance;
+      }
+    }
+
+    throw new AssertionError("Instance " + instanceId + " not saved");
+  }
+
+  @Test
+  public void testRelatedInstancesRetrievedInBackground() throws Exception {
+    String configurationId = "57756bca4b54433738037005";
+
+    IntegrationInstance instance = mockInstance();
+    instance.setInstanceId("1234");
+    instance.setConfigurationId(configurationId);
+
+    IntegrationInstance related = mockInstance();
+    related.setInstanceId("5678");
+    related.setConfigurationId(configurationId);
+    instanceOptionsCache.get(related);
+
+    mockIntegrationService();
+    doReturn(related).when(integrationService)
+        .getInstanceById(configurationId, "5678", INTEGRATION_USER);
+    doThrow(RemoteApiException.class).when(streamService).createIM(anyString(), anyLong());
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    Whitebox.setInternalState(exceptionHandler, "scheduler", scheduler);
+    Whitebox.setInternalState(exceptionHandler, "removalDelay", 100L);
+
+    final CountDownLatch release = new CountDownLatch(1);
+    scheduler.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    try {
+      exceptionHandler.handleRemoteApiException(new RemoteApiException(403, JSON_403_RESPONSE),
+          instance, INTEGRATION_USER, STREAM);
+
+      // The caller thread doesn't retrieve the related instances
+      verify(integrationService, never()).getInstanceById(configurationId, "5678",
+          INTEGRATION_USER);
+
+      release.countDown();
+      ArgumentCaptor<IntegrationInstance> saved =
+          ArgumentCaptor.forClass(IntegrationInstance.class);
+      verify(integrationService, timeout(10000).times(2)).save(saved.capture(),
+          eq(INTEGRATION_USER));
+      findInstance(saved.getAllValues(), "5678");
+    } finally {
+      release.countDown();
+      scheduler.shutdownNow();
+    }
+  }
+
   @Test
   public void testInternalServerException() {
     exceptionHandler.handleRemoteApiException(new RemoteApiException(500, new RuntimeException()),
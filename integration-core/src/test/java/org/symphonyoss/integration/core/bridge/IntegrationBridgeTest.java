@@ -26,17 +26,23 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.symphonyoss.integration.Integration;
+import org.symphonyoss.integration.config.InstanceOptionsCache;
 import org.symphonyoss.integration.core.NullIntegration;
 import org.symphonyoss.integration.core.bootstrap.IntegrationBootstrapContext;
 import org.symphonyoss.integration.exception.RemoteApiException;
@@ -75,6 +81,9 @@ public class IntegrationBridgeTest {
   @Mock
   private IntegrationBridgeExceptionHandler exceptionHandler;
 
+  @Spy
+  private ForbiddenStreamCache forbiddenStreamCache = new ForbiddenStreamCache();
+
   @Mock
   private IntegrationBootstrapContext bootstrap;
 
@@ -84,6 +93,11 @@ public class IntegrationBridgeTest {
   @Mock
   private LogMessageSource logMessage;
 
+  @Before
+  public void init() {
+    Whitebox.setInternalState(streamService, "instanceOptionsCache", new InstanceOptionsCache());
+  }
+
   @Test
   public void testSendMessageWithoutStreamsConfigured() throws RemoteApiException {
     doReturn(Collections.EMPTY_LIST).when(streamService).getStreams(any(IntegrationInstance.class));
@@ -157,6 +171,50 @@ public class IntegrationBridgeTest {
     }
   }
 
+  @Test
+  public void testSendMessageSkipForbiddenStream() throws RemoteApiException, JsonProcessingException {
+    Message message = new Message();
+
+    doReturn(message).when(streamService).postMessage(INTEGRATION_USER, "stream2", message);
+
+    forbiddenStreamCache.put(INTEGRATION_USER, "stream1");
+
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setConfigurationId("57756bca4b54433738037005");
+    instance.setInstanceId("1234");
+    instance.setOptionalProperties(OPTIONAL_PROPERTIES);
+
+    try {
+      bridge.sendMessage(instance, INTEGRATION_USER, message);
+      fail();
+    } catch (RemoteApiException e) {
+      assertEquals(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), e.getCode());
+    }
+
+    verify(streamService, never()).postMessage(INTEGRATION_USER, "stream1", message);
+    verify(streamService, times(1)).postMessage(INTEGRATION_USER, "stream2", message);
+  }
+
+  @Test
+  public void testSendMessageAllStreamsForbidden() throws RemoteApiException, JsonProcessingException {
+    forbiddenStreamCache.put(INTEGRATION_USER, "stream1");
+    forbiddenStreamCache.put(INTEGRATION_USER, "stream2");
+
+    IntegrationInstance instance = new IntegrationInstance();
+    instance.setConfigurationId("57756bca4b54433738037005");
+    instance.setInstanceId("1234");
+    instance.setOptionalProperties(OPTIONAL_PROPERTIES);
+
+    try {
+      bridge.sendMessage(instance, INTEGRATION_USER, new Message());
+      fail();
+    } catch (RemoteApiException e) {
+      assertEquals(Response.Status.NOT_FOUND.getStatusCode(), e.getCode());
+    }
+
+    verify(streamService, never()).postMessage(anyString(), anyString(), any(Message.class));
+  }
+
   @Test
   public void testSendMessageInternalServerErrorWithFirstException() throws RemoteApiException, JsonProcessingException {
     RemoteApiException exceptionBadRequest = new RemoteApiException(Response.Status.BAD_REQUEST.getStatusCode(), "Bad Request");
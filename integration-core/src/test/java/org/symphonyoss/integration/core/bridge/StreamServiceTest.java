@@ -19,7 +19,14 @@ package org.symphonyoss.integration.core.bridge;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.symphonyoss.integration.authentication.AuthenticationToken.VOID_KM_TOKEN;
 import static org.symphonyoss.integration.authentication.AuthenticationToken.VOID_SESSION_TOKEN;
@@ -31,14 +38,17 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.symphonyoss.integration.agent.api.client.AgentApiClient;
 import org.symphonyoss.integration.agent.api.client.MessageApiClient;
+import org.symphonyoss.integration.agent.api.client.PreparedMessage;
 import org.symphonyoss.integration.agent.api.client.V2MessageApiClient;
 import org.symphonyoss.integration.agent.api.client.V4MessageApiClient;
 import org.symphonyoss.integration.authentication.AuthenticationProxy;
 import org.symphonyoss.integration.authentication.AuthenticationToken;
 import org.symphonyoss.integration.authentication.api.enums.ServiceName;
+import org.symphonyoss.integration.config.InstanceOptionsCache;
 import org.symphonyoss.integration.exception.RemoteApiException;
 import org.symphonyoss.integration.healthcheck.event.ServiceVersionUpdatedEventData;
 import org.symphonyoss.integration.logging.LogMessageSource;
@@ -50,8 +60,16 @@ import org.symphonyoss.integration.model.stream.StreamType;
 import org.symphonyoss.integration.pod.api.client.StreamApiClient;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
 
 /**
  * Test class responsible to test the flows in the Stream Service.
@@ -65,6 +83,8 @@ public class StreamServiceTest {
 
   private static final String STREAM = "stream1";
 
+  private static final String STREAM_2 = "stream2";
+
   private static final Long USER_ID = 268745369L;
 
   private static final String AGENT_SERVICE_NAME = ServiceName.AGENT.toString();
@@ -88,6 +108,9 @@ public class StreamServiceTest {
   @Spy
   private HashMap<MessageMLVersion, MessageApiClient> apiResolver;
 
+  @Spy
+  private InstanceOptionsCache instanceOptionsCache = new InstanceOptionsCache();
+
   @InjectMocks
   private StreamServiceImpl streamService = new StreamServiceImpl();
 
@@ -212,6 +235,81 @@ public class StreamServiceTest {
     assertEquals(message, result);
   }
 
+  @Test
+  public void testPostMessageAsync() throws Exception {
+    Message message = new Message();
+    message.setMessage(StringUtils.EMPTY);
+    message.setVersion(MessageMLVersion.V1);
+
+    when(authenticationProxy.getToken(INTEGRATION_USER)).thenReturn(
+        AuthenticationToken.VOID_AUTH_TOKEN);
+    when(messageApiClient.postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM,
+        message)).thenReturn(message);
+
+    ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+    Whitebox.setInternalState(streamService, "dispatcher", dispatcher);
+
+    try {
+      CompletableFuture<Message> result =
+          streamService.postMessageAsync(INTEGRATION_USER, STREAM, message);
+      assertEquals(message, result.get(10, TimeUnit.SECONDS));
+    } finally {
+      dispatcher.shutdown();
+    }
+  }
+
+  @Test
+  public void testPostMessageAsyncToManyStreams() throws Exception {
+    Message message = new Message();
+    message.setMessage(StringUtils.EMPTY);
+    message.setVersion(MessageMLVersion.V2);
+
+    V4MessageApiClient v4MessageApiClient = mock(V4MessageApiClient.class);
+    PreparedMessage prepared = new PreparedMessage(MediaType.MULTIPART_FORM_DATA_TYPE);
+    apiResolver.put(MessageMLVersion.V2, v4MessageApiClient);
+
+    when(authenticationProxy.getToken(INTEGRATION_USER)).thenReturn(
+        AuthenticationToken.VOID_AUTH_TOKEN);
+    when(v4MessageApiClient.prepare(message)).thenReturn(prepared);
+    when(v4MessageApiClient.postMessage(eq(VOID_SESSION_TOKEN), eq(VOID_KM_TOKEN), anyString(),
+        same(prepared))).thenReturn(message);
+
+    List<CompletableFuture<Message>> result = streamService.postMessageAsync(INTEGRATION_USER,
+        Arrays.asList(STREAM, STREAM_2), message);
+
+    assertEquals(2, result.size());
+    assertEquals(message, result.get(0).get());
+    assertEquals(message, result.get(1).get());
+
+    verify(v4MessageApiClient, times(1)).prepare(message);
+    verify(v4MessageApiClient).postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM, prepared);
+    verify(v4MessageApiClient).postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM_2, prepared);
+  }
+
+  @Test
+  public void testPostMessageAsyncApiException() throws Exception {
+    Message message = new Message();
+    message.setMessage(StringUtils.EMPTY);
+    message.setVersion(MessageMLVersion.V1);
+
+    RemoteApiException exception = new RemoteApiException(403, "Forbidden");
+
+    when(authenticationProxy.getToken(INTEGRATION_USER)).thenReturn(
+        AuthenticationToken.VOID_AUTH_TOKEN);
+    doThrow(exception).when(messageApiClient)
+        .postMessage(VOID_SESSION_TOKEN, VOID_KM_TOKEN, STREAM, message);
+
+    CompletableFuture<Message> result =
+        streamService.postMessageAsync(INTEGRATION_USER, STREAM, message);
+
+    try {
+      result.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertEquals(exception, e.getCause());
+    }
+  }
+
   @Test(expected = RemoteApiException.class)
   public void testCreateIMApiException() throws RemoteApiException {
     List<Long> userIdList = new ArrayList<>();
@@ -57,6 +57,8 @@ public class IntegrationAuthApiClient extends BasePodApiClient {
   private static final String FORBIDDEN_MESSAGE_SOLUTION = FORBIDDEN_MESSAGE + ".solution";
   private static final String API_MSG = "integration.pod.api.unexpected.exception";
   private static final String API_MSG_SOLUTION = API_MSG + ".solution";
+  private static final String RESERVED_FILTER = "integration.pod.api.client.auth.reserved.filter";
+  private static final String RESERVED_FILTER_SOLUTION = RESERVED_FILTER + ".solution";
 
 
   private static final String USER_DATA = "userData";
@@ -174,6 +176,40 @@ public class IntegrationAuthApiClient extends BasePodApiClient {
    */
   public List<UserAuthorizationData> searchUserAuthData(String sessionToken, String integrationId,
       Map<String, String> filter) throws RemoteApiException {
+    return doSearchUserAuthData(sessionToken, integrationId, filter);
+  }
+
+  /**
+   * Search for a page of user authorization data.
+   * @param sessionToken Session authentication token.
+   * @param integrationId Integration identifier
+   * @param filter Map used as filter. It can't contain the paging parameters.
+   * @param offset Number of user authorization data to skip.
+   * @param limit Max number of user authorization data to return.
+   * @return List of found user authorization data
+   * @throws UnauthorizedUserException User credentials not provided
+   * @throws ForbiddenAuthException User not authorized to retrieve user authentication
+   * @throws RemoteApiException Filter containing the paging parameters or unexpected error calling
+   * API
+   */
+  public List<UserAuthorizationData> searchUserAuthData(String sessionToken, String integrationId,
+      Map<String, String> filter, int offset, int limit) throws RemoteApiException {
+    Map<String, String> queryParams = new HashMap<>();
+
+    if (filter != null) {
+      checkFilter(filter, OFFSET_QUERY_PARAM);
+      checkFilter(filter, LIMIT_QUERY_PARAM);
+      queryParams.putAll(filter);
+    }
+
+    queryParams.put(OFFSET_QUERY_PARAM, String.valueOf(offset));
+    queryParams.put(LIMIT_QUERY_PARAM, String.valueOf(limit));
+
+    return doSearchUserAuthData(sessionToken, integrationId, queryParams);
+  }
+
+  private List<UserAuthorizationData> doSearchUserAuthData(String sessionToken,
+      String integrationId, Map<String, String> queryParams) throws RemoteApiException {
     checkAuthToken(sessionToken);
     checkParam(integrationId, INTEGRATION_ID);
 
@@ -184,7 +220,7 @@ public class IntegrationAuthApiClient extends BasePodApiClient {
     headerParams.put(SESSION_TOKEN_HEADER_PARAM, sessionToken);
 
     try {
-      return apiClient.doGet(path, headerParams, filter, UserAuthorizationDataList.class);
+      return apiClient.doGet(path, headerParams, queryParams, UserAuthorizationDataList.class);
     } catch (RemoteApiException e) {
       if (e.getCode() == Response.Status.UNAUTHORIZED.getStatusCode()) {
         String message = logMessage.getMessage(UNAUTHORIZED_MESSAGE);
@@ -203,6 +239,22 @@ public class IntegrationAuthApiClient extends BasePodApiClient {
     }
   }
 
+  /**
+   * Check if the filter doesn't use the name of a paging parameter, as both are sent as query
+   * parameters.
+   * @param filter Map used as filter
+   * @param paramName Paging parameter name
+   * @throws RemoteApiException Filter using the paging parameter name
+   */
+  private void checkFilter(Map<String, String> filter, String paramName)
+      throws RemoteApiException {
+    if (filter.containsKey(paramName)) {
+      String reason = logMessage.getMessage(RESERVED_FILTER, paramName);
+      String solution = logMessage.getMessage(RESERVED_FILTER_SOLUTION, paramName);
+      throw new RemoteApiException(HTTP_BAD_REQUEST_ERROR, reason, solution);
+    }
+  }
+
   /**
    * Check HTTP parameter. Throws an {@link RemoteApiException} if the parameter is null.
    * @param param Parameter object
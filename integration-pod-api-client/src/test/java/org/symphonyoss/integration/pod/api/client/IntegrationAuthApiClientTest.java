@@ -1,6 +1,7 @@
 package org.symphonyoss.integration.pod.api.client;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyObject;
@@ -8,6 +9,8 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -188,6 +191,42 @@ public class IntegrationAuthApiClientTest {
     assertEquals(expected, result);
   }
 
+  @Test
+  public void testSearchUserAuthDataPage() throws RemoteApiException {
+    Map<String, String> filter = new HashMap<>();
+    filter.put(URL, MOCK_URL);
+
+    Map<String, String> queryParams = new HashMap<>(filter);
+    queryParams.put("offset", String.valueOf(100));
+    queryParams.put("limit", String.valueOf(50));
+
+    UserAuthorizationDataList expected = new UserAuthorizationDataList();
+    expected.add(new UserAuthorizationData());
+    doReturn(expected).when(httpClient).doGet(anyString(), anyMap(), eq(queryParams),
+        eq(UserAuthorizationDataList.class));
+
+    List result =
+        apiClient.searchUserAuthData(MOCK_SESSION, MOCK_INTEGRATION_ID, filter, 100, 50);
+    assertEquals(expected, result);
+    assertEquals(1, filter.size());
+  }
+
+  @Test
+  public void testSearchUserAuthDataPageReservedFilter() throws RemoteApiException {
+    Map<String, String> filter = new HashMap<>();
+    filter.put("limit", "10");
+
+    try {
+      apiClient.searchUserAuthData(MOCK_SESSION, MOCK_INTEGRATION_ID, filter, 100, 50);
+      fail();
+    } catch (RemoteApiException e) {
+      assertEquals(400, e.getCode());
+    }
+
+    verify(httpClient, never()).doGet(anyString(), anyMap(), anyMap(),
+        eq(UserAuthorizationDataList.class));
+  }
+
   private void mockRemoteExceptionToFind(RemoteApiException apiException)
       throws RemoteApiException {
     doThrow(apiException).when(httpClient).doGet(
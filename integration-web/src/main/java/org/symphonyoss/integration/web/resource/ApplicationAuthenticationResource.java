@@ -22,6 +22,9 @@ import static org.symphonyoss.integration.web.properties.AuthErrorMessageKeys
     .INTEGRATION_UNAVAILABLE_SOLUTION;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -35,6 +38,7 @@ import org.symphonyoss.integration.Integration;
 import org.symphonyoss.integration.authentication.api.jwt.JwtAuthentication;
 import org.symphonyoss.integration.authentication.api.model.AppToken;
 import org.symphonyoss.integration.authentication.api.model.JwtPayload;
+import org.symphonyoss.integration.core.bootstrap.NamedThreadFactory;
 import org.symphonyoss.integration.exception.IntegrationUnavailableException;
 import org.symphonyoss.integration.exception.authentication.MissingRequiredParameterException;
 import org.symphonyoss.integration.json.JsonUtils;
@@ -43,6 +47,16 @@ import org.symphonyoss.integration.model.ErrorResponse;
 import org.symphonyoss.integration.service.IntegrationBridge;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
 
 /**
  * REST endpoint to handle requests for manage application authentication data.
@@ -53,6 +67,28 @@ import java.io.IOException;
 @RequestMapping("/v1/application/{configurationId}/jwt")
 public class ApplicationAuthenticationResource {
 
+  /**
+   * Number of threads used to validate the JWTs received in batch
+   */
+  public static final String JWT_VALIDATION_THREADS_KEY = "jwt.validation.threads";
+
+  public static final String DEFAULT_JWT_VALIDATION_THREADS = "4";
+
+  /**
+   * Maximum number of JWTs waiting for a validation thread. When the queue is full the request
+   * thread validates the JWT itself.
+   */
+  public static final String JWT_VALIDATION_QUEUE_SIZE_KEY = "jwt.validation.queue.size";
+
+  public static final String DEFAULT_JWT_VALIDATION_QUEUE_SIZE = "1000";
+
+  /**
+   * Maximum number of JWTs accepted in a single batch
+   */
+  public static final String JWT_VALIDATION_MAX_BATCH_SIZE_KEY = "jwt.validation.max.batch.size";
+
+  public static final String DEFAULT_JWT_VALIDATION_MAX_BATCH_SIZE = "100";
+
   private static final String COMPONENT = "Authentication API";
 
   private static final String UNAUTHORIZED_URL = "integration.web.jwt.pod.url.unauthorized";
@@ -60,18 +96,26 @@ public class ApplicationAuthenticationResource {
   private static final String UNAUTHORIZED_JWT = "integration.web.jwt.pod.token.jwt.invalid";
   private static final String MISSING_PARAMETER = "integration.web.jwt.missing.parameter";
   private static final String MISSING_PARAMETER_SOLUTION = MISSING_PARAMETER + ".solution";
+  private static final String BATCH_TOO_LARGE = "integration.web.jwt.batch.too.large";
 
   // Parameters
   private static final String APPLICATION_TOKEN = "applicationToken";
   private static final String JWT = "jwt";
+  private static final String JWTS = "jwts";
   private static final String POD_ID = "podId";
   private static final String SYMPHONY_TOKEN = "symphonyToken";
 
   // Actions
   private static final String AUTHENTICATE = "authenticate";
   private static final String VALIDATE = "validate";
+  private static final String VALIDATE_BATCH = "validateBatch";
   private static final String VALIDATE_TOKENS = "validateTokens";
 
+  // Batch validation result
+  private static final String VALID = "valid";
+  private static final String USER_ID = "userId";
+  private static final String ERROR = "error";
+
   @Autowired
   private LogMessageSource logMessage;
 
@@ -81,6 +125,27 @@ public class ApplicationAuthenticationResource {
   @Autowired
   private IntegrationBridge integrationBridge;
 
+  private final ExecutorService validationExecutor = newValidationExecutor();
+
+  private int maxBatchSize = Integer.valueOf(
+      System.getProperty(JWT_VALIDATION_MAX_BATCH_SIZE_KEY, DEFAULT_JWT_VALIDATION_MAX_BATCH_SIZE));
+
+  private static ExecutorService newValidationExecutor() {
+    int threads = Integer.valueOf(
+        System.getProperty(JWT_VALIDATION_THREADS_KEY, DEFAULT_JWT_VALIDATION_THREADS));
+    int queueSize = Integer.valueOf(
+        System.getProperty(JWT_VALIDATION_QUEUE_SIZE_KEY, DEFAULT_JWT_VALIDATION_QUEUE_SIZE));
+
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize), new NamedThreadFactory("JwtValidation", true),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @PreDestroy
+  public void destroy() {
+    validationExecutor.shutdown();
+  }
+
   /**
    * Start the JWT authentication between the App and the SBE.
    * @param configurationId Application identifier.
@@ -134,6 +199,73 @@ public class ApplicationAuthenticationResource {
     }
   }
 
+  /**
+   * Validate the provided JWTs in parallel.
+   * @param configurationId Application identifier.
+   * @param body Request body containing the array of JWTs.
+   * @return 200 OK with the validation result of each JWT, in the same order they were received,
+   * or 400 Bad Request if the batch exceeds the maximum size.
+   */
+  @PostMapping(value = "/validate/batch")
+  public ResponseEntity validateBatch(@PathVariable final String configurationId,
+      @RequestBody String body) {
+    JsonNode node = getJsonNode(JWTS, VALIDATE_BATCH, body);
+    JsonNode jwts = node.path(JWTS);
+
+    if (!jwts.isArray() || jwts.size() == 0) {
+      validateRequiredParameter(null, JWTS, VALIDATE_BATCH);
+    }
+
+    if (jwts.size() > maxBatchSize) {
+      ErrorResponse response = new ErrorResponse(HttpStatus.BAD_REQUEST.value(),
+          logMessage.getMessage(BATCH_TOO_LARGE, String.valueOf(jwts.size()),
+              String.valueOf(maxBatchSize)));
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    List<CompletableFuture<ObjectNode>> results = new ArrayList<>(jwts.size());
+
+    for (JsonNode jwtNode : jwts) {
+      final String jwt = jwtNode.asText();
+
+      results.add(CompletableFuture.supplyAsync(new Supplier<ObjectNode>() {
+        @Override
+        public ObjectNode get() {
+          return validateJwt(configurationId, jwt);
+        }
+      }, validationExecutor));
+    }
+
+    ArrayNode response = JsonNodeFactory.instance.arrayNode();
+
+    for (CompletableFuture<ObjectNode> result : results) {
+      response.add(result.join());
+    }
+
+    return ResponseEntity.ok().body(response);
+  }
+
+  /**
+   * Validate a single JWT received in batch.
+   * @param configurationId Application identifier.
+   * @param jwt JWT to be validated.
+   * @return Validation result with the user identifier or the reason the JWT is invalid.
+   */
+  private ObjectNode validateJwt(String configurationId, String jwt) {
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+    try {
+      JwtPayload jwtPayload = jwtAuthentication.parseJwtPayload(configurationId, jwt);
+      result.put(VALID, true);
+      result.put(USER_ID, jwtPayload.getUserId());
+    } catch (Exception e) {
+      result.put(VALID, false);
+      result.put(ERROR, logMessage.getMessage(UNAUTHORIZED_JWT, jwt, e.getMessage()));
+    }
+
+    return result;
+  }
+
   /**
    * Validate the provided token pair (app token and symphony token)
    * @param configurationId Application identifier.
@@ -17,16 +17,23 @@
 package org.symphonyoss.integration.web.resource;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -69,6 +76,11 @@ public class ApplicationAuthenticationResourceTest {
 
   private static final String REQUEST_EMPTY_JWT = "{ \"jwt\": \"\"}";
 
+  private static final String REQUEST_VALIDATE_BATCH =
+      "{ \"jwts\": [\"mockAppToken\", \"mockSymphonyToken\"]}";
+
+  private static final String REQUEST_EMPTY_BATCH = "{ \"jwts\": []}";
+
   private static final String REQUEST_VALIDATE_TOKENS =
       "{ \"applicationToken\": \"mockAppToken\", \"symphonyToken\": \"mockSymphonyToken\"}";
 
@@ -249,4 +261,45 @@ public class ApplicationAuthenticationResourceTest {
   public void testValidateJwtEmtptyToken() {
     appAuthenticationResource.validate(CONFIGURATION_ID, REQUEST_EMPTY_JWT);
   }
+
+  @Test
+  public void testValidateBatch() {
+    JwtPayload mockJwtPayload = new JwtPayload();
+    mockJwtPayload.setUserId(USER_ID);
+    doReturn(mockJwtPayload).when(jwtAuthentication)
+        .parseJwtPayload(CONFIGURATION_ID, MOCK_APP_TOKEN);
+    doThrow(RuntimeException.class).when(jwtAuthentication)
+        .parseJwtPayload(CONFIGURATION_ID, MOCK_SYMPHONY_TOKEN);
+
+    ResponseEntity response =
+        appAuthenticationResource.validateBatch(CONFIGURATION_ID, REQUEST_VALIDATE_BATCH);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+
+    JsonNode results = (JsonNode) response.getBody();
+    assertEquals(2, results.size());
+
+    assertTrue(results.get(0).path("valid").asBoolean());
+    assertEquals(USER_ID, results.get(0).path("userId").asText());
+
+    assertFalse(results.get(1).path("valid").asBoolean());
+    assertTrue(results.get(1).has("error"));
+  }
+
+  @Test(expected = MissingRequiredParameterException.class)
+  public void testValidateBatchEmpty() {
+    appAuthenticationResource.validateBatch(CONFIGURATION_ID, REQUEST_EMPTY_BATCH);
+  }
+
+  @Test
+  public void testValidateBatchTooLarge() {
+    Whitebox.setInternalState(appAuthenticationResource, "maxBatchSize", 1);
+
+    ResponseEntity response =
+        appAuthenticationResource.validateBatch(CONFIGURATION_ID, REQUEST_VALIDATE_BATCH);
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+    ErrorResponse errorResponse = (ErrorResponse) response.getBody();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), errorResponse.getStatus());
+    verify(jwtAuthentication, never()).parseJwtPayload(anyString(), anyString());
+  }
 }